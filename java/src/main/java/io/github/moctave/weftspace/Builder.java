@@ -13,6 +13,10 @@
 
 package io.github.moctave.weftspace;
 
+import java.util.OptionalDouble;
+import java.util.OptionalInt;
+import java.util.OptionalLong;
+
 import org.jspecify.annotations.*;
 
 /** A class of utility methods designed to allow easy conversion from nodes to objects. */
@@ -26,11 +30,9 @@ public abstract class Builder {
 	 * @return The argument, as a string.
 	 */
 	public static @NonNull String buildString(@NonNull DataNode node, int arg) throws BuilderException {
-		try {
-			return node.getArg(arg);
-		} catch (IndexOutOfBoundsException e) {
-			throw new BuilderException(String.format("No argument at position %d.", arg), node);
-		}
+		final String text = argOrNull(node, arg);
+		if (text == null) throw new BuilderException(String.format("No argument at position %d.", arg), node);
+		return text;
 	}
 
 
@@ -44,14 +46,47 @@ public abstract class Builder {
 	 * @return The argument, as a integer.
 	 */
 	public static int buildInt(@NonNull DataNode node, int arg) throws BuilderException {
-		try {
-			return Integer.parseInt(node.getArg(arg));
-		} catch (IndexOutOfBoundsException e) {
-			throw new BuilderException(String.format("No argument at position %d.", arg), node);
-		} catch (NumberFormatException e) {
+		final String text = buildString(node, arg);
+		final NumberCache numbers = node.numbers();
+		if (!numbers.isLong(arg, text, Integer.MIN_VALUE, Integer.MAX_VALUE)) {
 			throw new BuilderException(
-				String.format("The string \"%s\" could not be parsed to an integer.", node.getArg(arg)), node);
+				String.format("The string \"%s\" could not be parsed to an integer.", text), node);
 		}
+		return (int) numbers.getLong(arg);
+	}
+
+
+	/**
+	 * Takes an argument from a node and returns it as an integer, or a fallback value if
+	 * the argument is missing or is not an integer. This never throws an exception.
+	 * 
+	 * @param node The node to access.
+	 * @param arg The index of the argument to convert.
+	 * @param fallback The value to return if the argument cannot be converted.
+	 * @return The argument, as an integer, or the fallback.
+	 */
+	public static int buildInt(@NonNull DataNode node, int arg, int fallback) {
+		final String text = argOrNull(node, arg);
+		if (text == null) return fallback;
+		final NumberCache numbers = node.numbers();
+		return numbers.isLong(arg, text, Integer.MIN_VALUE, Integer.MAX_VALUE) ? (int) numbers.getLong(arg) : fallback;
+	}
+
+
+	/**
+	 * Takes an argument from a node and returns it as an integer, if it is one. This never throws
+	 * an exception, so it is suited to probing arguments which may be missing or may not be numbers.
+	 * 
+	 * @param node The node to access.
+	 * @param arg The index of the argument to convert.
+	 * @return The argument, as an integer, or an empty optional if it is missing or not an integer.
+	 */
+	public static @NonNull OptionalInt tryBuildInt(@NonNull DataNode node, int arg) {
+		final String text = argOrNull(node, arg);
+		if (text == null) return OptionalInt.empty();
+		final NumberCache numbers = node.numbers();
+		if (!numbers.isLong(arg, text, Integer.MIN_VALUE, Integer.MAX_VALUE)) return OptionalInt.empty();
+		return OptionalInt.of((int) numbers.getLong(arg));
 	}
 
 
@@ -65,14 +100,45 @@ public abstract class Builder {
 	 * @return The argument, as a double.
 	 */
 	public static double buildDouble(@NonNull DataNode node, int arg) throws BuilderException {
-		try {
-			return Double.parseDouble(node.getArg(arg));
-		} catch (IndexOutOfBoundsException e) {
-			throw new BuilderException(String.format("No argument at position %d.", arg), node);
-		} catch (NumberFormatException e) {
-			throw new BuilderException(
-				String.format("The string \"%s\" could not be parsed to a double.", node.getArg(arg)), node);
+		final String text = buildString(node, arg);
+		final NumberCache numbers = node.numbers();
+		if (!numbers.isDouble(arg, text)) {
+			throw new BuilderException(String.format("The string \"%s\" could not be parsed to a double.", text), node);
 		}
+		return numbers.getDouble(arg);
+	}
+
+
+	/**
+	 * Takes an argument from a node and returns it as a double, or a fallback value if
+	 * the argument is missing or is not a number. This never throws an exception.
+	 * 
+	 * @param node The node to access.
+	 * @param arg The index of the argument to convert.
+	 * @param fallback The value to return if the argument cannot be converted.
+	 * @return The argument, as a double, or the fallback.
+	 */
+	public static double buildDouble(@NonNull DataNode node, int arg, double fallback) {
+		final String text = argOrNull(node, arg);
+		if (text == null) return fallback;
+		final NumberCache numbers = node.numbers();
+		return numbers.isDouble(arg, text) ? numbers.getDouble(arg) : fallback;
+	}
+
+
+	/**
+	 * Takes an argument from a node and returns it as a double, if it is a number. This never throws
+	 * an exception, so it is suited to probing arguments which may be missing or may not be numbers.
+	 * 
+	 * @param node The node to access.
+	 * @param arg The index of the argument to convert.
+	 * @return The argument, as a double, or an empty optional if it is missing or not a number.
+	 */
+	public static @NonNull OptionalDouble tryBuildDouble(@NonNull DataNode node, int arg) {
+		final String text = argOrNull(node, arg);
+		if (text == null) return OptionalDouble.empty();
+		final NumberCache numbers = node.numbers();
+		return numbers.isDouble(arg, text) ? OptionalDouble.of(numbers.getDouble(arg)) : OptionalDouble.empty();
 	}
 
 
@@ -86,40 +152,77 @@ public abstract class Builder {
 	 * @return The argument, as a long int.
 	 */
 	public static long buildLong(@NonNull DataNode node, int arg) throws BuilderException {
-		try {
-			return Long.parseLong(node.getArg(arg));
-		} catch (IndexOutOfBoundsException e) {
-			throw new BuilderException(String.format("No argument at position %d.", arg), node);
-		} catch (NumberFormatException e) {
+		final String text = buildString(node, arg);
+		final NumberCache numbers = node.numbers();
+		if (!numbers.isLong(arg, text, Long.MIN_VALUE, Long.MAX_VALUE)) {
 			throw new BuilderException(
-				String.format("The string \"%s\" could not be parsed to a long int.", node.getArg(arg)), node);
+				String.format("The string \"%s\" could not be parsed to a long int.", text), node);
 		}
+		return numbers.getLong(arg);
+	}
+
+
+	/**
+	 * Takes an argument from a node and returns it as a long int, or a fallback value if
+	 * the argument is missing or is not an integer. This never throws an exception.
+	 * 
+	 * @param node The node to access.
+	 * @param arg The index of the argument to convert.
+	 * @param fallback The value to return if the argument cannot be converted.
+	 * @return The argument, as a long int, or the fallback.
+	 */
+	public static long buildLong(@NonNull DataNode node, int arg, long fallback) {
+		final String text = argOrNull(node, arg);
+		if (text == null) return fallback;
+		final NumberCache numbers = node.numbers();
+		return numbers.isLong(arg, text, Long.MIN_VALUE, Long.MAX_VALUE) ? numbers.getLong(arg) : fallback;
+	}
+
+
+	/**
+	 * Takes an argument from a node and returns it as a long int, if it is one. This never throws
+	 * an exception, so it is suited to probing arguments which may be missing or may not be numbers.
+	 * 
+	 * @param node The node to access.
+	 * @param arg The index of the argument to convert.
+	 * @return The argument, as a long int, or an empty optional if it is missing or not an integer.
+	 */
+	public static @NonNull OptionalLong tryBuildLong(@NonNull DataNode node, int arg) {
+		final String text = argOrNull(node, arg);
+		if (text == null) return OptionalLong.empty();
+		final NumberCache numbers = node.numbers();
+		if (!numbers.isLong(arg, text, Long.MIN_VALUE, Long.MAX_VALUE)) return OptionalLong.empty();
+		return OptionalLong.of(numbers.getLong(arg));
+	}
+
+
+
+	/**
+	 * Gets an argument from a node without throwing an exception if it is missing.
+	 * 
+	 * @param node The node to access.
+	 * @param arg The index of the argument.
+	 * @return The argument, or {@code null} if the node has no argument at that index.
+	 */
+	private static @Nullable String argOrNull(@NonNull DataNode node, int arg) {
+		return (arg < 0 || arg >= node.countArgs()) ? null : node.getArg(arg);
 	}
 
 
 
 	/**
 	 * Takes a node and uses it as a key to search the scope for a node
-	 * with a matching name and first argument.
+	 * with a matching name and first argument. Large scopes are searched
+	 * through an index, rather than one child at a time.
 	 * 
 	 * @param node The node to use as a search key.
 	 * @param scope The node whose children should be searched.
-	 * @return The node with the same name, or {@code null} if none exist.
+	 * @return The first node with the same name and first argument, or {@code null}
+	 * if none exist or the key has no arguments.
 	 */
 	public static @Nullable DataNode search(@NonNull DataNode node, @NonNull DataNode scope) {
-		try {
-			for (DataNode child : scope.getChildren()) {
-				if (
-					node.getName().equals(child.getName())
-					&& node.getArg(0).equals(child.getArg(0))
-				) {
-					return child;
-				}
-			}
-		} catch (IndexOutOfBoundsException e) {
-			// This is not necessarily an error, so no error message is printed.
-		}
+		if (node.countArgs() == 0) return null;
 
-		return null;
+		return scope.findChild(node.getName(), node.getArg(0));
 	}
 }
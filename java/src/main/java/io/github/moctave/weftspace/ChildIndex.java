@@ -0,0 +1,118 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jspecify.annotations.*;
+
+/**
+ * An index of the children of a node, so that children can be found by name, or by name
+ * and first argument, without searching through every child.
+ * 
+ * Both maps are filled in by the constructor and only reached through final fields, so an
+ * index built for a node that never changes can be safely read by other threads.
+ */
+final class ChildIndex {
+	// MARK: Fields
+	/** Every child with each name, in order. */
+	private final @NonNull Map<String, List<DataNode>> byName;
+
+	/** The first child with each name and first argument. */
+	private final @NonNull Map<Key, DataNode> byNameAndArg;
+
+	/** The number of children which have been indexed. */
+	private int size;
+
+
+
+	// MARK: Constructor
+	/**
+	 * Sole constructor. Indexes every child in a list.
+	 * 
+	 * @param children The children to index.
+	 */
+	ChildIndex(@NonNull List<DataNode> children) {
+		byName = new HashMap<>();
+		byNameAndArg = new HashMap<>();
+		for (DataNode child : children) {
+			add(child);
+		}
+	}
+
+
+
+	// MARK: Methods
+	/**
+	 * Adds a child to the index, after every child which has already been indexed.
+	 * 
+	 * @param child The child to add.
+	 */
+	void add(@NonNull DataNode child) {
+		byName.computeIfAbsent(child.getName(), name -> new ArrayList<>(1)).add(child);
+		if (child.countArgs() > 0) byNameAndArg.putIfAbsent(new Key(child.getName(), child.getArg(0)), child);
+		size++;
+	}
+
+
+
+	/**
+	 * Gets every indexed child with a name.
+	 * 
+	 * @param name The name to look for.
+	 * @return The children with that name, in order.
+	 */
+	@NonNull List<DataNode> named(@NonNull String name) {
+		return byName.getOrDefault(name, List.of());
+	}
+
+
+
+	/**
+	 * Gets the first indexed child with a name and first argument.
+	 * 
+	 * @param name The name to look for.
+	 * @param arg The first argument to look for.
+	 * @return The first matching child, or {@code null} if there are none.
+	 */
+	@Nullable DataNode find(@NonNull String name, @NonNull String arg) {
+		return byNameAndArg.get(new Key(name, arg));
+	}
+
+
+
+	// MARK: Getters
+	/**
+	 * Getter: Returns the number of children which have been indexed.
+	 * 
+	 * @return {@link #size}
+	 */
+	int getSize() {
+		return size;
+	}
+
+
+
+	// MARK: Nested Types
+	/**
+	 * A name and first argument, used as a key in the index.
+	 * 
+	 * @param name The name of the node.
+	 * @param arg The first argument of the node.
+	 */
+	private static record Key(@NonNull String name, @NonNull String arg) { }
+}
@@ -0,0 +1,530 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.RandomAccess;
+
+import org.jspecify.annotations.*;
+
+/**
+ * An unmodifiable list of children which is changed by making changed copies of it, sharing
+ * everything which did not change. This lets {@link PersistentNode} change one child of a node
+ * with thousands of children without copying all of them.
+ * 
+ * The children are kept in chunks of at most {@value #CHUNK} nodes, which are the leaves of a
+ * tree of chunks. Replacing, adding or removing a child copies only the chunks on the path to it,
+ * so each change costs memory in proportion to the logarithm of the number of children. Every
+ * chunk also remembers the hash code of its part of the list, so {@link #hashCode()} is as cheap
+ * to keep up to date as the list itself.
+ */
+final class ChildVector extends AbstractList<DataNode> implements RandomAccess {
+	// MARK: Constants
+	/** The most children or chunks any one chunk holds. */
+	private static final int CHUNK = 32;
+
+	/** The list with no children. */
+	private static final @NonNull ChildVector EMPTY = new ChildVector(new Leaf(new DataNode[0]));
+
+
+
+	// MARK: Fields
+	/** The chunk holding every child. */
+	private final @NonNull Chunk root;
+
+
+
+	// MARK: Constructor
+	/**
+	 * Sole constructor.
+	 * 
+	 * @param root The chunk holding every child.
+	 */
+	private ChildVector(@NonNull Chunk root) {
+		this.root = root;
+	}
+
+
+
+	// MARK: Methods
+	/**
+	 * Creates a list holding some children, in order.
+	 * 
+	 * @param children The children to hold.
+	 * @return The list.
+	 */
+	static @NonNull ChildVector of(@NonNull List<? extends DataNode> children) {
+		if (children instanceof ChildVector) return (ChildVector) children;
+		if (children.isEmpty()) return EMPTY;
+
+		// Fill whole chunks from the bottom up, so the tree starts out as shallow as it can be.
+		Chunk[] level = new Chunk[(children.size() + CHUNK - 1) / CHUNK];
+		for (int i = 0; i < level.length; i++) {
+			final int start = i * CHUNK;
+			final int end = Math.min(start + CHUNK, children.size());
+			level[i] = new Leaf(children.subList(start, end).toArray(new DataNode[0]));
+		}
+		while (level.length > 1) {
+			final Chunk[] above = new Chunk[(level.length + CHUNK - 1) / CHUNK];
+			for (int i = 0; i < above.length; i++) {
+				final int start = i * CHUNK;
+				above[i] = new Branch(Arrays.copyOfRange(level, start, Math.min(start + CHUNK, level.length)));
+			}
+			level = above;
+		}
+		return new ChildVector(level[0]);
+	}
+
+
+
+	/**
+	 * Makes a copy of this list with one child replaced.
+	 * 
+	 * @param i The index of the child to replace.
+	 * @param child The new child.
+	 * @return The copy.
+	 * @throws IndexOutOfBoundsException If there is no child at that index.
+	 */
+	@NonNull ChildVector replaced(int i, @NonNull DataNode child) {
+		checkIndex(i, size());
+		return new ChildVector(root.replaced(i, child));
+	}
+
+
+
+	/**
+	 * Makes a copy of this list with a child added at an index.
+	 * 
+	 * @param i The index to add the child at, which may be the size of this list.
+	 * @param child The new child.
+	 * @return The copy.
+	 * @throws IndexOutOfBoundsException If the index is negative or larger than the size of this list.
+	 */
+	@NonNull ChildVector inserted(int i, @NonNull DataNode child) {
+		checkIndex(i, size() + 1);
+		final Chunk[] split = root.inserted(i, child);
+		return new ChildVector(split.length == 1 ? split[0] : new Branch(split));
+	}
+
+
+
+	/**
+	 * Makes a copy of this list with one child removed.
+	 * 
+	 * @param i The index of the child to remove.
+	 * @return The copy.
+	 * @throws IndexOutOfBoundsException If there is no child at that index.
+	 */
+	@NonNull ChildVector removed(int i) {
+		checkIndex(i, size());
+		Chunk remaining = root.removed(i);
+		if (remaining == null) return EMPTY;
+
+		// Don't keep chunks which only hold one other chunk.
+		while (remaining instanceof Branch && ((Branch) remaining).chunks.length == 1) {
+			remaining = ((Branch) remaining).chunks[0];
+		}
+		return new ChildVector(remaining);
+	}
+
+
+
+	/**
+	 * Checks that an index is within bounds.
+	 * 
+	 * @param i The index to check.
+	 * @param bound One more than the largest allowed index.
+	 * @throws IndexOutOfBoundsException If the index is out of bounds.
+	 */
+	private static void checkIndex(int i, int bound) {
+		if (i < 0 || i >= bound) throw new IndexOutOfBoundsException("Index " + i + " out of bounds for length " + bound);
+	}
+
+
+
+	/**
+	 * Gets a child.
+	 * 
+	 * @param i The index of the child.
+	 * @return The child.
+	 * @throws IndexOutOfBoundsException If there is no child at that index.
+	 */
+	@Override
+	public @NonNull DataNode get(int i) {
+		checkIndex(i, size());
+		Chunk chunk = root;
+		while (chunk instanceof Branch) {
+			final Branch branch = (Branch) chunk;
+			final int k = branch.find(i);
+			i -= branch.start(k);
+			chunk = branch.chunks[k];
+		}
+		return ((Leaf) chunk).children[i];
+	}
+
+
+
+	/**
+	 * Gets the number of children in this list.
+	 * 
+	 * @return The number of children.
+	 */
+	@Override
+	public int size() {
+		return root.size;
+	}
+
+
+
+	/**
+	 * Gets the hash code of this list, which is the same as that of any other list holding the
+	 * same children, but is remembered rather than calculated each time.
+	 * 
+	 * @return A hash code value for this list.
+	 */
+	@Override
+	public int hashCode() {
+		return root.power + root.sum;
+	}
+
+
+
+	/**
+	 * Creates an iterator over the children, which walks through one chunk at a time rather than
+	 * finding each child from the top.
+	 * 
+	 * @return The iterator.
+	 */
+	@Override
+	public @NonNull Iterator<DataNode> iterator() {
+		return new Iterator<>() {
+			/** The index of the next child. */
+			private int next = 0;
+
+			/** The leaf holding the child before the next one, or an empty leaf before starting. */
+			private DataNode @NonNull [] leaf = new DataNode[0];
+
+			/** The position of the next child in {@link #leaf}. */
+			private int offset = 0;
+
+			@Override
+			public boolean hasNext() {
+				return next < size();
+			}
+
+			@Override
+			public @NonNull DataNode next() {
+				if (!hasNext()) throw new NoSuchElementException();
+				if (offset == leaf.length) {
+					leaf = leafAt(next);
+					offset = 0;
+				}
+				next++;
+				return leaf[offset++];
+			}
+		};
+	}
+
+
+
+	/**
+	 * Finds the leaf which starts with a child.
+	 * 
+	 * @param i The index of the first child in the leaf.
+	 * @return The children in the leaf.
+	 */
+	private DataNode @NonNull [] leafAt(int i) {
+		Chunk chunk = root;
+		while (chunk instanceof Branch) {
+			final Branch branch = (Branch) chunk;
+			final int k = branch.find(i);
+			i -= branch.start(k);
+			chunk = branch.chunks[k];
+		}
+		return ((Leaf) chunk).children;
+	}
+
+
+
+	// MARK: Nested Types
+	/**
+	 * A chunk of the list. Hash codes are kept in two parts, so that the hash codes of two chunks
+	 * can be combined without looking inside them: a list of n children has the hash code
+	 * 31<sup>n</sup> + the sum of 31<sup>n-1-i</sup> times the hash code of each child i.
+	 */
+	private abstract static class Chunk {
+		/** The number of children in this chunk. */
+		final int size;
+
+		/** The sum part of the hash code of this chunk. */
+		final int sum;
+
+		/** 31 to the power of the number of children in this chunk. */
+		final int power;
+
+		/**
+		 * Sole constructor.
+		 * 
+		 * @param size The number of children in this chunk.
+		 * @param sum The sum part of the hash code of this chunk.
+		 * @param power 31 to the power of the number of children in this chunk.
+		 */
+		Chunk(int size, int sum, int power) {
+			this.size = size;
+			this.sum = sum;
+			this.power = power;
+		}
+
+		/**
+		 * Makes a copy of this chunk with one child replaced.
+		 * 
+		 * @param i The index of the child within this chunk.
+		 * @param child The new child.
+		 * @return The copy.
+		 */
+		abstract @NonNull Chunk replaced(int i, @NonNull DataNode child);
+
+		/**
+		 * Makes a copy of this chunk with a child added, splitting it in two if it is full.
+		 * 
+		 * @param i The index within this chunk to add the child at.
+		 * @param child The new child.
+		 * @return The copy, or the two halves of it.
+		 */
+		abstract @NonNull Chunk @NonNull [] inserted(int i, @NonNull DataNode child);
+
+		/**
+		 * Makes a copy of this chunk with one child removed.
+		 * 
+		 * @param i The index of the child within this chunk.
+		 * @return The copy, or {@code null} if it would be empty.
+		 */
+		abstract @Nullable Chunk removed(int i);
+	}
+
+
+
+	/** A chunk holding children. */
+	private static final class Leaf extends Chunk {
+		/** The children in this chunk. */
+		final DataNode @NonNull [] children;
+
+		/**
+		 * Sole constructor.
+		 * 
+		 * @param children The children in this chunk, which are not copied.
+		 */
+		Leaf(DataNode @NonNull [] children) {
+			super(children.length, sumOf(children), powerOf(children.length));
+			this.children = children;
+		}
+
+		/**
+		 * Calculates the sum part of the hash code of some children.
+		 * 
+		 * @param children The children.
+		 * @return The sum part of their hash code.
+		 */
+		private static int sumOf(DataNode @NonNull [] children) {
+			int sum = 0;
+			for (DataNode child : children) {
+				sum = 31 * sum + child.hashCode();
+			}
+			return sum;
+		}
+
+		/**
+		 * Calculates a power of 31.
+		 * 
+		 * @param n The power.
+		 * @return 31 to the power of n.
+		 */
+		private static int powerOf(int n) {
+			int power = 1;
+			for (int i = 0; i < n; i++) {
+				power *= 31;
+			}
+			return power;
+		}
+
+		@Override
+		@NonNull Chunk replaced(int i, @NonNull DataNode child) {
+			final DataNode[] changed = children.clone();
+			changed[i] = child;
+			return new Leaf(changed);
+		}
+
+		@Override
+		@NonNull Chunk @NonNull [] inserted(int i, @NonNull DataNode child) {
+			final DataNode[] changed = new DataNode[children.length + 1];
+			System.arraycopy(children, 0, changed, 0, i);
+			changed[i] = child;
+			System.arraycopy(children, i, changed, i + 1, children.length - i);
+			if (changed.length <= CHUNK) return new Chunk[] {new Leaf(changed)};
+
+			final int half = changed.length / 2;
+			return new Chunk[] {
+				new Leaf(Arrays.copyOfRange(changed, 0, half)),
+				new Leaf(Arrays.copyOfRange(changed, half, changed.length))
+			};
+		}
+
+		@Override
+		@Nullable Chunk removed(int i) {
+			if (children.length == 1) return null;
+
+			final DataNode[] changed = new DataNode[children.length - 1];
+			System.arraycopy(children, 0, changed, 0, i);
+			System.arraycopy(children, i + 1, changed, i, changed.length - i);
+			return new Leaf(changed);
+		}
+	}
+
+
+
+	/** A chunk holding other chunks. */
+	private static final class Branch extends Chunk {
+		/** The chunks in this chunk, none of which are empty. */
+		final @NonNull Chunk @NonNull [] chunks;
+
+		/**
+		 * Sole constructor.
+		 * 
+		 * @param chunks The chunks in this chunk, which are not copied.
+		 */
+		Branch(@NonNull Chunk @NonNull [] chunks) {
+			super(sizeOf(chunks), sumOf(chunks), powerOf(chunks));
+			this.chunks = chunks;
+		}
+
+		/**
+		 * Adds up the sizes of some chunks.
+		 * 
+		 * @param chunks The chunks.
+		 * @return The number of children in all of them.
+		 */
+		private static int sizeOf(@NonNull Chunk @NonNull [] chunks) {
+			int size = 0;
+			for (Chunk chunk : chunks) {
+				size += chunk.size;
+			}
+			return size;
+		}
+
+		/**
+		 * Combines the sum parts of the hash codes of some chunks.
+		 * 
+		 * @param chunks The chunks, in order.
+		 * @return The sum part of the hash code of all of them together.
+		 */
+		private static int sumOf(@NonNull Chunk @NonNull [] chunks) {
+			int sum = 0;
+			for (Chunk chunk : chunks) {
+				sum = sum * chunk.power + chunk.sum;
+			}
+			return sum;
+		}
+
+		/**
+		 * Combines the powers of some chunks.
+		 * 
+		 * @param chunks The chunks.
+		 * @return 31 to the power of the number of children in all of them.
+		 */
+		private static int powerOf(@NonNull Chunk @NonNull [] chunks) {
+			int power = 1;
+			for (Chunk chunk : chunks) {
+				power *= chunk.power;
+			}
+			return power;
+		}
+
+		/**
+		 * Finds the chunk holding a child. A child just past the end belongs to the last chunk.
+		 * 
+		 * @param i The index of the child within this chunk.
+		 * @return The position of the chunk in {@link #chunks}.
+		 */
+		int find(int i) {
+			int k = 0;
+			while (k < chunks.length - 1 && i >= chunks[k].size) {
+				i -= chunks[k].size;
+				k++;
+			}
+			return k;
+		}
+
+		/**
+		 * Finds the index of the first child of one of the chunks.
+		 * 
+		 * @param k The position of the chunk in {@link #chunks}.
+		 * @return The index of its first child within this chunk.
+		 */
+		int start(int k) {
+			int start = 0;
+			for (int j = 0; j < k; j++) {
+				start += chunks[j].size;
+			}
+			return start;
+		}
+
+		@Override
+		@NonNull Chunk replaced(int i, @NonNull DataNode child) {
+			final int k = find(i);
+			final Chunk[] changed = chunks.clone();
+			changed[k] = chunks[k].replaced(i - start(k), child);
+			return new Branch(changed);
+		}
+
+		@Override
+		@NonNull Chunk @NonNull [] inserted(int i, @NonNull DataNode child) {
+			final int k = find(i);
+			final Chunk[] split = chunks[k].inserted(i - start(k), child);
+
+			final Chunk[] changed = new Chunk[chunks.length + split.length - 1];
+			System.arraycopy(chunks, 0, changed, 0, k);
+			System.arraycopy(split, 0, changed, k, split.length);
+			System.arraycopy(chunks, k + 1, changed, k + split.length, chunks.length - k - 1);
+			if (changed.length <= CHUNK) return new Chunk[] {new Branch(changed)};
+
+			final int half = changed.length / 2;
+			return new Chunk[] {
+				new Branch(Arrays.copyOfRange(changed, 0, half)),
+				new Branch(Arrays.copyOfRange(changed, half, changed.length))
+			};
+		}
+
+		@Override
+		@Nullable Chunk removed(int i) {
+			final int k = find(i);
+			final Chunk remaining = chunks[k].removed(i - start(k));
+			if (remaining != null) {
+				final Chunk[] changed = chunks.clone();
+				changed[k] = remaining;
+				return new Branch(changed);
+			}
+
+			// Chunks which become empty are dropped, rather than left holding nothing.
+			if (chunks.length == 1) return null;
+			final Chunk[] changed = new Chunk[chunks.length - 1];
+			System.arraycopy(chunks, 0, changed, 0, k);
+			System.arraycopy(chunks, k + 1, changed, k, changed.length - k);
+			return new Branch(changed);
+		}
+	}
+}
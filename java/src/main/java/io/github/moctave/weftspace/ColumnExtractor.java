@@ -0,0 +1,374 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.jspecify.annotations.*;
+
+/**
+ * Reads numbers from every node matched by a query into a {@link ColumnTable}, such as the mass
+ * and cost of every ship:
+ * 
+ * <pre>
+ * ColumnExtractor extractor = new ColumnExtractor("ship");
+ * int mass = extractor.addDouble("mass");
+ * int shields = extractor.addDouble("attributes/shields");
+ * ColumnTable table = extractor.extract(root);
+ * </pre>
+ * 
+ * Each column is read from the first node matched by a {@link NodeQuery}, relative to each
+ * matched node. Columns which are read from a child named in full, such as {@code mass}, are all
+ * found in a single pass over each node's children, and any others are found by running their
+ * query. A value which is missing or is not a number is left out of the table, rather than
+ * stopping the whole table from being read.
+ * 
+ * Nodes are split into blocks, which are read in parallel on a {@link ForkJoinPool}. Extractors
+ * can be shared between threads once every column has been added.
+ */
+public final class ColumnExtractor {
+	// MARK: Constants
+	/**
+	 * The largest number of nodes read on a single thread. This is a multiple of 64, so that
+	 * no two threads ever write to the same word of a presence bitmap.
+	 */
+	private static final int BLOCK_SIZE = 256;
+
+
+
+	// MARK: Fields
+	/** The query which finds the nodes to read, one for each row. */
+	private final @NonNull NodeQuery entities;
+
+	/** Every column, in order. */
+	private final @NonNull List<Column> columns = new ArrayList<>();
+
+	/** The columns read from children with each name. */
+	private final @NonNull Map<String, int[]> byName = new HashMap<>();
+
+	/** The columns read by running their query. */
+	private int @NonNull [] queried = new int[0];
+
+	/** The pool blocks of nodes are read in. */
+	private @NonNull ForkJoinPool pool = ForkJoinPool.commonPool();
+
+
+
+	// MARK: Constructors
+	/**
+	 * Primary constructor.
+	 * 
+	 * @param entities The query which finds the nodes to read, one for each row.
+	 */
+	public ColumnExtractor(@NonNull NodeQuery entities) {
+		this.entities = entities;
+	}
+
+
+	/**
+	 * Creates an extractor from a query expression, such as {@code ship}.
+	 * 
+	 * @param entities The expression of the query which finds the nodes to read.
+	 * @throws IllegalArgumentException If the expression is not valid.
+	 */
+	public ColumnExtractor(@NonNull String entities) {
+		this(NodeQuery.of(entities));
+	}
+
+
+
+	// MARK: Methods
+	/**
+	 * Adds a column of decimal numbers, read from the first argument of the first node matched
+	 * by a query.
+	 * 
+	 * @param path The expression of the query, relative to each row's node.
+	 * @return The number of the column.
+	 * @throws IllegalArgumentException If the expression is not valid.
+	 */
+	public int addDouble(@NonNull String path) {
+		return add(path, 0, false);
+	}
+
+
+	/**
+	 * Adds a column of decimal numbers, read from an argument of the first node matched by a query.
+	 * 
+	 * @param path The expression of the query, relative to each row's node.
+	 * @param arg The index of the argument.
+	 * @return The number of the column.
+	 * @throws IllegalArgumentException If the expression is not valid, or the index is negative.
+	 */
+	public int addDouble(@NonNull String path, int arg) {
+		return add(path, arg, false);
+	}
+
+
+	/**
+	 * Adds a column of whole numbers, read from the first argument of the first node matched
+	 * by a query.
+	 * 
+	 * @param path The expression of the query, relative to each row's node.
+	 * @return The number of the column.
+	 * @throws IllegalArgumentException If the expression is not valid.
+	 */
+	public int addLong(@NonNull String path) {
+		return add(path, 0, true);
+	}
+
+
+	/**
+	 * Adds a column of whole numbers, read from an argument of the first node matched by a query.
+	 * 
+	 * @param path The expression of the query, relative to each row's node.
+	 * @param arg The index of the argument.
+	 * @return The number of the column.
+	 * @throws IllegalArgumentException If the expression is not valid, or the index is negative.
+	 */
+	public int addLong(@NonNull String path, int arg) {
+		return add(path, arg, true);
+	}
+
+
+	/**
+	 * Adds a column.
+	 * 
+	 * @param path The expression of the query, relative to each row's node.
+	 * @param arg The index of the argument.
+	 * @param whole Whether the column holds whole numbers.
+	 * @return The number of the column.
+	 * @throws IllegalArgumentException If the expression is not valid, or the index is negative.
+	 */
+	private int add(@NonNull String path, int arg, boolean whole) {
+		if (arg < 0) throw new IllegalArgumentException("Argument index cannot be negative: " + arg);
+		final int column = columns.size();
+		if (isPlainName(path)) {
+			columns.add(new Column(arg, whole, null));
+			final int[] before = byName.get(path);
+			final int[] after = before == null ? new int[1] : Arrays.copyOf(before, before.length + 1);
+			after[after.length - 1] = column;
+			byName.put(path, after);
+		} else {
+			columns.add(new Column(arg, whole, NodeQuery.of(path)));
+			queried = Arrays.copyOf(queried, queried.length + 1);
+			queried[queried.length - 1] = column;
+		}
+		return column;
+	}
+
+
+
+	/**
+	 * Reads every column from every node matched by the query.
+	 * 
+	 * @param root The node the query is run on.
+	 * @return The table, with one row for each matched node, in tree order.
+	 */
+	public @NonNull ColumnTable extract(@NonNull DataNode root) {
+		final boolean[] whole = new boolean[columns.size()];
+		for (int i = 0; i < whole.length; i++) {
+			whole[i] = columns.get(i).whole();
+		}
+
+		final ColumnTable table = new ColumnTable(entities.all(root).toArray(new DataNode[0]), whole);
+		final int rows = table.getRows();
+		if (rows <= BLOCK_SIZE) {
+			extractRows(table, 0, rows);
+		} else {
+			pool.invoke(new BlockTask(this, table, 0, rows));
+		}
+		return table;
+	}
+
+
+
+	/**
+	 * Reads every column for a block of rows.
+	 * 
+	 * @param table The table to fill.
+	 * @param from The first row.
+	 * @param to The row after the last.
+	 */
+	private void extractRows(@NonNull ColumnTable table, int from, int to) {
+		final boolean[] found = new boolean[columns.size()];
+		for (int row = from; row < to; row++) {
+			final DataNode entity = table.getEntity(row);
+			table.identify(row);
+
+			if (!byName.isEmpty()) {
+				Arrays.fill(found, false);
+				extractChildren(table, row, entity, found);
+			}
+			for (int column : queried) {
+				final DataNode match = columns.get(column).query().first(entity);
+				if (match != null) table.fill(column, row, match, columns.get(column).arg());
+			}
+		}
+	}
+
+
+
+	/**
+	 * Reads every column which is read from a child named in full, in a single pass over the
+	 * children of a row's node.
+	 * 
+	 * @param table The table to fill.
+	 * @param row The row.
+	 * @param entity The row's node.
+	 * @param found Which columns have already been read from an earlier child, which must all be
+	 * {@code false} to begin with.
+	 */
+	private void extractChildren(
+		@NonNull ColumnTable table,
+		int row,
+		@NonNull DataNode entity,
+		boolean @NonNull [] found
+	) {
+		for (DataNode child : entity.getChildren()) {
+			final int[] targets = byName.get(child.getName());
+			if (targets == null) continue;
+			for (int column : targets) {
+				if (found[column]) continue;
+				found[column] = true;
+				table.fill(column, row, child, columns.get(column).arg());
+			}
+		}
+	}
+
+
+
+	/**
+	 * Checks whether a query expression simply names a child, so that it can be found by name.
+	 * 
+	 * @param path The expression.
+	 * @return {@code true} if the expression is a name with no quotes, arguments, wildcards,
+	 * indices, or further steps.
+	 */
+	private static boolean isPlainName(@NonNull String path) {
+		if (path.isEmpty()) return false;
+		for (int i = 0; i < path.length(); i++) {
+			if (" \t\"`/*[".indexOf(path.charAt(i)) >= 0) return false;
+		}
+		return true;
+	}
+
+
+
+	// MARK: Getters / Setters
+	/**
+	 * Getter: Returns the query which finds the nodes to read.
+	 * 
+	 * @return {@link #entities}
+	 */
+	public @NonNull NodeQuery getEntities() {
+		return entities;
+	}
+
+	/**
+	 * Getter: Returns the number of columns.
+	 * 
+	 * @return The number of columns.
+	 */
+	public int getSize() {
+		return columns.size();
+	}
+
+
+	/**
+	 * Getter: Returns the pool blocks of nodes are read in.
+	 * 
+	 * @return {@link #pool}
+	 */
+	public @NonNull ForkJoinPool getPool() {
+		return pool;
+	}
+
+	/**
+	 * Setter: Sets the pool blocks of nodes are read in. By default, this is the common pool.
+	 * 
+	 * @param pool The new pool.
+	 */
+	public void setPool(@NonNull ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+
+
+	// MARK: Nested Types
+	/**
+	 * A column of a table.
+	 * 
+	 * @param arg The index of the argument the column is read from.
+	 * @param whole Whether the column holds whole numbers.
+	 * @param query The query which finds the node to read, or {@code null} if it is read from a
+	 * child by name.
+	 */
+	private static record Column(int arg, boolean whole, @Nullable NodeQuery query) { }
+
+
+
+	/**
+	 * A block of rows being read, which splits itself in two while it is too large for one thread.
+	 */
+	@SuppressWarnings("serial")
+	private static final class BlockTask extends RecursiveAction {
+		/** The extractor which started this task. */
+		private final @NonNull ColumnExtractor owner;
+
+		/** The table to fill. */
+		private final @NonNull ColumnTable table;
+
+		/** The first row. */
+		private final int from;
+
+		/** The row after the last. */
+		private final int to;
+
+
+		/**
+		 * Sole constructor.
+		 * 
+		 * @param owner The extractor which started this task.
+		 * @param table The table to fill.
+		 * @param from The first row, which must be a multiple of 64.
+		 * @param to The row after the last.
+		 */
+		BlockTask(@NonNull ColumnExtractor owner, @NonNull ColumnTable table, int from, int to) {
+			this.owner = owner;
+			this.table = table;
+			this.from = from;
+			this.to = to;
+		}
+
+
+		/**
+		 * Reads the block, or splits it at a multiple of 64 rows and reads both halves in parallel.
+		 */
+		@Override
+		protected void compute() {
+			if (to - from <= BLOCK_SIZE) {
+				owner.extractRows(table, from, to);
+				return;
+			}
+			final int middle = from + (((to - from) / 2) & -Long.SIZE);
+			invokeAll(new BlockTask(owner, table, from, middle), new BlockTask(owner, table, middle, to));
+		}
+	}
+}
@@ -0,0 +1,218 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import java.util.BitSet;
+
+import org.jspecify.annotations.*;
+
+/**
+ * A table of numbers read from many nodes by a {@link ColumnExtractor}, with one row for each
+ * node and one column for each value read from it.
+ * 
+ * Each column is a plain array of doubles or longs, so statistics can be run over it without
+ * touching the tree or boxing any numbers. Alongside it is a bitmap of which rows actually had
+ * the value; rows which did not hold 0. Every row also has an identifier, which is the first
+ * argument of its node, or the node's name if it has no arguments.
+ * 
+ * The arrays returned by the getters are the table's own, not copies, so that large tables
+ * are not copied just to be read.
+ */
+public final class ColumnTable {
+	// MARK: Fields
+	/** The node each row was read from. */
+	private final @NonNull DataNode @NonNull [] entities;
+
+	/** The identifier of each row. */
+	private final @NonNull String @NonNull [] ids;
+
+	/** The values of each column of decimal numbers, or {@code null} for columns of whole numbers. */
+	private final double @NonNull [] @Nullable [] doubles;
+
+	/** The values of each column of whole numbers, or {@code null} for columns of decimal numbers. */
+	private final long @NonNull [] @Nullable [] longs;
+
+	/** A bitmap for each column, with a bit set for each row which had a value. */
+	private final long @NonNull [] @NonNull [] present;
+
+
+
+	// MARK: Constructor
+	/**
+	 * Sole constructor. Creates an empty table, to be filled by {@link #fill(int, int, DataNode, int)}.
+	 * 
+	 * @param entities The node each row is read from.
+	 * @param whole Whether each column holds whole numbers.
+	 */
+	ColumnTable(@NonNull DataNode @NonNull [] entities, boolean @NonNull [] whole) {
+		this.entities = entities;
+		this.ids = new String[entities.length];
+		this.doubles = new double[whole.length][];
+		this.longs = new long[whole.length][];
+		this.present = new long[whole.length][(entities.length + Long.SIZE - 1) / Long.SIZE];
+		for (int column = 0; column < whole.length; column++) {
+			if (whole[column]) {
+				longs[column] = new long[entities.length];
+			} else {
+				doubles[column] = new double[entities.length];
+			}
+		}
+	}
+
+
+
+	// MARK: Methods
+	/**
+	 * Fills in the identifier of a row from its node.
+	 * 
+	 * @param row The row.
+	 */
+	void identify(int row) {
+		final DataNode entity = entities[row];
+		ids[row] = entity.countArgs() > 0 ? entity.getArg(0) : entity.getName();
+	}
+
+
+
+	/**
+	 * Fills in one cell from an argument of a node, if the argument is a number of the right kind.
+	 * 
+	 * Rows are filled by several threads at once, so each thread must fill rows which share no
+	 * word of the bitmaps with any other thread, such as blocks of 64 rows.
+	 * 
+	 * @param column The column.
+	 * @param row The row.
+	 * @param node The node to read the argument from.
+	 * @param arg The index of the argument.
+	 */
+	void fill(int column, int row, @NonNull DataNode node, int arg) {
+		if (arg >= node.countArgs()) return;
+		final String text = node.getArg(arg);
+		final NumberCache numbers = node.numbers();
+
+		if (longs[column] != null) {
+			if (!numbers.isLong(arg, text, Long.MIN_VALUE, Long.MAX_VALUE)) return;
+			longs[column][row] = numbers.getLong(arg);
+		} else {
+			if (!numbers.isDouble(arg, text)) return;
+			doubles[column][row] = numbers.getDouble(arg);
+		}
+		present[column][row / Long.SIZE] |= 1L << row;
+	}
+
+
+
+	/**
+	 * Checks whether a row had a value for a column.
+	 * 
+	 * @param column The column.
+	 * @param row The row.
+	 * @return {@code true} if the row's node had the value, and it was a number.
+	 */
+	public boolean has(int column, int row) {
+		return (present[column][row / Long.SIZE] & 1L << row) != 0;
+	}
+
+
+
+	/**
+	 * Counts the rows which had a value for a column.
+	 * 
+	 * @param column The column.
+	 * @return The number of rows with a value.
+	 */
+	public int count(int column) {
+		int count = 0;
+		for (long word : present[column]) {
+			count += Long.bitCount(word);
+		}
+		return count;
+	}
+
+
+
+	// MARK: Getters
+	/**
+	 * Getter: Returns the number of rows, which is the number of nodes read.
+	 * 
+	 * @return The number of rows.
+	 */
+	public int getRows() {
+		return entities.length;
+	}
+
+	/**
+	 * Getter: Returns the number of columns.
+	 * 
+	 * @return The number of columns.
+	 */
+	public int getColumns() {
+		return present.length;
+	}
+
+	/**
+	 * Getter: Returns the node a row was read from.
+	 * 
+	 * @param row The row.
+	 * @return The node.
+	 */
+	public @NonNull DataNode getEntity(int row) {
+		return entities[row];
+	}
+
+	/**
+	 * Getter: Returns the identifier of every row.
+	 * 
+	 * @return {@link #ids}
+	 */
+	public @NonNull String @NonNull [] getIds() {
+		return ids;
+	}
+
+	/**
+	 * Getter: Returns the values of a column of decimal numbers.
+	 * 
+	 * @param column The column.
+	 * @return The value of each row, or 0 for rows without one.
+	 * @throws IllegalArgumentException If the column holds whole numbers.
+	 */
+	public double @NonNull [] getDoubles(int column) {
+		final double[] values = doubles[column];
+		if (values == null) throw new IllegalArgumentException("Column holds whole numbers: " + column);
+		return values;
+	}
+
+	/**
+	 * Getter: Returns the values of a column of whole numbers.
+	 * 
+	 * @param column The column.
+	 * @return The value of each row, or 0 for rows without one.
+	 * @throws IllegalArgumentException If the column holds decimal numbers.
+	 */
+	public long @NonNull [] getLongs(int column) {
+		final long[] values = longs[column];
+		if (values == null) throw new IllegalArgumentException("Column holds decimal numbers: " + column);
+		return values;
+	}
+
+	/**
+	 * Getter: Returns which rows had a value for a column. Unlike the other getters, this is a copy.
+	 * 
+	 * @param column The column.
+	 * @return A set with a bit set for each row with a value.
+	 */
+	public @NonNull BitSet getPresent(int column) {
+		return BitSet.valueOf(present[column]);
+	}
+}
@@ -0,0 +1,298 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import org.jspecify.annotations.*;
+
+/**
+ * A class which parses many files at once and stores all their nodes in a single tree.
+ * 
+ * Each file is parsed into its own tree on the loader's executor, and the top-level
+ * nodes from every file are then attached to the root in the same order as the files,
+ * so the finished tree does not depend on which file finished parsing first.
+ */
+public class DataLoader {
+	// MARK: Fields
+	/** The root node of the tree that nodes are stored in. */
+	private @NonNull DataNode root;
+
+	/** The executor that files are parsed on. */
+	private @NonNull Executor executor;
+
+	/** The table shared by every file's reader, or {@code null} if strings are not shared. */
+	private @Nullable SymbolTable symbols;
+
+	/** The registry top-level nodes are registered in, or {@code null} if they are not registered. */
+	private @Nullable DefinitionRegistry registry;
+
+	/** Whether arguments which look like numbers are parsed as soon as each node is read. */
+	private boolean cacheNumbers;
+
+
+
+	// MARK: Constructors
+	/**
+	 * Primary constructor.
+	 * 
+	 * @param root The root node of the tree that nodes are stored in.
+	 * @param executor The executor that files are parsed on, such as a {@link ForkJoinPool}.
+	 */
+	public DataLoader(@NonNull DataNode root, @NonNull Executor executor) {
+		this.root = root;
+		this.executor = executor;
+	}
+
+
+	/**
+	 * A simplified constructor that parses files on the common fork-join pool.
+	 * 
+	 * @param root The root node of the tree that nodes are stored in.
+	 */
+	public DataLoader(@NonNull DataNode root) {
+		this(root, ForkJoinPool.commonPool());
+	}
+
+
+
+	// MARK: Methods
+	/**
+	 * Parses every file in a list in parallel, and stores all nodes in the tree.
+	 * Nodes from each file are attached to the root in the same order as the list,
+	 * and registered in the same order if this loader has a registry, so later files
+	 * shadow earlier ones.
+	 * 
+	 * @param files The files to parse.
+	 * @return Every exception thrown while parsing, in the same order as the files that
+	 * caused them. A file which was parsed with a warning still has its nodes attached.
+	 */
+	public @NonNull List<ReaderException> load(@NonNull List<File> files) {
+		final List<CompletableFuture<Parsed>> pending = new ArrayList<>(files.size());
+		for (File file : files) {
+			pending.add(CompletableFuture.supplyAsync(() -> parse(file), executor));
+		}
+
+		final List<ReaderException> exceptions = new ArrayList<>();
+		for (CompletableFuture<Parsed> future : pending) {
+			final Parsed parsed;
+			try {
+				parsed = future.join();
+			} catch (CompletionException e) {
+				// Anything other than a ReaderException is a bug, so let it through as-is.
+				if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+				throw e;
+			}
+
+			for (DataNode child : parsed.tree().getChildren()) {
+				root.addChild(child);
+				child.setParent(root);
+				if (registry != null) registry.register(child);
+			}
+			if (parsed.exception() != null) exceptions.add(parsed.exception());
+		}
+
+		return exceptions;
+	}
+
+
+
+	/**
+	 * Parses every {@code .txt} file in a directory and all its subdirectories in parallel,
+	 * and stores all nodes in the tree. Nodes are attached to the root in path order.
+	 * 
+	 * @param directory The directory to search for files.
+	 * @return Every exception thrown while parsing, in path order.
+	 * @throws ReaderException If the directory cannot be searched.
+	 */
+	public @NonNull List<ReaderException> loadDirectory(@NonNull File directory) throws ReaderException {
+		return loadDirectory(directory, file -> file.getName().endsWith(".txt"));
+	}
+
+
+	/**
+	 * Parses every file in a directory and all its subdirectories which is accepted by
+	 * a filter in parallel, and stores all nodes in the tree. Nodes are attached to the
+	 * root in path order.
+	 * 
+	 * @param directory The directory to search for files.
+	 * @param filter A filter which decides whether a file should be parsed.
+	 * @return Every exception thrown while parsing, in path order.
+	 * @throws ReaderException If the directory cannot be searched.
+	 */
+	public @NonNull List<ReaderException> loadDirectory(
+		@NonNull File directory,
+		@NonNull FileFilter filter
+	) throws ReaderException {
+		final List<File> files;
+		try (Stream<Path> paths = Files.walk(directory.toPath())) {
+			files = paths
+				.filter(Files::isRegularFile)
+				.sorted()
+				.map(Path::toFile)
+				.filter(filter::accept)
+				.collect(Collectors.toList());
+		} catch (IOException e) {
+			throw new ReaderException(String.format("Could not search directory %s", directory.getPath()), e);
+		}
+
+		return load(files);
+	}
+
+
+
+	/**
+	 * Parses a single file into a tree of its own.
+	 * 
+	 * @param file The file to parse.
+	 * @return The parsed tree, along with any exception thrown while parsing it.
+	 */
+	private @NonNull Parsed parse(@NonNull File file) {
+		final DataNode tree = new DataNode();
+		final DataReader reader = new DataReader(file, tree);
+		reader.setSymbols(symbols);
+		reader.setCacheNumbers(cacheNumbers);
+		try {
+			reader.parseChannel();
+			return new Parsed(tree, null);
+		} catch (ReaderException e) {
+			return new Parsed(tree, e);
+		}
+	}
+
+
+
+	// MARK: Getters / Setters
+	/**
+	 * Getter: Returns the root node of the tree this loader is writing to.
+	 * 
+	 * @return {@link #root}
+	 */
+	public @NonNull DataNode getRoot() {
+		return root;
+	}
+
+	/**
+	 * Setter: Changes the root node this loader adds children to.
+	 * 
+	 * @param root The new value for {@link #root}.
+	 */
+	public void setRoot(@NonNull DataNode root) {
+		this.root = root;
+	}
+
+
+	/**
+	 * Getter: Returns the executor files are parsed on.
+	 * 
+	 * @return {@link #executor}
+	 */
+	public @NonNull Executor getExecutor() {
+		return executor;
+	}
+
+	/**
+	 * Setter: Changes the executor files are parsed on.
+	 * 
+	 * @param executor The new value for {@link #executor}.
+	 */
+	public void setExecutor(@NonNull Executor executor) {
+		this.executor = executor;
+	}
+
+
+	/**
+	 * Getter: Returns the symbol table shared by every file's reader.
+	 * 
+	 * @return {@link #symbols}
+	 */
+	public @Nullable SymbolTable getSymbols() {
+		return symbols;
+	}
+
+	/**
+	 * Setter: Changes the symbol table shared by every file's reader, so that repeated names
+	 * and arguments are shared across all files. By default, strings are not shared.
+	 * 
+	 * @param symbols The new value for {@link #symbols}, or {@code null} to stop sharing strings.
+	 */
+	public void setSymbols(@Nullable SymbolTable symbols) {
+		this.symbols = symbols;
+	}
+
+
+	/**
+	 * Getter: Returns the registry top-level nodes are registered in.
+	 * 
+	 * @return {@link #registry}
+	 */
+	public @Nullable DefinitionRegistry getRegistry() {
+		return registry;
+	}
+
+	/**
+	 * Setter: Changes the registry top-level nodes are registered in as they are loaded.
+	 * By default, nodes are not registered anywhere.
+	 * 
+	 * @param registry The new value for {@link #registry}, or {@code null} to stop registering nodes.
+	 */
+	public void setRegistry(@Nullable DefinitionRegistry registry) {
+		this.registry = registry;
+	}
+
+
+	/**
+	 * Getter: Returns whether every file's reader parses arguments which look like numbers as
+	 * soon as each node is read.
+	 * 
+	 * @return {@link #cacheNumbers}
+	 */
+	public boolean getCacheNumbers() {
+		return cacheNumbers;
+	}
+
+	/**
+	 * Setter: Changes whether every file's reader parses arguments which look like numbers as
+	 * soon as each node is read. By default, numbers are parsed the first time they are built.
+	 * 
+	 * @param cacheNumbers The new value for {@link #cacheNumbers}.
+	 * @see DataReader#setCacheNumbers(boolean)
+	 */
+	public void setCacheNumbers(boolean cacheNumbers) {
+		this.cacheNumbers = cacheNumbers;
+	}
+
+
+
+	// MARK: Nested Types
+	/**
+	 * The result of parsing a single file.
+	 * 
+	 * @param tree A root node holding every node from the file.
+	 * @param exception The exception thrown while parsing the file, if any.
+	 */
+	private static record Parsed(@NonNull DataNode tree, @Nullable ReaderException exception) { }
+}
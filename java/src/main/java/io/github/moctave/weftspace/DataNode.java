@@ -13,13 +13,24 @@
 
 package io.github.moctave.weftspace;
 
+import java.io.File;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 import org.jspecify.annotations.*;
 
 /** A class representing a node in the data tree. */
 public class DataNode {
+	// MARK: Constants
+	/** The number of children a node needs before lookups by name build an index. */
+	private static final int INDEX_THRESHOLD = 16;
+
+
+
 	// MARK: Fields
 	/** The name of this node. */
 	private @NonNull String name;
@@ -33,6 +44,19 @@ public class DataNode {
 	/** This node's children. */
 	private @NonNull List<DataNode> children;
 
+	/** An index of this node's children by name, or {@code null} if it has not been built. */
+	private @Nullable ChildIndex index;
+
+	/** The parsed values of this node's arguments, or {@code null} if none have been parsed. */
+	private @Nullable NumberCache numbers;
+
+	/**
+	 * The hash code of this node, or 0 if it needs to be calculated. Like the cached hash of
+	 * a {@link String}, this is a single int, so reading it while another thread is calculating
+	 * it is harmless.
+	 */
+	private int hash;
+
 
 
 	// MARK: Constructors
@@ -81,15 +105,141 @@ public class DataNode {
 	 * (2) parents are not taken into account in this method, and
 	 * (3) nodes which have themself as a child will not have their children considered.
 	 * 
+	 * The hash code is calculated once, and remembered until this node or one of its descendants
+	 * is changed through one of its mutator methods or setters. Changes are passed up through
+	 * {@link #getParent()}, so the hash code is only remembered if every child has this node as its
+	 * parent and has remembered its own hash code; trees built with {@link #addChild(DataNode)} alone
+	 * are hashed again every time. Changes made directly to the lists returned by {@link #getArgs()}
+	 * or {@link #getChildren()} are not noticed; call {@link #invalidateHash()} after making them.
+	 * 
 	 * @return A hash code value for this node.
 	 */
 	@Override
 	public int hashCode() {
+		final int cached = hash;
+		if (cached != 0) return cached;
+
+		final int result = computeHash();
+		if (tracksChildren()) hash = result;
+		return result;
+	}
+
+
+
+	/**
+	 * Checks whether a change to any of this node's children would reach this node, which is only
+	 * true if every child has this node as its parent and has remembered its own hash code.
+	 * 
+	 * @return {@code true} if this node's hash code can be remembered.
+	 */
+	private boolean tracksChildren() {
+		for (DataNode child : getChildren()) {
+			if (child.getParent() != this || child.cachedHash() == 0) return false;
+		}
+		return true;
+	}
+
+
+
+	/**
+	 * Calculates the hash code of this node from its name, arguments and children, without
+	 * remembering it.
+	 * 
+	 * @return A hash code value for this node.
+	 */
+	int computeHash() {
 		final int prime = 31;
-		int hash = 1;
-		hash = prime * hash + (name == null ? 0 : name.hashCode());
-		hash = prime * hash + (args == null ? 0 : args.hashCode());
-		hash = prime * hash + ((children == null || children.contains(this)) ? 0 : children.hashCode());
+		int result = 1;
+		final List<DataNode> nodes = getChildren();
+		result = prime * result + (getName() == null ? 0 : getName().hashCode());
+		result = prime * result + (getArgs() == null ? 0 : getArgs().hashCode());
+		result = prime * result + ((nodes == null || containsItself(nodes)) ? 0 : nodes.hashCode());
+		return result;
+	}
+
+
+
+	/**
+	 * Checks whether a list of children contains this node itself.
+	 * 
+	 * @param nodes The children to check.
+	 * @return {@code true} if this exact node is one of the children.
+	 */
+	private boolean containsItself(@NonNull List<DataNode> nodes) {
+		for (DataNode node : nodes) {
+			if (node == this) return true;
+		}
+		return false;
+	}
+
+
+
+	/**
+	 * Forgets the remembered hash code of this node and all of its ancestors, so that it is
+	 * calculated again the next time it is needed, along with the parsed values of this node's
+	 * arguments and its parent's index of children. This is done automatically by every method
+	 * which changes a node, but must be called by hand after changing the lists returned by
+	 * {@link #getArgs()} or {@link #getChildren()} directly.
+	 */
+	public void invalidateHash() {
+		dropParentIndex();
+		forgetHash();
+	}
+
+
+
+	/**
+	 * Forgets the remembered hash code of this node and all of its ancestors, along with the
+	 * parsed values of this node's arguments. Unlike {@link #invalidateHash()}, this keeps the
+	 * parent's index, so it is used when only this node's children have changed.
+	 */
+	private void forgetHash() {
+		numbers = null;
+		hash = 0;
+
+		// A node only remembers its hash code if its children do, so the walk can stop at the
+		// first ancestor which has already forgotten it. This keeps deep trees cheap to build.
+		for (DataNode node = getParent(); node != null && node.hash != 0; node = node.getParent()) {
+			node.hash = 0;
+		}
+	}
+
+
+
+	/**
+	 * Throws away the parent's index of children, because this node's name or first argument
+	 * may have changed. The index is rebuilt the next time the parent is searched.
+	 */
+	void dropParentIndex() {
+		final DataNode owner = getParent();
+		if (owner != null) owner.index = null;
+	}
+
+
+
+	/**
+	 * Forgets the remembered hash code of this node and its ancestors, stopping at the first
+	 * node which has already been done, along with the parsed values of this node's arguments.
+	 * This lets a batch of changes walk up from every changed node while visiting each ancestor
+	 * only once.
+	 * 
+	 * @param done The nodes which have already been done, which this node and its ancestors are added to.
+	 */
+	void invalidateHash(@NonNull Set<DataNode> done) {
+		numbers = null;
+		for (DataNode node = this; node != null && done.add(node); node = node.getParent()) {
+			node.hash = 0;
+		}
+	}
+
+
+
+	/**
+	 * Gets the hash code of this node if it has already been calculated, without calculating it.
+	 * 
+	 * @return The remembered hash code, or 0 if it is not known.
+	 */
+	int cachedHash() {
 		return hash;
 	}
 
@@ -116,12 +266,17 @@ public class DataNode {
 
 		final DataNode node = (DataNode) obj;
 
+		// Nodes with different hash codes can't be equal, but only check if both are already known
+		final int mine = cachedHash();
+		final int theirs = node.cachedHash();
+		if (mine != 0 && theirs != 0 && mine != theirs) return false;
+
 		// Check if the two nodes have a different parameter
-		if (!node.getName().equals(name)) return false;
+		if (!node.getName().equals(getName())) return false;
 
 		// Check if the arguments and children are equal
-		if (!node.getArgs().equals(args)) return false;
-		if (!node.getChildren().equals(children)) return false;
+		if (!node.getArgs().equals(getArgs())) return false;
+		if (!node.getChildren().equals(getChildren())) return false;
 
 		// Everything that matters is equal, return true
 		return true;
@@ -160,20 +315,106 @@ public class DataNode {
 	public @NonNull String toString() {
 		return String.format(
 			"Node{name: %s, args: %s, children: %d}",
-			name,
-			args.toString(),
-			children.size()
+			getName(),
+			getArgs().toString(),
+			countChildren()
 		);
 	}
 
 
+	/**
+	 * Creates an immutable copy of this node and all its descendants, which takes less memory
+	 * than the original and can safely be shared between threads. The copy has no parent.
+	 * 
+	 * @return The frozen copy.
+	 */
+	public @NonNull FrozenNode freeze() {
+		return FrozenNode.of(this);
+	}
+
+
+
+	/**
+	 * Creates a stream of this node and all its descendants, in the order they would appear in
+	 * a file. The tree is walked without recursion, so even very deeply nested trees are safe,
+	 * and a parallel stream splits the work between threads a subtree at a time. The tree must
+	 * not be changed while the stream is being used.
+	 * 
+	 * @return A stream starting with this node.
+	 */
+	public @NonNull Stream<DataNode> stream() {
+		return StreamSupport.stream(new NodeSpliterator(this, true), false);
+	}
+
+
+
+	/**
+	 * Creates a stream of all the descendants of this node, but not the node itself, in the order
+	 * they would appear in a file. See {@link #stream()} for details.
+	 * 
+	 * @return A stream starting with this node's first child.
+	 */
+	public @NonNull Stream<DataNode> descendants() {
+		return StreamSupport.stream(new NodeSpliterator(this, false), false);
+	}
+
+
+
+	/**
+	 * Starts a batch of changes to this node's tree, which are held back and made all at once when
+	 * the batch is closed. This is much faster than calling {@link #addChild(DataNode)} and
+	 * {@link #addArg(String)} over and over when building large trees.
+	 * 
+	 * @return The batch, which should be closed with a try-with-resources statement.
+	 */
+	public @NonNull NodeBatch beginBatch() {
+		return new NodeBatch(this);
+	}
+
+
+
 	/**
 	 * Mutator method to add an argument to this node's argument list.
 	 * 
 	 * @param arg The argument to add.
 	 */
 	public void addArg(@NonNull String arg) {
-		args.add(arg);
+		getArgs().add(arg);
+		invalidateHash();
+	}
+
+
+
+	/**
+	 * Parses every argument of this node which looks like a number, so that building it with
+	 * {@link Builder} later does not need to parse it. Arguments are otherwise parsed the first
+	 * time they are built, and remembered until this node's arguments are changed.
+	 */
+	public void cacheNumbers() {
+		final List<String> nodeArgs = getArgs();
+		for (int i = 0; i < nodeArgs.size(); i++) {
+			final String arg = nodeArgs.get(i);
+			if (!arg.isEmpty() && "0123456789-+.".indexOf(arg.charAt(0)) >= 0) numbers().isDouble(i, arg);
+		}
+	}
+
+
+
+	/**
+	 * Gets the parsed values of this node's arguments, creating an empty cache for them if there
+	 * is none. Like {@link #index()}, the cache is replaced if the number of arguments has changed,
+	 * but an argument which is replaced directly in {@link #getArgs()} is not noticed until
+	 * {@link #invalidateHash()} is called.
+	 * 
+	 * @return The cache.
+	 */
+	@NonNull NumberCache numbers() {
+		NumberCache current = numbers;
+		if (current == null || current.getSize() != countArgs()) {
+			current = new NumberCache(countArgs());
+			numbers = current;
+		}
+		return current;
 	}
 
 
@@ -185,7 +426,7 @@ public class DataNode {
 	 * @return The selected argument.
 	 */
 	public @NonNull String getArg(int i) {
-		return args.get(i);
+		return getArgs().get(i);
 	}
 
 
@@ -196,7 +437,7 @@ public class DataNode {
 	 * @return The number of arguments this node has.
 	 */
 	public int countArgs() {
-		return args.size();
+		return getArgs().size();
 	}
 
 
@@ -206,7 +447,119 @@ public class DataNode {
 	 * @param child The node to add.
 	 */
 	public void addChild(@NonNull DataNode child) {
-		children.add(child);
+		getChildren().add(child);
+		forgetHash();
+
+		// Keep the index if it was up to date and will hear about changes to the child,
+		// otherwise leave it to be rebuilt.
+		if (index != null && index.getSize() == countChildren() - 1 && child.getParent() == this) {
+			index.add(child);
+		} else {
+			index = null;
+		}
+	}
+
+
+
+	/**
+	 * Accessor method to get every child of this node with a certain name.
+	 * 
+	 * @param name The name to look for.
+	 * @return An unmodifiable list of the children with that name, in order.
+	 */
+	public @NonNull List<DataNode> getChildrenNamed(@NonNull String name) {
+		final ChildIndex current = index();
+		if (current != null) return Collections.unmodifiableList(current.named(name));
+
+		final List<DataNode> named = new ArrayList<>();
+		for (DataNode child : getChildren()) {
+			if (child.getName().equals(name)) named.add(child);
+		}
+		return Collections.unmodifiableList(named);
+	}
+
+
+
+	/**
+	 * Accessor method to get the first child of this node with a certain name.
+	 * 
+	 * @param name The name to look for.
+	 * @return The first child with that name, or {@code null} if there are none.
+	 */
+	public @Nullable DataNode findChild(@NonNull String name) {
+		final ChildIndex current = index();
+		if (current != null) {
+			final List<DataNode> named = current.named(name);
+			return named.isEmpty() ? null : named.get(0);
+		}
+
+		for (DataNode child : getChildren()) {
+			if (child.getName().equals(name)) return child;
+		}
+		return null;
+	}
+
+
+	/**
+	 * Accessor method to get the first child of this node with a certain name and first argument.
+	 * 
+	 * @param name The name to look for.
+	 * @param arg The first argument to look for.
+	 * @return The first child with that name and first argument, or {@code null} if there are none.
+	 */
+	public @Nullable DataNode findChild(@NonNull String name, @NonNull String arg) {
+		final ChildIndex current = index();
+		if (current != null) return current.find(name, arg);
+
+		for (DataNode child : getChildren()) {
+			if (child.getName().equals(name) && child.countArgs() > 0 && child.getArg(0).equals(arg)) return child;
+		}
+		return null;
+	}
+
+
+
+	/**
+	 * Gets the index of this node's children, building it if this node has enough children
+	 * for an index to be worthwhile.
+	 * 
+	 * Children added with {@link #addChild(DataNode)} are added to the index as they arrive, and
+	 * {@link #setChildren(List)} throws the index away, as does renaming a child or changing its
+	 * arguments through its setters or {@link #addArg(String)}. If children are added to or removed
+	 * from {@link #getChildren()} directly, the index notices that the number of children has
+	 * changed and is rebuilt. A child which is replaced in that list, or whose arguments are changed
+	 * in place, is noticed once {@link #invalidateHash()} is called on it.
+	 * 
+	 * Children tell their parent about changes through {@link #getParent()}, so no index is built
+	 * unless every child has this node as its parent.
+	 * 
+	 * @return The index, or {@code null} if the children should be searched one by one.
+	 */
+	@Nullable ChildIndex index() {
+		final int count = countChildren();
+		if (count < INDEX_THRESHOLD) return null;
+
+		ChildIndex current = index;
+		if (current == null || current.getSize() != count) {
+			if (!ownsChildren()) return null;
+			current = new ChildIndex(getChildren());
+			index = current;
+		}
+		return current;
+	}
+
+
+
+	/**
+	 * Checks whether every child of this node has this node as its parent.
+	 * 
+	 * @return {@code true} if changes to every child would reach this node.
+	 */
+	private boolean ownsChildren() {
+		for (DataNode child : getChildren()) {
+			if (child.getParent() != this) return false;
+		}
+		return true;
 	}
 
 
@@ -218,7 +571,7 @@ public class DataNode {
 	 * @return The selected child.
 	 */
 	public @NonNull DataNode getChild(int i) {
-		return children.get(i);
+		return getChildren().get(i);
 	}
 
 
@@ -229,7 +582,7 @@ public class DataNode {
 	 * @return The number of children this node has.
 	 */
 	public int countChildren() {
-		return children.size();
+		return getChildren().size();
 	}
 
 
@@ -240,7 +593,30 @@ public class DataNode {
 	 * @return {@code true} if a node has a parent, or {@code false} otherwise.
 	 */
 	public boolean hasParent() {
-		return parent != null;
+		return getParent() != null;
+	}
+
+
+
+	/**
+	 * Gets the line this node was loaded from, if it remembers one. Every kind of node which
+	 * remembers where it came from overrides this, so that copies of a tree can keep it.
+	 * 
+	 * @return The line this node was loaded from, or 0 if it does not have one.
+	 */
+	int sourceLine() {
+		return 0;
+	}
+
+
+
+	/**
+	 * Gets the file this node was loaded from, if it remembers one. See {@link #sourceLine()}.
+	 * 
+	 * @return The file this node was loaded from, or {@code null} if it does not have one.
+	 */
+	@Nullable File sourceFile() {
+		return null;
 	}
 
 
@@ -262,6 +638,7 @@ public class DataNode {
 	 */
 	public void setName(@NonNull String name) {
 		this.name = name;
+		invalidateHash();
 	}
 
 
@@ -282,6 +659,13 @@ public class DataNode {
 	 * @param parent This node's new {@link #parent}.
 	 */
 	public void setParent(@Nullable DataNode parent) {
+		if (parent != this.parent) {
+			// The old parent won't hear about later changes to this node.
+			dropParentIndex();
+			for (DataNode node = this.parent; node != null && node.hash != 0; node = node.getParent()) {
+				node.hash = 0;
+			}
+		}
 		this.parent = parent;
 	}
 
@@ -302,6 +686,7 @@ public class DataNode {
 	 */
 	public void setArgs(@NonNull List<String> args) {
 		this.args = args;
+		invalidateHash();
 	}
 
 
@@ -323,6 +708,8 @@ public class DataNode {
 	 */
 	public void setChildren(@NonNull List<DataNode> children) {
 		this.children = children;
+		this.index = null;
+		forgetHash();
 	}
 
 }
@@ -1,4 +1,4 @@
-// Copyright (c) 2025 by mOctave
+// Copyright (c) 2025-2026 by mOctave
 //
 // This program is free software: you can redistribute it and/or modify it under the
 // terms of the GNU Affero General Public License as published by the Free Software
@@ -15,11 +15,17 @@ package io.github.moctave.weftspace;
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
 import java.util.Scanner;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Deque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
 
 import org.jspecify.annotations.*;
 
@@ -32,6 +38,12 @@ public class DataReader {
 	/** The root node of the tree that nodes are stored in. */
 	private @NonNull DataNode root;
 
+	/** The table used to share repeated names and arguments, or {@code null} if they are not shared. */
+	private @Nullable SymbolTable symbols;
+
+	/** Whether arguments which look like numbers are parsed as soon as each node is read. */
+	private boolean cacheNumbers;
+
 
 
 	// MARK: Constructor
@@ -71,16 +83,12 @@ public class DataReader {
 				lineNumber++;
 				final String line = s.nextLine();
 
-				if (line.split("#").length == 0) {
-					if (line.isBlank()) continue;
-				} else {
-					if (line.split("#")[0].isBlank()) continue;
-				}
+				if (isCommentOrBlank(line)) continue;
 
 				indent = countLeadingWhitespace(line);
-				final String indentSubstring = getIndentSubstring(line, indentDepths.peek());
-				if (expectedIndentString == null && indentSubstring.length() > 0) {
-					expectedIndentString = indentSubstring;
+				final int parentIndent = indentDepths.peek();
+				if (expectedIndentString == null && indent > parentIndent) {
+					expectedIndentString = getIndentSubstring(line, parentIndent);
 					if (
 						expectedIndentString.contains(" ")
 						&& expectedIndentString.contains("\t")
@@ -89,8 +97,12 @@ public class DataReader {
 					}
 				}
 
-				if (indent > indentDepths.peek() && currentNode != null) {
-					if (!expectedIndentString.equals(indentSubstring)) {
+				if (indent > parentIndent && currentNode != null) {
+					// Compare in place rather than building the indent substring for every line.
+					if (
+						indent - parentIndent != expectedIndentString.length()
+						|| !line.startsWith(expectedIndentString, parentIndent)
+					) {
 						mixedWhitespace = true;
 					}
 					nodeStack.push(currentNode);
@@ -126,6 +138,120 @@ public class DataReader {
 
 
 
+	/**
+	 * Parses the file associated with this object, and stores all nodes in the tree.
+	 * 
+	 * This produces exactly the same tree as {@link #parse()}, but reads the file through
+	 * a {@link FileChannel} and finds line breaks, indentation, quotes, and comments in a
+	 * single pass over its bytes. Lines which are pure ASCII are never decoded, so this is
+	 * considerably faster on large files. The file is always read as UTF-8.
+	 */
+	public void parseChannel() throws ReaderException {
+		final TreeBuilder builder = new TreeBuilder(root, file);
+		builder.setCacheNumbers(cacheNumbers);
+		stream(builder);
+
+		if (builder.getWarning() != null) {
+			throw new ReaderException(builder.getWarning());
+		}
+	}
+
+
+
+	/**
+	 * Parses the file associated with this object on the common fork-join pool, and stores
+	 * all nodes in the tree.
+	 * 
+	 * @see #parseParallel(Executor)
+	 */
+	public void parseParallel() throws ReaderException {
+		parseParallel(ForkJoinPool.commonPool());
+	}
+
+
+	/**
+	 * Parses the file associated with this object using several threads, and stores all nodes
+	 * in the tree.
+	 * 
+	 * The whole file is read into memory, and then split into chunks at lines which start
+	 * top-level nodes. Chunks are parsed in parallel and their nodes are added to the tree
+	 * in file order, so this produces exactly the same tree, line numbers, and warnings as
+	 * {@link #parseChannel()}. Small files are parsed as a single chunk.
+	 * 
+	 * @param executor The executor to parse chunks on, such as a {@link ForkJoinPool}.
+	 */
+	public void parseParallel(@NonNull Executor executor) throws ReaderException {
+		final byte[] data;
+		try {
+			data = Files.readAllBytes(file.toPath());
+		} catch (NoSuchFileException e) {
+			throw new ReaderException(String.format("No such file as %s", file.getPath()));
+		} catch (IOException e) {
+			throw new ReaderException(String.format("Could not read file %s", file.getPath()), e);
+		}
+
+		final String warning = new ParallelParser(data, file, executor, symbols, cacheNumbers).parse(root);
+		if (warning != null) throw new ReaderException(warning);
+	}
+
+
+
+	/**
+	 * Reads the file associated with this object, passing each node to a handler as soon
+	 * as it is read instead of storing it in the tree. Nodes are split up in the same way
+	 * as {@link #parseChannel()}, but memory use only depends on how deeply they are nested,
+	 * so files of any size can be read.
+	 * 
+	 * Problems which do not stop the file from being read, such as mixed whitespace,
+	 * are passed to {@link NodeHandler#warning(String)} instead of being thrown.
+	 * 
+	 * @param handler The handler to pass nodes to.
+	 */
+	public void stream(@NonNull NodeHandler handler) throws ReaderException {
+		try (LineScanner scanner = openScanner()) {
+			new NodeEmitter(scanner, handler, file.getPath()).emitAll();
+		} catch (IOException e) {
+			throw new ReaderException(String.format("Could not read file %s", file.getPath()), e);
+		}
+	}
+
+
+
+	/**
+	 * Opens the file associated with this object for reading one top-level node at a time.
+	 * Each node is only read once the previous one has been taken from the iterator, and is
+	 * not added to the tree, so it can be garbage collected as soon as it is no longer needed.
+	 * 
+	 * The iterator should be closed once it is no longer needed, although it closes itself
+	 * once every node has been read.
+	 * 
+	 * @return An iterator over the top-level nodes in the file.
+	 */
+	public @NonNull NodeIterator nodeIterator() throws ReaderException {
+		return new NodeIterator(openScanner(), file, cacheNumbers);
+	}
+
+
+
+	/**
+	 * Opens a channel to the file associated with this object and creates a scanner for it.
+	 * 
+	 * @return The scanner.
+	 */
+	private @NonNull LineScanner openScanner() throws ReaderException {
+		try {
+			final LineScanner scanner = new LineScanner(FileChannel.open(file.toPath()));
+			scanner.setSymbols(symbols);
+			return scanner;
+		} catch (NoSuchFileException e) {
+			throw new ReaderException(String.format("No such file as %s", file.getPath()));
+		} catch (IOException e) {
+			throw new ReaderException(String.format("Could not read file %s", file.getPath()), e);
+		}
+	}
+
+
+
 	/**
 	 * Parses a single line and converts it to a node.
 	 * 
@@ -134,57 +260,95 @@ public class DataReader {
 	 * @return The node created from the line.
 	 */
 	public @Nullable DataNode makeNode(@NonNull String line, int number) {
-		final String trimmedLine = line.trim();
-		final List<String> data = new ArrayList<>();
-		char splitOn = ' ';
-		String currentItem = "";
-		boolean isEmpty = true;
-		for (char c : trimmedLine.toCharArray()) {
-			if (isEmpty && !Character.isWhitespace(c)) {
-				isEmpty = false;
-				if (c == '"') {
-					// Item will end with a double quote, ignore this one.
-					splitOn = '"';
-					continue;
-				} else if (c == '`') {
-					// Item will end with a backtick, ignore this one.
-					splitOn = '`';
-					continue;
-				} else {
-					// Item will end when the word it's in does.
-					splitOn = ' ';
-				}
-			} else if (isEmpty) {
-				continue;
-			}
+		final List<String> tokens = new ArrayList<>();
+		tokenize(line, tokens, symbols);
+
+		if (tokens.isEmpty()) return null;
+
+		// The first entry is the node name, everything else is args.
+		final DataNode node = new LoadedNode(tokens.get(0), null, argsOf(tokens), new ArrayList<>(), number, file);
+		if (cacheNumbers) node.cacheNumbers();
+		return node;
+	}
 
-			if (c == splitOn) {
-				// Found end of item, add it to the list and start on the next one
-				data.add(currentItem);
-				currentItem = "";
-				isEmpty = true;
-				continue;
-			} else if (c == '#' && splitOn == ' ') {
-				// Ignore everything after a comment
-				break;
-			}
 
-			// Add to the current item
-			currentItem += c;
+
+	/**
+	 * Copies every token but the first (which is the node name) into a new list of exactly
+	 * the right size, to be used as the arguments of a node.
+	 * 
+	 * @param tokens The tokens from a single line.
+	 * @return A new list holding the arguments.
+	 */
+	static @NonNull List<String> argsOf(@NonNull List<String> tokens) {
+		final List<String> args = new ArrayList<>(tokens.size() - 1);
+		for (int i = 1; i < tokens.size(); i++) {
+			args.add(tokens.get(i));
 		}
+		return args;
+	}
+
 
-		// Items can end at the end of the line, too
-		if (!currentItem.isEmpty()) {
-			data.add(currentItem);
+
+	/**
+	 * Splits a single line into tokens, ignoring any comment.
+	 * 
+	 * @param line The line to split.
+	 * @param data The list to add the tokens to.
+	 * @param symbols The table used to share repeated tokens, or {@code null} if they are not shared.
+	 */
+	static void tokenize(@NonNull String line, @NonNull List<String> data, @Nullable SymbolTable symbols) {
+		// Equivalent to String.trim(), without creating a new string
+		int start = 0;
+		int end = line.length();
+		while (start < end && line.charAt(start) <= ' ') {
+			start++;
+		}
+		while (end > start && line.charAt(end - 1) <= ' ') {
+			end--;
 		}
 
-		if (data.size() == 0) return null;
+		int i = start;
+		while (i < end) {
+			final char c = line.charAt(i);
+			if (Character.isWhitespace(c)) {
+				i++;
+			} else if (c == '"' || c == '`') {
+				// Quoted items end at the matching quote, or at the end of the line.
+				int close = line.indexOf(c, i + 1);
+				if (close < 0) close = end;
+				if (close < end || close > i + 1) data.add(token(line, i + 1, close, symbols));
+				i = close + 1;
+			} else if (c == '#') {
+				// Ignore everything after a comment
+				return;
+			} else {
+				// Bare items end at the next space or comment.
+				int stop = i + 1;
+				while (stop < end && line.charAt(stop) != ' ' && line.charAt(stop) != '#') {
+					stop++;
+				}
+				data.add(token(line, i, stop, symbols));
+				if (stop < end && line.charAt(stop) == '#') return;
+				i = stop + 1;
+			}
+		}
+	}
+
 
-		// The first entry is the node name, everything else is args.
-		final String nodeName = data.get(0);
-		data.remove(0);
 
-		return new LoadedNode(nodeName, null, data, new ArrayList<>(), number, file);
+	/**
+	 * Cuts a single token out of a line.
+	 * 
+	 * @param line The line holding the token.
+	 * @param start The index of the first character of the token.
+	 * @param end The index after the last character of the token.
+	 * @param symbols The table used to share repeated tokens, or {@code null} if they are not shared.
+	 * @return The token.
+	 */
+	private static @NonNull String token(@NonNull String line, int start, int end, @Nullable SymbolTable symbols) {
+		final String token = line.substring(start, end);
+		return symbols == null ? token : symbols.intern(token);
 	}
 
 
@@ -198,12 +362,10 @@ public class DataReader {
 	 */
 	public static @NonNull String getIndentSubstring(@NonNull String line, int depth) {
 		int i = depth;
-		String s = "";
 		while (i < line.length() && (line.charAt(i) == '\t' || line.charAt(i) == ' ')) {
-			s += line.charAt(i);
 			i++;
 		}
-		return s;
+		return i > depth ? line.substring(depth, i) : "";
 	}
 
 
@@ -215,7 +377,26 @@ public class DataReader {
 	 * @return The uncommented line.
 	 */
 	public static @NonNull String trimComments(@NonNull String line) {
-		return line.split("#")[0];
+		final int comment = line.indexOf('#');
+		return comment < 0 ? line : line.substring(0, comment);
+	}
+
+
+
+	/**
+	 * Checks whether a line contains only whitespace before its first {@code #} character,
+	 * without creating a new string. Such lines do not hold a node.
+	 * 
+	 * @param line The line to check.
+	 * @return {@code true} if the line is blank or only holds a comment.
+	 */
+	static boolean isCommentOrBlank(@NonNull String line) {
+		for (int i = 0; i < line.length(); i++) {
+			final char c = line.charAt(i);
+			if (c == '#') return true;
+			if (!Character.isWhitespace(c)) return false;
+		}
+		return true;
 	}
 
 
@@ -295,4 +476,49 @@ public class DataReader {
 	public void setRoot(@NonNull DataNode root) {
 		this.root = root;
 	}
+
+
+	/**
+	 * Getter: Returns the symbol table this reader shares repeated names and arguments through.
+	 * 
+	 * @return {@link #symbols}
+	 */
+	public @Nullable SymbolTable getSymbols() {
+		return symbols;
+	}
+
+	/**
+	 * Setter: Changes the symbol table this reader shares repeated names and arguments through.
+	 * The same table can be given to many readers, so that strings are shared between files.
+	 * By default, there is no table and every node gets its own strings.
+	 * 
+	 * @param symbols The new value for {@link #symbols}, or {@code null} to stop sharing strings.
+	 */
+	public void setSymbols(@Nullable SymbolTable symbols) {
+		this.symbols = symbols;
+	}
+
+
+	/**
+	 * Getter: Returns whether this reader parses arguments which look like numbers as soon as
+	 * each node is read.
+	 * 
+	 * @return {@link #cacheNumbers}
+	 */
+	public boolean getCacheNumbers() {
+		return cacheNumbers;
+	}
+
+	/**
+	 * Setter: Changes whether this reader parses arguments which look like numbers as soon as
+	 * each node is read, so that {@link Builder} never has to parse them. This makes reading
+	 * slower, and is only worthwhile if most numbers will be built, perhaps many times over.
+	 * By default, numbers are parsed the first time they are built.
+	 * 
+	 * @param cacheNumbers The new value for {@link #cacheNumbers}.
+	 * @see DataNode#cacheNumbers()
+	 */
+	public void setCacheNumbers(boolean cacheNumbers) {
+		this.cacheNumbers = cacheNumbers;
+	}
 }
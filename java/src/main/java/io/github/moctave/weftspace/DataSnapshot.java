@@ -0,0 +1,466 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import org.jspecify.annotations.*;
+
+/**
+ * A class which saves a node tree to a compact binary file, and loads it back again much
+ * faster than the text files it came from could be parsed.
+ * 
+ * A snapshot stores every name, argument and child of each node, and the file and line
+ * of each node which remembers them, such as a {@link LoadedNode} or a frozen, flat or
+ * persistent copy of one. Trees are written and read without recursion, so even very
+ * deeply nested trees are safe. Every distinct string is only stored once, and all numbers
+ * are stored as variable-length integers. The size and modification time of the source
+ * files are stored too, so that {@link #isCurrent()} can tell whether the snapshot needs
+ * to be rebuilt.
+ */
+public class DataSnapshot {
+	// MARK: Constants
+	/** The version of the snapshot format written by this class. */
+	public static final int VERSION = 1;
+
+	/** The bytes every snapshot starts with. */
+	private static final byte @NonNull [] MAGIC = {'W', 'F', 'T', 'S'};
+
+
+
+	// MARK: Fields
+	/** The snapshot file. */
+	private final @NonNull File file;
+
+
+
+	// MARK: Constructor
+	/**
+	 * Sole constructor.
+	 * 
+	 * @param file The snapshot file to save to or load from.
+	 */
+	public DataSnapshot(@NonNull File file) {
+		this.file = file;
+	}
+
+
+
+	// MARK: Methods
+	/**
+	 * Saves the children of a node, and all their descendants, to the snapshot file,
+	 * replacing anything already in it.
+	 * 
+	 * @param root The node whose children should be saved.
+	 * @param sources The files the tree was parsed from, which are checked by {@link #isCurrent()}.
+	 * @throws IOException If the snapshot file cannot be written.
+	 */
+	public void save(@NonNull DataNode root, @NonNull List<File> sources) throws IOException {
+		final Map<String, Integer> indices = new HashMap<>();
+		final List<String> strings = new ArrayList<>();
+		final ByteArrayOutputStream body = new ByteArrayOutputStream();
+		writeVarint(body, root.countChildren());
+		final Deque<Iterator<DataNode>> pending = new ArrayDeque<>();
+		pending.push(root.getChildren().iterator());
+		while (!pending.isEmpty()) {
+			final Iterator<DataNode> siblings = pending.peek();
+			if (!siblings.hasNext()) {
+				pending.pop();
+				continue;
+			}
+
+			final DataNode node = siblings.next();
+			writeNode(body, node, indices, strings);
+			if (node.countChildren() > 0) pending.push(node.getChildren().iterator());
+		}
+
+		final ByteArrayOutputStream out = new ByteArrayOutputStream(body.size() + strings.size() * 16);
+		out.write(MAGIC);
+		writeVarint(out, VERSION);
+		writeVarint(out, sources.size());
+		for (File source : sources) {
+			writeString(out, source.getPath());
+			writeVarint(out, source.length());
+			writeVarint(out, source.lastModified());
+		}
+		writeVarint(out, strings.size());
+		for (String string : strings) {
+			writeString(out, string);
+		}
+		body.writeTo(out);
+
+		Files.write(file.toPath(), out.toByteArray());
+	}
+
+
+
+	/**
+	 * Loads every node from the snapshot file, and adds them as children of a node.
+	 * This does not check whether the snapshot is current; use {@link #isCurrent()} for that.
+	 * 
+	 * @param root The node to add the loaded nodes to.
+	 * @throws ReaderException If the snapshot file cannot be read, or is not a valid snapshot.
+	 */
+	public void load(@NonNull DataNode root) throws ReaderException {
+		final ByteBuffer data = readHeader();
+		try {
+			for (int i = readVarint(data); i > 0; i--) {
+				skipString(data);
+				readLong(data);
+				readLong(data);
+			}
+
+			final String[] strings = new String[readCount(data)];
+			for (int i = 0; i < strings.length; i++) {
+				strings[i] = readString(data);
+			}
+			final File[] files = new File[strings.length];
+
+			final int count = readCount(data);
+			final List<DataNode> children = new ArrayList<>(count);
+			final Deque<Level> levels = new ArrayDeque<>();
+			levels.push(new Level(root, children, count));
+			while (!levels.isEmpty()) {
+				final Level level = levels.peek();
+				if (level.children().size() == level.count()) {
+					levels.pop();
+					continue;
+				}
+
+				final DataNode node = readNode(data, level.parent(), strings, files);
+				level.children().add(node);
+				final int childCount = readCount(data);
+				if (childCount > 0) levels.push(new Level(node, node.getChildren(), childCount));
+			}
+			if (data.hasRemaining()) throw corrupt();
+
+			for (DataNode child : children) {
+				root.addChild(child);
+			}
+		} catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+			throw corrupt();
+		}
+	}
+
+
+
+	/**
+	 * Checks whether the snapshot file exists, was written in the current format, and
+	 * was saved from source files which have not changed size or been modified since.
+	 * 
+	 * @return {@code true} if the snapshot can be loaded in place of its source files.
+	 */
+	public boolean isCurrent() {
+		try {
+			final ByteBuffer data = readHeader();
+			for (int i = readVarint(data); i > 0; i--) {
+				final File source = new File(readString(data));
+				if (readLong(data) != source.length()) return false;
+				if (readLong(data) != source.lastModified()) return false;
+			}
+			return true;
+		} catch (ReaderException e) {
+			return false;
+		} catch (BufferUnderflowException | IllegalArgumentException | IndexOutOfBoundsException e) {
+			return false;
+		}
+	}
+
+
+
+	/**
+	 * Reads the snapshot file, and checks that it starts with the right magic bytes and version.
+	 * 
+	 * @return A buffer holding the file, positioned just after the version.
+	 * @throws ReaderException If the file cannot be read, or is not a snapshot in the current format.
+	 */
+	private @NonNull ByteBuffer readHeader() throws ReaderException {
+		final ByteBuffer data;
+		try {
+			data = ByteBuffer.wrap(Files.readAllBytes(file.toPath()));
+		} catch (NoSuchFileException e) {
+			throw new ReaderException(String.format("No such file as %s", file.getPath()));
+		} catch (IOException e) {
+			throw new ReaderException(String.format("Could not read file %s", file.getPath()), e);
+		}
+
+		try {
+			for (byte b : MAGIC) {
+				if (data.get() != b) throw corrupt();
+			}
+			final int version = readVarint(data);
+			if (version != VERSION) {
+				throw new ReaderException(String.format(
+					"Snapshot %s has version %d, but only version %d is supported",
+					file.getPath(),
+					version,
+					VERSION
+				));
+			}
+		} catch (BufferUnderflowException | IllegalArgumentException e) {
+			throw corrupt();
+		}
+		return data;
+	}
+
+
+
+	/**
+	 * Creates the exception thrown when the snapshot file is damaged.
+	 * 
+	 * @return The exception.
+	 */
+	private @NonNull ReaderException corrupt() {
+		return new ReaderException(String.format("Snapshot %s is corrupt", file.getPath()));
+	}
+
+
+
+	/**
+	 * Writes a node and the number of children it has, but not the children themselves.
+	 * 
+	 * @param out The stream to write to.
+	 * @param node The node to write.
+	 * @param indices The index in the string table of each string written so far.
+	 * @param strings The string table, which new strings are added to.
+	 */
+	private static void writeNode(
+		@NonNull ByteArrayOutputStream out,
+		@NonNull DataNode node,
+		@NonNull Map<String, Integer> indices,
+		@NonNull List<String> strings
+	) {
+		writeVarint(out, indexOf(node.getName(), indices, strings));
+		writeVarint(out, node.countArgs());
+		for (String arg : node.getArgs()) {
+			writeVarint(out, indexOf(arg, indices, strings));
+		}
+
+		// Plain nodes are marked with a zero, and loaded nodes with their file's index plus one.
+		final File source = node.sourceFile();
+		if (source != null) {
+			writeVarint(out, indexOf(source.getPath(), indices, strings) + 1);
+			writeVarint(out, node.sourceLine());
+		} else {
+			writeVarint(out, 0);
+		}
+
+		writeVarint(out, node.countChildren());
+	}
+
+
+
+	/**
+	 * Reads a node, but not the number of children it has or the children themselves. The node
+	 * is given an empty, modifiable list of children for them to be added to.
+	 * 
+	 * @param data The buffer to read from.
+	 * @param parent The parent of the node.
+	 * @param strings The string table.
+	 * @param files The file for each string in the table which has been used as a path so far.
+	 * @return The node.
+	 */
+	private static @NonNull DataNode readNode(
+		@NonNull ByteBuffer data,
+		@NonNull DataNode parent,
+		@NonNull String @NonNull [] strings,
+		@Nullable File @NonNull [] files
+	) {
+		final String name = strings[readVarint(data)];
+		final int argCount = readCount(data);
+		final List<String> args = new ArrayList<>(argCount);
+		for (int i = 0; i < argCount; i++) {
+			args.add(strings[readVarint(data)]);
+		}
+
+		final DataNode node;
+		final int location = readVarint(data);
+		if (location == 0) {
+			node = new DataNode(name, parent, args, new ArrayList<>());
+		} else {
+			// Share one File between every node from the same file.
+			if (files[location - 1] == null) files[location - 1] = new File(strings[location - 1]);
+			node = new LoadedNode(name, parent, args, new ArrayList<>(), readVarint(data), files[location - 1]);
+		}
+		return node;
+	}
+
+
+
+	/**
+	 * Gets the index of a string in the string table, adding it if it is not there yet.
+	 * 
+	 * @param string The string to look up.
+	 * @param indices The index in the string table of each string added so far.
+	 * @param strings The string table.
+	 * @return The index of the string.
+	 */
+	private static int indexOf(
+		@NonNull String string,
+		@NonNull Map<String, Integer> indices,
+		@NonNull List<String> strings
+	) {
+		final Integer index = indices.putIfAbsent(string, strings.size());
+		if (index != null) return index;
+
+		strings.add(string);
+		return strings.size() - 1;
+	}
+
+
+
+	/**
+	 * Writes a non-negative number as a variable-length integer, seven bits at a time,
+	 * with the high bit of each byte set if more bytes follow. Negative numbers are
+	 * treated as unsigned, and take ten bytes.
+	 * 
+	 * @param out The stream to write to.
+	 * @param value The number to write.
+	 */
+	private static void writeVarint(@NonNull ByteArrayOutputStream out, long value) {
+		long remaining = value;
+		while ((remaining & ~0x7F) != 0) {
+			out.write((int) (remaining & 0x7F) | 0x80);
+			remaining >>>= 7;
+		}
+		out.write((int) remaining);
+	}
+
+
+
+	/**
+	 * Writes a string as its length in UTF-8 bytes, followed by the bytes.
+	 * 
+	 * @param out The stream to write to.
+	 * @param string The string to write.
+	 */
+	private static void writeString(@NonNull ByteArrayOutputStream out, @NonNull String string) {
+		final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		writeVarint(out, bytes.length);
+		out.write(bytes, 0, bytes.length);
+	}
+
+
+
+	/**
+	 * Reads a variable-length integer written by {@link #writeVarint(ByteArrayOutputStream, long)}.
+	 * 
+	 * @param data The buffer to read from.
+	 * @return The number.
+	 */
+	private static long readLong(@NonNull ByteBuffer data) {
+		long value = 0;
+		for (int shift = 0; shift < 64; shift += 7) {
+			final byte b = data.get();
+			value |= (long) (b & 0x7F) << shift;
+			if (b >= 0) return value;
+		}
+		throw new IllegalArgumentException("Variable-length integer is too long");
+	}
+
+
+
+	/**
+	 * Reads a variable-length integer which must fit in an {@code int}.
+	 * 
+	 * @param data The buffer to read from.
+	 * @return The number.
+	 */
+	private static int readVarint(@NonNull ByteBuffer data) {
+		final long value = readLong(data);
+		if (value < 0 || value > Integer.MAX_VALUE) throw new IllegalArgumentException("Number is out of range");
+		return (int) value;
+	}
+
+
+
+	/**
+	 * Reads the number of items in a list. Since every item takes at least one byte, a count
+	 * larger than the rest of the buffer means the snapshot is damaged, and is rejected before
+	 * any space is allocated for it.
+	 * 
+	 * @param data The buffer to read from.
+	 * @return The number of items.
+	 */
+	private static int readCount(@NonNull ByteBuffer data) {
+		final int count = readVarint(data);
+		if (count > data.remaining()) throw new IllegalArgumentException("Count is larger than the snapshot");
+		return count;
+	}
+
+
+
+	/**
+	 * Reads a string written by {@link #writeString(ByteArrayOutputStream, String)}.
+	 * 
+	 * @param data The buffer to read from.
+	 * @return The string.
+	 */
+	private static @NonNull String readString(@NonNull ByteBuffer data) {
+		final int length = readCount(data);
+		final String string = new String(data.array(), data.position(), length, StandardCharsets.UTF_8);
+		data.position(data.position() + length);
+		return string;
+	}
+
+
+
+	/**
+	 * Skips over a string written by {@link #writeString(ByteArrayOutputStream, String)}.
+	 * 
+	 * @param data The buffer to read from.
+	 */
+	private static void skipString(@NonNull ByteBuffer data) {
+		final int length = readCount(data);
+		data.position(data.position() + length);
+	}
+
+
+
+	// MARK: Getters
+	/**
+	 * Getter: Returns the snapshot file.
+	 * 
+	 * @return {@link #file}
+	 */
+	public @NonNull File getFile() {
+		return file;
+	}
+
+
+
+	// MARK: Nested Types
+	/**
+	 * A node whose children are being read.
+	 * 
+	 * @param parent The node.
+	 * @param children The list its children are added to.
+	 * @param count The number of children it has.
+	 */
+	private static record Level(@NonNull DataNode parent, @NonNull List<DataNode> children, int count) { }
+}
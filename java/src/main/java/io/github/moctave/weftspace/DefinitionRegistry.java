@@ -0,0 +1,229 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import org.jspecify.annotations.*;
+
+/**
+ * A registry of top-level definitions, such as {@code ship "Kestrel"} or {@code outfit "Heavy Laser"},
+ * keyed by their type (the node's name) and identifier (its first argument).
+ * 
+ * When something is defined more than once, the latest definition shadows the earlier ones,
+ * but every definition is kept in its history, along with the file and line it came from.
+ * Looking up a single definition takes constant time, and definitions of one type can be
+ * listed in identifier order, or filtered by a prefix of their identifier.
+ * 
+ * Any number of threads can read from a registry while definitions are being added.
+ * Definitions are added one at a time, in the order they are registered.
+ */
+public final class DefinitionRegistry {
+	// MARK: Fields
+	/** The history of every definition, keyed by type and identifier. */
+	private final @NonNull Map<Key, List<Definition>> definitions = new ConcurrentHashMap<>();
+
+	/** The history of every definition of each type, sorted by identifier. */
+	private final @NonNull Map<String, ConcurrentSkipListMap<String, List<Definition>>> types =
+		new ConcurrentHashMap<>();
+
+
+
+	// MARK: Methods
+	/**
+	 * Registers a node as a definition, shadowing any earlier definition with the same type
+	 * and identifier. Nodes with no arguments have no identifier, and are ignored.
+	 * 
+	 * @param node The node to register.
+	 * @return {@code true} if the node was registered.
+	 */
+	public synchronized boolean register(@NonNull DataNode node) {
+		if (node.countArgs() == 0) return false;
+
+		final Key key = new Key(node.getName(), node.getArg(0));
+		final Definition definition = new Definition(node, node.sourceFile(), node.sourceLine());
+		final List<Definition> previous = definitions.get(key);
+
+		// Histories are never changed once they have been published, only replaced.
+		final List<Definition> history;
+		if (previous == null) {
+			history = List.of(definition);
+		} else {
+			final List<Definition> longer = new ArrayList<>(previous.size() + 1);
+			longer.addAll(previous);
+			longer.add(definition);
+			history = Collections.unmodifiableList(longer);
+		}
+
+		types.computeIfAbsent(key.type(), type -> new ConcurrentSkipListMap<>()).put(key.id(), history);
+		definitions.put(key, history);
+		return true;
+	}
+
+
+
+	/**
+	 * Registers every child of a node as a definition, in order.
+	 * 
+	 * @param root The node whose children should be registered.
+	 */
+	public synchronized void registerAll(@NonNull DataNode root) {
+		for (DataNode child : root.getChildren()) {
+			register(child);
+		}
+	}
+
+
+
+	/**
+	 * Gets the current definition of something.
+	 * 
+	 * @param type The type of the definition, such as {@code "ship"}.
+	 * @param id The identifier of the definition.
+	 * @return The latest node registered with that type and identifier, or {@code null} if there are none.
+	 */
+	public @Nullable DataNode get(@NonNull String type, @NonNull String id) {
+		final Definition definition = getDefinition(type, id);
+		return definition == null ? null : definition.node();
+	}
+
+
+
+	/**
+	 * Gets the current definition of something, along with where it came from.
+	 * 
+	 * @param type The type of the definition, such as {@code "ship"}.
+	 * @param id The identifier of the definition.
+	 * @return The latest definition with that type and identifier, or {@code null} if there are none.
+	 */
+	public @Nullable Definition getDefinition(@NonNull String type, @NonNull String id) {
+		final List<Definition> history = definitions.get(new Key(type, id));
+		return history == null ? null : history.get(history.size() - 1);
+	}
+
+
+
+	/**
+	 * Gets every definition of something, including those which have been shadowed.
+	 * 
+	 * @param type The type of the definition, such as {@code "ship"}.
+	 * @param id The identifier of the definition.
+	 * @return An unmodifiable list of every definition with that type and identifier, oldest first.
+	 */
+	public @NonNull List<Definition> getHistory(@NonNull String type, @NonNull String id) {
+		return definitions.getOrDefault(new Key(type, id), List.of());
+	}
+
+
+
+	/**
+	 * Gets the current definition of everything of one type.
+	 * 
+	 * @param type The type of the definitions, such as {@code "outfit"}.
+	 * @return The latest node registered for each identifier, in identifier order.
+	 */
+	public @NonNull List<DataNode> getAll(@NonNull String type) {
+		final ConcurrentSkipListMap<String, List<Definition>> ofType = types.get(type);
+		if (ofType == null) return List.of();
+
+		return current(ofType.values());
+	}
+
+
+
+	/**
+	 * Gets the current definition of everything of one type whose identifier starts with a prefix.
+	 * 
+	 * @param type The type of the definitions, such as {@code "outfit"}.
+	 * @param prefix The start of the identifiers to look for.
+	 * @return The latest node registered for each matching identifier, in identifier order.
+	 */
+	public @NonNull List<DataNode> getAllWithPrefix(@NonNull String type, @NonNull String prefix) {
+		final ConcurrentSkipListMap<String, List<Definition>> ofType = types.get(type);
+		if (ofType == null) return List.of();
+
+		final List<List<Definition>> matches = new ArrayList<>();
+		for (Map.Entry<String, List<Definition>> entry : ofType.tailMap(prefix).entrySet()) {
+			if (!entry.getKey().startsWith(prefix)) break;
+			matches.add(entry.getValue());
+		}
+		return current(matches);
+	}
+
+
+
+	/**
+	 * Gets the latest definition from each of several histories.
+	 * 
+	 * @param histories The histories to look through.
+	 * @return The latest node in each history, in the same order.
+	 */
+	private static @NonNull List<DataNode> current(@NonNull Iterable<List<Definition>> histories) {
+		final List<DataNode> nodes = new ArrayList<>();
+		for (List<Definition> history : histories) {
+			nodes.add(history.get(history.size() - 1).node());
+		}
+		return nodes;
+	}
+
+
+
+	// MARK: Getters
+	/**
+	 * Getter: Returns every type which has at least one definition.
+	 * 
+	 * @return An unmodifiable view of the registered types.
+	 */
+	public @NonNull Set<String> getTypes() {
+		return Collections.unmodifiableSet(types.keySet());
+	}
+
+	/**
+	 * Getter: Returns the number of distinct type and identifier pairs which have been defined.
+	 * 
+	 * @return The number of definitions, not counting shadowed ones.
+	 */
+	public int getSize() {
+		return definitions.size();
+	}
+
+
+
+	// MARK: Nested Types
+	/**
+	 * A single definition, along with where it came from.
+	 * 
+	 * @param node The node which makes the definition.
+	 * @param file The file the node was loaded from, or {@code null} if it was not loaded from a file.
+	 * @param line The line the node was loaded from, or 0 if it was not loaded from a file.
+	 */
+	public static record Definition(@NonNull DataNode node, @Nullable File file, int line) { }
+
+
+
+	/**
+	 * A type and identifier, used as a key in the registry.
+	 * 
+	 * @param type The name of the node.
+	 * @param id The first argument of the node.
+	 */
+	private static record Key(@NonNull String type, @NonNull String id) { }
+}
@@ -0,0 +1,474 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import java.io.File;
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import org.jspecify.annotations.*;
+
+/**
+ * A read-only view of a node in a {@link FlatTree}.
+ * 
+ * A view holds nothing but its tree and index, so views can be created freely and thrown
+ * away. Two views of the same node are equal, just like two equal {@link DataNode}s. Every
+ * method which would change the node throws an {@link UnsupportedOperationException}.
+ */
+public final class FlatNode extends DataNode {
+	// MARK: Fields
+	/** The tree this node is in. */
+	private final @NonNull FlatTree tree;
+
+	/** The index of this node in its tree. */
+	private final int index;
+
+
+
+	// MARK: Constructor
+	/**
+	 * Sole constructor.
+	 * 
+	 * @param tree The tree the node is in.
+	 * @param index The index of the node in its tree.
+	 */
+	FlatNode(@NonNull FlatTree tree, int index) {
+		super("", null, List.of(), List.of());
+		this.tree = tree;
+		this.index = index;
+	}
+
+
+
+	// MARK: Methods
+	/**
+	 * Calculates the hash code of this node. Views are not told when nodes are added to their
+	 * tree, so the hash code is never remembered.
+	 * 
+	 * @return A hash code value for this node.
+	 */
+	@Override
+	public int hashCode() {
+		return computeHash();
+	}
+
+
+
+	/**
+	 * Accessor method to get a specific argument from this node.
+	 * 
+	 * @param i The index of the argument to get.
+	 * @return The selected argument.
+	 */
+	@Override
+	public @NonNull String getArg(int i) {
+		return tree.argOf(index, i);
+	}
+
+
+
+	/**
+	 * Convenience method to get the size of this node's argument list.
+	 * 
+	 * @return The number of arguments this node has.
+	 */
+	@Override
+	public int countArgs() {
+		return tree.argCountOf(index);
+	}
+
+
+
+	/**
+	 * Accessor method to get a specific child from this node.
+	 * Nodes with many children keep a table of them in their tree,
+	 * so this takes constant time however many children there are.
+	 * 
+	 * @param i The index of the child to get.
+	 * @return The selected child.
+	 */
+	@Override
+	public @NonNull DataNode getChild(int i) {
+		return getChildren().get(i);
+	}
+
+
+
+	/**
+	 * Returns {@code null}, so that children are always searched one by one. A view is usually
+	 * thrown away straight after it is searched, so an index built for it would never be used again.
+	 * 
+	 * @return {@code null}
+	 */
+	@Override
+	@Nullable ChildIndex index() {
+		return null;
+	}
+
+
+
+	/**
+	 * Gets the parsed values of this node's arguments, which are kept by its tree so that every
+	 * view of the node shares them.
+	 * 
+	 * @return The cache.
+	 */
+	@Override
+	@NonNull NumberCache numbers() {
+		return tree.numbersOf(index);
+	}
+
+
+
+	/**
+	 * Convenience method to get the size of this node's child list.
+	 * 
+	 * @return The number of children this node has.
+	 */
+	@Override
+	public int countChildren() {
+		return tree.childCountOf(index);
+	}
+
+
+
+	/**
+	 * Convenience method to check whether a node has a defined parent.
+	 * 
+	 * @return {@code true} if a node has a parent, or {@code false} if it is the root of its tree.
+	 */
+	@Override
+	public boolean hasParent() {
+		return tree.parentOf(index) != FlatTree.NONE;
+	}
+
+
+
+	/**
+	 * Gets the line this node was loaded from.
+	 * 
+	 * @return {@link #getLine()}
+	 */
+	@Override
+	int sourceLine() {
+		return getLine();
+	}
+
+
+
+	/**
+	 * Gets the file this node was loaded from.
+	 * 
+	 * @return {@link #getFile()}
+	 */
+	@Override
+	@Nullable File sourceFile() {
+		return getFile();
+	}
+
+
+
+	// MARK: Getters / Setters
+	/**
+	 * Getter: Returns the name of this node.
+	 * 
+	 * @return The name.
+	 */
+	@Override
+	public @NonNull String getName() {
+		return tree.nameOf(index);
+	}
+
+	/**
+	 * Flat nodes cannot be changed.
+	 * 
+	 * @param name Ignored.
+	 * @throws UnsupportedOperationException Always.
+	 */
+	@Override
+	public void setName(@NonNull String name) {
+		throw new UnsupportedOperationException("Flat nodes cannot be changed");
+	}
+
+
+	/**
+	 * Getter: Returns a view of the parent of this node.
+	 * 
+	 * @return The parent, or {@code null} if this is the root of its tree.
+	 */
+	@Override
+	public @Nullable DataNode getParent() {
+		final int parent = tree.parentOf(index);
+		return parent == FlatTree.NONE ? null : new FlatNode(tree, parent);
+	}
+
+	/**
+	 * Flat nodes cannot be changed.
+	 * 
+	 * @param parent Ignored.
+	 * @throws UnsupportedOperationException Always.
+	 */
+	@Override
+	public void setParent(@Nullable DataNode parent) {
+		throw new UnsupportedOperationException("Flat nodes cannot be changed");
+	}
+
+
+	/**
+	 * Getter: Returns a read-only list of the arguments of this node.
+	 * 
+	 * @return The arguments.
+	 */
+	@Override
+	public @NonNull List<String> getArgs() {
+		return new ArgList(tree, index);
+	}
+
+	/**
+	 * Flat nodes cannot be changed.
+	 * 
+	 * @param args Ignored.
+	 * @throws UnsupportedOperationException Always.
+	 */
+	@Override
+	public void setArgs(@NonNull List<String> args) {
+		throw new UnsupportedOperationException("Flat nodes cannot be changed");
+	}
+
+
+	/**
+	 * Getter: Returns a read-only list of views of the children of this node.
+	 * 
+	 * @return The children.
+	 */
+	@Override
+	public @NonNull List<DataNode> getChildren() {
+		return new ChildList(tree, index);
+	}
+
+	/**
+	 * Flat nodes cannot be changed.
+	 * 
+	 * @param children Ignored.
+	 * @throws UnsupportedOperationException Always.
+	 */
+	@Override
+	public void setChildren(@NonNull List<DataNode> children) {
+		throw new UnsupportedOperationException("Flat nodes cannot be changed");
+	}
+
+
+	/**
+	 * Getter: Returns the line number this node was parsed from.
+	 * 
+	 * @return The line, or 0 if this node was not parsed from a file.
+	 */
+	public int getLine() {
+		return tree.lineOf(index);
+	}
+
+
+	/**
+	 * Getter: Returns the file this node was parsed from.
+	 * 
+	 * @return The file, or {@code null} if this node was not parsed from a file.
+	 */
+	public @Nullable File getFile() {
+		return tree.fileOf(index);
+	}
+
+
+	/**
+	 * Getter: Returns the tree this node is in.
+	 * 
+	 * @return {@link #tree}
+	 */
+	public @NonNull FlatTree getTree() {
+		return tree;
+	}
+
+
+	/**
+	 * Getter: Returns the index of this node in its tree.
+	 * 
+	 * @return {@link #index}
+	 */
+	public int getIndex() {
+		return index;
+	}
+
+
+
+	// MARK: Nested Types
+	/**
+	 * A read-only list of the arguments of a node in a flat tree.
+	 */
+	private static final class ArgList extends AbstractList<String> {
+		/** The tree the node is in. */
+		private final @NonNull FlatTree tree;
+
+		/** The index of the node. */
+		private final int index;
+
+
+		/**
+		 * Sole constructor.
+		 * 
+		 * @param tree The tree the node is in.
+		 * @param index The index of the node.
+		 */
+		private ArgList(@NonNull FlatTree tree, int index) {
+			this.tree = tree;
+			this.index = index;
+		}
+
+
+		/**
+		 * Gets one of the node's arguments.
+		 * 
+		 * @param i The position of the argument.
+		 * @return The argument.
+		 */
+		@Override
+		public @NonNull String get(int i) {
+			return tree.argOf(index, i);
+		}
+
+
+		/**
+		 * Gets the number of arguments the node has.
+		 * 
+		 * @return The number of arguments.
+		 */
+		@Override
+		public int size() {
+			return tree.argCountOf(index);
+		}
+	}
+
+
+
+	/**
+	 * A read-only list of views of the children of a node in a flat tree.
+	 * Iterating over the list follows the links between siblings, and getting a child by its
+	 * position uses the tree's table of children, so both take constant time per child.
+	 */
+	private static final class ChildList extends AbstractList<DataNode> {
+		/** The tree the node is in. */
+		private final @NonNull FlatTree tree;
+
+		/** The index of the node. */
+		private final int index;
+
+
+		/**
+		 * Sole constructor.
+		 * 
+		 * @param tree The tree the node is in.
+		 * @param index The index of the node.
+		 */
+		private ChildList(@NonNull FlatTree tree, int index) {
+			this.tree = tree;
+			this.index = index;
+		}
+
+
+		/**
+		 * Gets a view of one of the node's children.
+		 * 
+		 * @param i The position of the child.
+		 * @return The child.
+		 */
+		@Override
+		public @NonNull DataNode get(int i) {
+			if (i < 0 || i >= size()) throw new IndexOutOfBoundsException(String.format("No child at position %d", i));
+			return new FlatNode(tree, tree.childOf(index, i));
+		}
+
+
+		/**
+		 * Gets the number of children the node has.
+		 * 
+		 * @return The number of children.
+		 */
+		@Override
+		public int size() {
+			return tree.childCountOf(index);
+		}
+
+
+		/**
+		 * Creates an iterator which follows the links between siblings.
+		 * 
+		 * @return The iterator.
+		 */
+		@Override
+		public @NonNull Iterator<DataNode> iterator() {
+			return new ChildIterator(tree, tree.firstChildOf(index));
+		}
+	}
+
+
+
+	/**
+	 * An iterator over the children of a node in a flat tree.
+	 */
+	private static final class ChildIterator implements Iterator<DataNode> {
+		/** The tree the node is in. */
+		private final @NonNull FlatTree tree;
+
+		/** The index of the next child, or {@link FlatTree#NONE} if there are no more. */
+		private int next;
+
+
+		/**
+		 * Sole constructor.
+		 * 
+		 * @param tree The tree the node is in.
+		 * @param first The index of the first child.
+		 */
+		private ChildIterator(@NonNull FlatTree tree, int first) {
+			this.tree = tree;
+			this.next = first;
+		}
+
+
+		/**
+		 * Checks whether there are more children.
+		 * 
+		 * @return {@code true} if {@link #next()} will return another child.
+		 */
+		@Override
+		public boolean hasNext() {
+			return next != FlatTree.NONE;
+		}
+
+
+		/**
+		 * Gets a view of the next child.
+		 * 
+		 * @return The child.
+		 */
+		@Override
+		public @NonNull DataNode next() {
+			if (next == FlatTree.NONE) throw new NoSuchElementException();
+
+			final FlatNode child = new FlatNode(tree, next);
+			next = tree.nextSiblingOf(next);
+			return child;
+		}
+	}
+}
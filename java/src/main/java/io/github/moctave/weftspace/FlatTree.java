@@ -0,0 +1,608 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.jspecify.annotations.*;
+
+/**
+ * A compact node tree which stores every node as a row of numbers in a handful of arrays,
+ * rather than as objects with lists of their own.
+ * 
+ * Each node is identified by its index. For every node, the tree stores the index of its
+ * parent, first child, last child and next sibling, its number of children, its line and
+ * file, and the position of its name and arguments in a single pool of distinct strings.
+ * This takes a small fraction of the memory of an equivalent tree of {@link DataNode}s,
+ * so many large trees can be kept in memory at once.
+ * 
+ * Nodes are read through {@link FlatNode}, a lightweight read-only view which can be
+ * passed to anything that accepts a {@link DataNode}, such as the {@link Builder} or
+ * a {@link DataWriter}. Nodes can only be added to a flat tree, never changed or removed.
+ * A tree is not safe to add nodes to while other threads are reading it.
+ */
+public final class FlatTree {
+	// MARK: Constants
+	/** The index of the root node. */
+	public static final int ROOT = 0;
+
+	/** The index used in place of a missing node or file. */
+	public static final int NONE = -1;
+
+	/** The number of nodes a new tree has room for. */
+	private static final int INITIAL_CAPACITY = 64;
+
+	/** The number of children a node needs before finding a child by position builds a table of them. */
+	private static final int CHILD_TABLE_THRESHOLD = 16;
+
+
+
+	// MARK: Fields
+	/** The number of nodes in the tree, including the root. */
+	private int size;
+
+	/** The index of each node's parent. */
+	private int @NonNull [] parents;
+
+	/** The index of each node's first child. */
+	private int @NonNull [] firstChildren;
+
+	/** The index of each node's last child. */
+	private int @NonNull [] lastChildren;
+
+	/** The index of each node's next sibling. */
+	private int @NonNull [] nextSiblings;
+
+	/** The number of children of each node. */
+	private int @NonNull [] childCounts;
+
+	/** The line each node was parsed from, or 0 if it was not parsed from a file. */
+	private int @NonNull [] lines;
+
+	/** The index in {@link #files} of the file each node was parsed from. */
+	private int @NonNull [] fileIndices;
+
+	/** The index in {@link #strings} of each node's name. */
+	private int @NonNull [] names;
+
+	/** The index in {@link #args} of each node's first argument. */
+	private int @NonNull [] argStarts;
+
+	/** The index in {@link #strings} of every argument, grouped by node. */
+	private int @NonNull [] args;
+
+	/** The number of arguments stored. */
+	private int argCount;
+
+	/** Every distinct name and argument. */
+	private @NonNull String @NonNull [] strings;
+
+	/** The number of distinct strings stored. */
+	private int stringCount;
+
+	/** The index in {@link #strings} of each distinct string. */
+	private final @NonNull Map<String, Integer> stringIndices = new HashMap<>();
+
+	/** Every file nodes have been parsed from. */
+	private final @NonNull List<File> files = new ArrayList<>();
+
+	/** The index in {@link #files} of each file. */
+	private final @NonNull Map<File, Integer> filePositions = new HashMap<>();
+
+	/**
+	 * The index of every child of each node with many children, in order, so that a child can be
+	 * found by its position without following the links between siblings. Tables are built the
+	 * first time they are needed, possibly by several reading threads at once.
+	 */
+	private final @NonNull Map<Integer, int[]> childTables = new ConcurrentHashMap<>();
+
+	/**
+	 * The parsed values of the arguments of each node which has had arguments built as numbers,
+	 * shared by every view of the node. Like {@link #childTables}, these may be filled in by
+	 * several reading threads at once.
+	 */
+	private final @NonNull Map<Integer, NumberCache> numberCaches = new ConcurrentHashMap<>();
+
+
+
+	// MARK: Constructor
+	/**
+	 * Sole constructor. Creates a tree holding only a root node.
+	 */
+	public FlatTree() {
+		parents = new int[INITIAL_CAPACITY];
+		firstChildren = new int[INITIAL_CAPACITY];
+		lastChildren = new int[INITIAL_CAPACITY];
+		nextSiblings = new int[INITIAL_CAPACITY];
+		childCounts = new int[INITIAL_CAPACITY];
+		lines = new int[INITIAL_CAPACITY];
+		fileIndices = new int[INITIAL_CAPACITY];
+		names = new int[INITIAL_CAPACITY];
+		argStarts = new int[INITIAL_CAPACITY];
+		args = new int[INITIAL_CAPACITY];
+		strings = new String[INITIAL_CAPACITY];
+
+		append(NONE, "--ROOT--", List.of(), 0, NONE);
+	}
+
+
+
+	// MARK: Methods
+	/**
+	 * Adds a copy of a node and all its descendants to the tree, as the last child of the root.
+	 * The line and file of every node which remembers them are kept too.
+	 * 
+	 * @param node The node to copy.
+	 * @return The index of the copy.
+	 */
+	public int add(@NonNull DataNode node) {
+		return add(ROOT, node);
+	}
+
+
+	/**
+	 * Adds a copy of a node and all its descendants to the tree. The line and file of every node
+	 * which remembers them are kept too, whether it is a {@link LoadedNode} or a copy of one. The
+	 * node is copied without recursion, so even very deeply nested nodes are safe.
+	 * 
+	 * @param parent The index of the node to add the copy to.
+	 * @param node The node to copy.
+	 * @return The index of the copy.
+	 */
+	public int add(int parent, @NonNull DataNode node) {
+		checkIndex(parent);
+
+		final int index = append(parent, node);
+		final Deque<Level> levels = new ArrayDeque<>();
+		levels.push(new Level(index, node.getChildren().iterator()));
+		while (!levels.isEmpty()) {
+			final Level level = levels.peek();
+			if (!level.children().hasNext()) {
+				levels.pop();
+				continue;
+			}
+
+			final DataNode child = level.children().next();
+			final int copy = append(level.parent(), child);
+			if (child.countChildren() > 0) levels.push(new Level(copy, child.getChildren().iterator()));
+		}
+		return index;
+	}
+
+
+
+	/**
+	 * Adds a copy of a single node, without its children, as the last child of its parent.
+	 * 
+	 * @param parent The index of the node's parent.
+	 * @param node The node to copy.
+	 * @return The index of the copy.
+	 */
+	private int append(int parent, @NonNull DataNode node) {
+		final File source = node.sourceFile();
+		return append(parent, node.getName(), node.getArgs(), node.sourceLine(), source == null ? NONE : fileIndex(source));
+	}
+
+
+
+	/**
+	 * Parses the file associated with a reader, and adds every node in it to the tree as
+	 * children of the root, without building any {@link DataNode}s along the way.
+	 * 
+	 * @param reader The reader for the file to parse.
+	 * @throws ReaderException If the file cannot be read. If the file has mixed whitespace,
+	 * an exception is thrown after all nodes have been added.
+	 */
+	public void read(@NonNull DataReader reader) throws ReaderException {
+		final Appender appender = new Appender(this, fileIndex(reader.getFile()));
+		reader.stream(appender);
+		if (appender.warning != null) throw new ReaderException(appender.warning);
+	}
+
+
+
+	/**
+	 * Gets a view of a node in the tree.
+	 * 
+	 * @param index The index of the node.
+	 * @return A read-only view of the node.
+	 */
+	public @NonNull FlatNode node(int index) {
+		checkIndex(index);
+		return new FlatNode(this, index);
+	}
+
+
+
+	/**
+	 * Adds a single node to the tree, as the last child of its parent.
+	 * 
+	 * @param parent The index of the node's parent, or {@link #NONE} for the root.
+	 * @param name The node's name.
+	 * @param nodeArgs The node's arguments.
+	 * @param line The line the node was parsed from.
+	 * @param file The index in {@link #files} of the file the node was parsed from.
+	 * @return The index of the new node.
+	 */
+	private int append(int parent, @NonNull String name, @NonNull List<String> nodeArgs, int line, int file) {
+		if (size == parents.length) growNodes();
+		while (argCount + nodeArgs.size() > args.length) {
+			args = Arrays.copyOf(args, args.length * 2);
+		}
+
+		final int index = size++;
+		parents[index] = parent;
+		firstChildren[index] = NONE;
+		lastChildren[index] = NONE;
+		nextSiblings[index] = NONE;
+		lines[index] = line;
+		fileIndices[index] = file;
+		names[index] = stringIndex(name);
+		argStarts[index] = argCount;
+		for (String arg : nodeArgs) {
+			args[argCount++] = stringIndex(arg);
+		}
+
+		if (parent != NONE) {
+			if (lastChildren[parent] == NONE) {
+				firstChildren[parent] = index;
+			} else {
+				nextSiblings[lastChildren[parent]] = index;
+			}
+			lastChildren[parent] = index;
+			childCounts[parent]++;
+		}
+		return index;
+	}
+
+
+
+	/**
+	 * Doubles the number of nodes the tree has room for.
+	 */
+	private void growNodes() {
+		final int capacity = parents.length * 2;
+		parents = Arrays.copyOf(parents, capacity);
+		firstChildren = Arrays.copyOf(firstChildren, capacity);
+		lastChildren = Arrays.copyOf(lastChildren, capacity);
+		nextSiblings = Arrays.copyOf(nextSiblings, capacity);
+		childCounts = Arrays.copyOf(childCounts, capacity);
+		lines = Arrays.copyOf(lines, capacity);
+		fileIndices = Arrays.copyOf(fileIndices, capacity);
+		names = Arrays.copyOf(names, capacity);
+		argStarts = Arrays.copyOf(argStarts, capacity);
+	}
+
+
+
+	/**
+	 * Gets the index of a string in the string pool, adding it if it is not there yet.
+	 * 
+	 * @param string The string to look up.
+	 * @return The index of the string.
+	 */
+	private int stringIndex(@NonNull String string) {
+		final Integer index = stringIndices.putIfAbsent(string, stringCount);
+		if (index != null) return index;
+
+		if (stringCount == strings.length) strings = Arrays.copyOf(strings, stringCount * 2);
+		strings[stringCount] = string;
+		return stringCount++;
+	}
+
+
+
+	/**
+	 * Gets the index of a file in the file list, adding it if it is not there yet.
+	 * 
+	 * @param file The file to look up.
+	 * @return The index of the file.
+	 */
+	private int fileIndex(@NonNull File file) {
+		final Integer index = filePositions.putIfAbsent(file, files.size());
+		if (index != null) return index;
+
+		files.add(file);
+		return files.size() - 1;
+	}
+
+
+
+	/**
+	 * Checks that an index refers to a node in the tree.
+	 * 
+	 * @param index The index to check.
+	 */
+	private void checkIndex(int index) {
+		if (index < 0 || index >= size) {
+			throw new IndexOutOfBoundsException(String.format("No node at index %d in a tree of %d", index, size));
+		}
+	}
+
+
+
+	/**
+	 * Gets the name of a node.
+	 * 
+	 * @param index The index of the node.
+	 * @return The node's name.
+	 */
+	@NonNull String nameOf(int index) {
+		return strings[names[index]];
+	}
+
+
+	/**
+	 * Gets the number of arguments a node has.
+	 * 
+	 * @param index The index of the node.
+	 * @return The number of arguments.
+	 */
+	int argCountOf(int index) {
+		final int end = index + 1 < size ? argStarts[index + 1] : argCount;
+		return end - argStarts[index];
+	}
+
+
+	/**
+	 * Gets the parsed values of a node's arguments, creating an empty cache for them if there is none.
+	 * 
+	 * @param index The index of the node.
+	 * @return The cache.
+	 */
+	@NonNull NumberCache numbersOf(int index) {
+		final int count = argCountOf(index);
+		NumberCache numbers = numberCaches.get(index);
+		if (numbers == null || numbers.getSize() != count) {
+			// Arguments may have been added to the last node since the cache was made.
+			numbers = new NumberCache(count);
+			numberCaches.put(index, numbers);
+		}
+		return numbers;
+	}
+
+
+	/**
+	 * Gets one of a node's arguments.
+	 * 
+	 * @param index The index of the node.
+	 * @param arg The position of the argument.
+	 * @return The argument.
+	 */
+	@NonNull String argOf(int index, int arg) {
+		if (arg < 0 || arg >= argCountOf(index)) {
+			throw new IndexOutOfBoundsException(String.format("No argument at position %d", arg));
+		}
+		return strings[args[argStarts[index] + arg]];
+	}
+
+
+	/**
+	 * Gets the parent of a node.
+	 * 
+	 * @param index The index of the node.
+	 * @return The index of the parent, or {@link #NONE} for the root.
+	 */
+	int parentOf(int index) {
+		return parents[index];
+	}
+
+
+	/**
+	 * Gets the first child of a node.
+	 * 
+	 * @param index The index of the node.
+	 * @return The index of the first child, or {@link #NONE} if it has no children.
+	 */
+	int firstChildOf(int index) {
+		return firstChildren[index];
+	}
+
+
+	/**
+	 * Gets a child of a node by its position. Nodes with many children keep a table of them,
+	 * so this takes constant time however many children there are.
+	 * 
+	 * @param index The index of the node.
+	 * @param i The position of the child, which must be less than the number of children.
+	 * @return The index of the child.
+	 */
+	int childOf(int index, int i) {
+		final int count = childCounts[index];
+		if (count < CHILD_TABLE_THRESHOLD) {
+			int child = firstChildren[index];
+			for (int skipped = 0; skipped < i; skipped++) {
+				child = nextSiblings[child];
+			}
+			return child;
+		}
+
+		int[] table = childTables.get(index);
+		if (table == null || table.length != count) {
+			// Children may have been added since the table was built.
+			table = new int[count];
+			int child = firstChildren[index];
+			for (int position = 0; position < count; position++) {
+				table[position] = child;
+				child = nextSiblings[child];
+			}
+			childTables.put(index, table);
+		}
+		return table[i];
+	}
+
+
+	/**
+	 * Gets the next sibling of a node.
+	 * 
+	 * @param index The index of the node.
+	 * @return The index of the next sibling, or {@link #NONE} if it is the last child.
+	 */
+	int nextSiblingOf(int index) {
+		return nextSiblings[index];
+	}
+
+
+	/**
+	 * Gets the number of children a node has.
+	 * 
+	 * @param index The index of the node.
+	 * @return The number of children.
+	 */
+	int childCountOf(int index) {
+		return childCounts[index];
+	}
+
+
+	/**
+	 * Gets the line a node was parsed from.
+	 * 
+	 * @param index The index of the node.
+	 * @return The line, or 0 if the node was not parsed from a file.
+	 */
+	int lineOf(int index) {
+		return lines[index];
+	}
+
+
+	/**
+	 * Gets the file a node was parsed from.
+	 * 
+	 * @param index The index of the node.
+	 * @return The file, or {@code null} if the node was not parsed from a file.
+	 */
+	@Nullable File fileOf(int index) {
+		return fileIndices[index] == NONE ? null : files.get(fileIndices[index]);
+	}
+
+
+
+	// MARK: Getters
+	/**
+	 * Getter: Returns a view of the root node of the tree.
+	 * 
+	 * @return The root node.
+	 */
+	public @NonNull FlatNode getRoot() {
+		return new FlatNode(this, ROOT);
+	}
+
+	/**
+	 * Getter: Returns the number of nodes in the tree, including the root.
+	 * 
+	 * @return {@link #size}
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Getter: Returns the number of distinct names and arguments in the tree.
+	 * 
+	 * @return {@link #stringCount}
+	 */
+	public int getStringCount() {
+		return stringCount;
+	}
+
+
+
+	// MARK: Nested Types
+	/**
+	 * A node being copied, whose children are still being added.
+	 * 
+	 * @param parent The index of the copy.
+	 * @param children The children of the node which have not been added yet.
+	 */
+	private static record Level(int parent, @NonNull Iterator<DataNode> children) { }
+
+
+
+	/**
+	 * A handler which adds streamed nodes to a tree as they are parsed.
+	 */
+	private static final class Appender implements NodeHandler {
+		/** The tree to add nodes to. */
+		private final @NonNull FlatTree tree;
+
+		/** The index of the file being parsed. */
+		private final int file;
+
+		/** The index of each node which has been started but not ended, innermost last. */
+		private int @NonNull [] open = new int[16];
+
+		/** The number of open nodes. */
+		private int depth;
+
+		/** The warning reported by the parser, if any. */
+		private @Nullable String warning;
+
+
+		/**
+		 * Sole constructor.
+		 * 
+		 * @param tree The tree to add nodes to.
+		 * @param file The index of the file being parsed.
+		 */
+		private Appender(@NonNull FlatTree tree, int file) {
+			this.tree = tree;
+			this.file = file;
+		}
+
+
+		/**
+		 * Adds a node to the tree as the last child of the innermost open node.
+		 * 
+		 * @param name The name of the node.
+		 * @param nodeArgs The arguments of the node.
+		 * @param line The line the node was read from.
+		 */
+		@Override
+		public void startNode(@NonNull String name, @NonNull List<String> nodeArgs, int line) {
+			final int parent = depth == 0 ? ROOT : open[depth - 1];
+			if (depth == open.length) open = Arrays.copyOf(open, depth * 2);
+			open[depth] = tree.append(parent, name, nodeArgs, line, file);
+			depth++;
+		}
+
+
+		/**
+		 * Closes the innermost open node.
+		 */
+		@Override
+		public void endNode() {
+			depth--;
+		}
+
+
+		/**
+		 * Remembers a warning so that it can be thrown once reading is complete.
+		 * 
+		 * @param message A description of the problem.
+		 */
+		@Override
+		public void warning(@NonNull String message) {
+			warning = message;
+		}
+	}
+}
@@ -0,0 +1,321 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+
+import org.jspecify.annotations.*;
+
+/**
+ * An immutable copy of a node and all its descendants, created by {@link DataNode#freeze()}.
+ * 
+ * Arguments and children are stored in exact-size unmodifiable lists, and the hash code is
+ * calculated once when the node is created. A tree is frozen from the bottom up without recursion,
+ * so even very deeply nested trees are safe: each node is created after all of its children, and
+ * sets their parent as it is created. Every other field declared here is final, and the parent of
+ * every node is set before the root is complete, so a frozen tree can be shared between any number
+ * of threads without locking once it has been created. Every method which would change the node
+ * throws an {@link UnsupportedOperationException}.
+ * 
+ * Frozen nodes still fill the caches they inherit, the index of children by name and the parsed
+ * values of arguments, the first time they are needed. Two threads may both fill the same cache,
+ * but each builds the same contents from arguments and children which can no longer change, and
+ * only publishes it once it is complete, so a thread sees either a whole cache or none and builds
+ * its own.
+ */
+public final class FrozenNode extends DataNode {
+	// MARK: Fields
+	/** The name of this node. */
+	private final @NonNull String name;
+
+	/**
+	 * The parent of this node, or {@code null} if it is the root of its frozen tree. This is set
+	 * once, by the parent's constructor.
+	 */
+	private @Nullable FrozenNode parent;
+
+	/** This node's arguments. */
+	private final @NonNull List<String> args;
+
+	/** This node's children. */
+	private final @NonNull List<DataNode> children;
+
+	/** The line this node was parsed from, or 0 if it was not parsed from a file. */
+	private final int line;
+
+	/** The file this node was parsed from, or {@code null} if it was not parsed from a file. */
+	private final @Nullable File file;
+
+	/** The hash code of this node, which can never change. */
+	private final int hash;
+
+
+
+	// MARK: Constructor
+	/**
+	 * Sole constructor. Copies a node, using children which have already been frozen, and makes
+	 * this node their parent.
+	 * 
+	 * @param source The node to copy.
+	 * @param children The frozen copies of the node's children, in order.
+	 */
+	private FrozenNode(@NonNull DataNode source, @NonNull FrozenNode @NonNull [] children) {
+		super("", null, List.of(), List.of());
+		this.name = source.getName();
+		this.args = List.copyOf(source.getArgs());
+		this.children = List.of(children);
+		this.line = source.sourceLine();
+		this.file = source.sourceFile();
+
+		for (FrozenNode child : children) {
+			child.parent = this;
+		}
+		this.hash = super.hashCode();
+	}
+
+
+
+	/**
+	 * Freezes a copy of a node and all its descendants. The tree is walked without recursion,
+	 * and each node is frozen once all of its children have been.
+	 * 
+	 * @param source The node to copy.
+	 * @return The frozen copy, which has no parent.
+	 */
+	static @NonNull FrozenNode of(@NonNull DataNode source) {
+		final Deque<Level> levels = new ArrayDeque<>();
+		levels.push(new Level(source));
+		while (true) {
+			final Level level = levels.peek();
+			if (level.remaining.hasNext()) {
+				levels.push(new Level(level.remaining.next()));
+				continue;
+			}
+
+			final FrozenNode frozen = new FrozenNode(level.source, level.children);
+			levels.pop();
+			if (levels.isEmpty()) return frozen;
+
+			final Level above = levels.peek();
+			above.children[above.filled++] = frozen;
+		}
+	}
+
+
+
+	// MARK: Methods
+	/**
+	 * Returns the hash code calculated when this node was frozen.
+	 * 
+	 * @return A hash code value for this node.
+	 */
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+
+
+	/**
+	 * Gets the hash code calculated when this node was frozen, which {@link DataNode#equals(Object)}
+	 * uses to tell different nodes apart without comparing their subtrees.
+	 * 
+	 * @return {@link #hash}
+	 */
+	@Override
+	int cachedHash() {
+		return hash;
+	}
+
+
+
+	/**
+	 * Frozen nodes are already frozen, so the root of a frozen tree is returned as-is.
+	 * Freezing any other frozen node copies it into a new tree with no parent.
+	 * 
+	 * @return A frozen copy of this node.
+	 */
+	@Override
+	public @NonNull FrozenNode freeze() {
+		return parent == null ? this : super.freeze();
+	}
+
+
+
+	/**
+	 * Gets the line this node was loaded from.
+	 * 
+	 * @return {@link #getLine()}
+	 */
+	@Override
+	int sourceLine() {
+		return getLine();
+	}
+
+
+
+	/**
+	 * Gets the file this node was loaded from.
+	 * 
+	 * @return {@link #getFile()}
+	 */
+	@Override
+	@Nullable File sourceFile() {
+		return getFile();
+	}
+
+
+
+	// MARK: Getters / Setters
+	/**
+	 * Getter: Returns the name of this node.
+	 * 
+	 * @return {@link #name}
+	 */
+	@Override
+	public @NonNull String getName() {
+		return name;
+	}
+
+	/**
+	 * Frozen nodes cannot be changed.
+	 * 
+	 * @param name Ignored.
+	 * @throws UnsupportedOperationException Always.
+	 */
+	@Override
+	public void setName(@NonNull String name) {
+		throw new UnsupportedOperationException("Frozen nodes cannot be changed");
+	}
+
+
+	/**
+	 * Getter: Returns the parent of this node.
+	 * 
+	 * @return {@link #parent}
+	 */
+	@Override
+	public @Nullable DataNode getParent() {
+		return parent;
+	}
+
+	/**
+	 * Frozen nodes cannot be changed.
+	 * 
+	 * @param parent Ignored.
+	 * @throws UnsupportedOperationException Always.
+	 */
+	@Override
+	public void setParent(@Nullable DataNode parent) {
+		throw new UnsupportedOperationException("Frozen nodes cannot be changed");
+	}
+
+
+	/**
+	 * Getter: Returns an unmodifiable list of the arguments of this node.
+	 * 
+	 * @return {@link #args}
+	 */
+	@Override
+	public @NonNull List<String> getArgs() {
+		return args;
+	}
+
+	/**
+	 * Frozen nodes cannot be changed.
+	 * 
+	 * @param args Ignored.
+	 * @throws UnsupportedOperationException Always.
+	 */
+	@Override
+	public void setArgs(@NonNull List<String> args) {
+		throw new UnsupportedOperationException("Frozen nodes cannot be changed");
+	}
+
+
+	/**
+	 * Getter: Returns an unmodifiable list of the children of this node.
+	 * 
+	 * @return {@link #children}
+	 */
+	@Override
+	public @NonNull List<DataNode> getChildren() {
+		return children;
+	}
+
+	/**
+	 * Frozen nodes cannot be changed.
+	 * 
+	 * @param children Ignored.
+	 * @throws UnsupportedOperationException Always.
+	 */
+	@Override
+	public void setChildren(@NonNull List<DataNode> children) {
+		throw new UnsupportedOperationException("Frozen nodes cannot be changed");
+	}
+
+
+	/**
+	 * Getter: Returns the line number this node was parsed from.
+	 * 
+	 * @return {@link #line}
+	 */
+	public int getLine() {
+		return line;
+	}
+
+
+	/**
+	 * Getter: Returns the file this node was parsed from.
+	 * 
+	 * @return {@link #file}
+	 */
+	public @Nullable File getFile() {
+		return file;
+	}
+
+
+
+	// MARK: Nested Types
+	/** A node being frozen, whose children are frozen first. */
+	private static final class Level {
+		/** The node being frozen. */
+		private final @NonNull DataNode source;
+
+		/** The children of the node which have not been started yet. */
+		private final @NonNull Iterator<DataNode> remaining;
+
+		/** The frozen children, in order. */
+		private final @NonNull FrozenNode @NonNull [] children;
+
+		/** The number of children which have been frozen. */
+		private int filled;
+
+
+		/**
+		 * Sole constructor.
+		 * 
+		 * @param source The node being frozen.
+		 */
+		private Level(@NonNull DataNode source) {
+			this.source = source;
+			this.remaining = source.getChildren().iterator();
+			this.children = new FrozenNode[source.countChildren()];
+		}
+	}
+}
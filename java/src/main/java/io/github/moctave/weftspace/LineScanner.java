@@ -0,0 +1,516 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import org.jspecify.annotations.*;
+
+/**
+ * A scanner which reads UTF-8 data from a channel into a single reusable buffer and
+ * steps through it one significant line at a time, without decoding lines that are
+ * pure ASCII.
+ * 
+ * Lines are split the same way {@link java.util.Scanner#nextLine()} splits them, and
+ * a line is significant if anything other than whitespace appears before its first
+ * {@code #} character. Tokens are split exactly as {@link DataReader#makeNode(String, int)}
+ * splits them.
+ */
+final class LineScanner implements Closeable {
+	// MARK: Constants
+	/** The initial size of the read buffer, in bytes. */
+	static final int DEFAULT_CAPACITY = 1 << 16;
+
+
+
+	// MARK: Fields
+	/** The channel data is read from, or {@code null} if all data is already in the buffer. */
+	private final @Nullable ReadableByteChannel channel;
+
+	/** The buffer that data is read into. It only grows if a single line does not fit. */
+	private byte @NonNull [] data;
+
+	/** The index of the first byte in the buffer which has not yet been scanned. */
+	private int position;
+
+	/** The index after the last valid byte in the buffer. */
+	private int limit;
+
+	/** Whether the channel has no more data to give. */
+	private boolean finished;
+
+	/** The number of the current line, counting from 1. */
+	private int lineNumber;
+
+	/** The index of the first byte of the current line. */
+	private int lineStart;
+
+	/** The index after the last byte of the current line, excluding its terminator. */
+	private int lineEnd;
+
+	/** Whether the current line is entirely made up of ASCII characters. */
+	private boolean ascii;
+
+	/** The current line decoded as a string, or {@code null} if it has not been needed. */
+	private @Nullable String decoded;
+
+	/** The table used to share repeated tokens, or {@code null} to create a new string for every token. */
+	private @Nullable SymbolTable symbols;
+
+
+
+	// MARK: Constructors
+	/**
+	 * Creates a scanner which reads from a channel. The channel is closed when
+	 * this scanner is closed.
+	 * 
+	 * @param channel The channel to read from.
+	 */
+	LineScanner(@NonNull ReadableByteChannel channel) {
+		this.channel = channel;
+		this.data = new byte[DEFAULT_CAPACITY];
+		this.finished = false;
+	}
+
+
+	/**
+	 * Creates a scanner over a region of data which has already been read into memory.
+	 * 
+	 * @param data The array holding the data.
+	 * @param from The index of the first byte to scan.
+	 * @param to The index after the last byte to scan.
+	 * @param firstLine The line number of the first line in the region.
+	 */
+	LineScanner(byte @NonNull [] data, int from, int to, int firstLine) {
+		this.channel = null;
+		this.data = data;
+		this.position = from;
+		this.limit = to;
+		this.finished = true;
+		this.lineNumber = firstLine - 1;
+	}
+
+
+
+	// MARK: Methods
+	/**
+	 * Advances to the next significant line, skipping blank and comment-only lines.
+	 * 
+	 * @return {@code true} if a line was found, or {@code false} at the end of the data.
+	 * @throws IOException If the channel cannot be read.
+	 */
+	boolean next() throws IOException {
+		while (readLine()) {
+			lineNumber++;
+			if (isSignificant()) return true;
+		}
+		return false;
+	}
+
+
+
+	/**
+	 * Counts the number of leading tab or space characters on the current line,
+	 * in the same way as {@link DataReader#countLeadingWhitespace(String)}.
+	 * 
+	 * @return The indentation of the current line.
+	 */
+	int indent() {
+		int i = lineStart;
+		while (i < lineEnd && (data[i] == '\t' || data[i] == ' ')) {
+			i++;
+		}
+		return i - lineStart;
+	}
+
+
+
+	/**
+	 * Gets part of the indentation of the current line as a string, in the same way
+	 * as {@link DataReader#getIndentSubstring(String, int)}.
+	 * 
+	 * @param depth The base depth from which the line is being indented.
+	 * @return The indentation characters between {@code depth} and the first other character.
+	 */
+	@NonNull String indentSubstring(int depth) {
+		final int start = lineStart + depth;
+		int i = start;
+		while (i < lineEnd && (data[i] == '\t' || data[i] == ' ')) {
+			i++;
+		}
+		return i > start ? new String(data, start, i - start, StandardCharsets.ISO_8859_1) : "";
+	}
+
+
+
+	/**
+	 * Checks whether part of the indentation of the current line matches an expected string,
+	 * without building a new string for it.
+	 * 
+	 * @param depth The base depth from which the line is being indented.
+	 * @param expected The expected indentation.
+	 * @return {@code true} if {@link #indentSubstring(int)} would equal {@code expected}.
+	 */
+	boolean indentMatches(int depth, @NonNull String expected) {
+		final int start = lineStart + depth;
+		final int end = lineStart + indent();
+		if (end - start != expected.length()) return false;
+
+		for (int i = start; i < end; i++) {
+			if (data[i] != expected.charAt(i - start)) return false;
+		}
+		return true;
+	}
+
+
+
+	/**
+	 * Splits the current line into tokens, ignoring any comment.
+	 * 
+	 * @param tokens The list to add the tokens to.
+	 */
+	void tokenize(@NonNull List<String> tokens) {
+		if (!ascii) {
+			DataReader.tokenize(decoded(), tokens, symbols);
+			return;
+		}
+
+		// Equivalent to String.trim()
+		int start = lineStart;
+		int end = lineEnd;
+		while (start < end && (data[start] & 0xFF) <= ' ') {
+			start++;
+		}
+		while (end > start && (data[end - 1] & 0xFF) <= ' ') {
+			end--;
+		}
+
+		int i = start;
+		while (i < end) {
+			final byte b = data[i];
+			if (isWhitespace(b)) {
+				i++;
+			} else if (b == '"' || b == '`') {
+				// Quoted items end at the matching quote, or at the end of the line.
+				int close = i + 1;
+				while (close < end && data[close] != b) {
+					close++;
+				}
+				if (close < end || close > i + 1) tokens.add(asciiString(i + 1, close));
+				i = close + 1;
+			} else if (b == '#') {
+				// Ignore everything after a comment
+				return;
+			} else {
+				// Bare items end at the next space or comment.
+				int stop = i + 1;
+				while (stop < end && data[stop] != ' ' && data[stop] != '#') {
+					stop++;
+				}
+				tokens.add(asciiString(i, stop));
+				if (stop < end && data[stop] == '#') return;
+				i = stop + 1;
+			}
+		}
+	}
+
+
+
+	/**
+	 * Closes the underlying channel, if there is one.
+	 * 
+	 * @throws IOException If the channel cannot be closed.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (channel != null) channel.close();
+	}
+
+
+
+	/**
+	 * Finds the end of the next line and marks it as the current line.
+	 * 
+	 * @return {@code true} if there was another line, {@code false} otherwise.
+	 * @throws IOException If the channel cannot be read.
+	 */
+	private boolean readLine() throws IOException {
+		while (true) {
+			boolean onlyAscii = true;
+			for (int i = position; i < limit; i++) {
+				final byte b = data[i];
+				int length = 0;
+				if (b == '\n') {
+					length = 1;
+				} else if (b == '\r') {
+					// A carriage return might be the first half of a CRLF in the next read.
+					if (i + 1 == limit && !finished) break;
+					length = (i + 1 < limit && data[i + 1] == '\n') ? 2 : 1;
+				} else if (b < 0) {
+					onlyAscii = false;
+					length = unicodeSeparatorLength(i);
+					if (length < 0) break;
+				}
+
+				if (length > 0) {
+					markLine(position, i, onlyAscii);
+					position = i + length;
+					return true;
+				}
+			}
+
+			if (finished) {
+				if (position >= limit) return false;
+				markLine(position, limit, onlyAscii);
+				position = limit;
+				return true;
+			}
+			fill();
+		}
+	}
+
+
+
+	/**
+	 * Checks for one of the Unicode line separators recognized by {@link java.util.Scanner}
+	 * (U+0085, U+2028, and U+2029) in their UTF-8 encoded forms.
+	 * 
+	 * @param i The index of the byte to check.
+	 * @return The length of the separator starting at {@code i}, {@code 0} if there is
+	 * no separator there, or {@code -1} if more data is needed to tell.
+	 */
+	private int unicodeSeparatorLength(int i) {
+		final int needed;
+		if (data[i] == (byte) 0xC2) {
+			needed = 2;
+		} else if (data[i] == (byte) 0xE2) {
+			needed = 3;
+		} else {
+			return 0;
+		}
+
+		if (i + needed > limit) return finished ? 0 : -1;
+
+		if (needed == 2) {
+			return data[i + 1] == (byte) 0x85 ? 2 : 0;
+		}
+		return (data[i + 1] == (byte) 0x80 && (data[i + 2] == (byte) 0xA8 || data[i + 2] == (byte) 0xA9)) ? 3 : 0;
+	}
+
+
+
+	/**
+	 * Moves any unscanned data to the start of the buffer and reads more data after it,
+	 * growing the buffer if it is already full.
+	 * 
+	 * @throws IOException If the channel cannot be read.
+	 */
+	private void fill() throws IOException {
+		final int remaining = limit - position;
+		if (position == 0 && limit == data.length) {
+			final byte[] larger = new byte[data.length * 2];
+			System.arraycopy(data, 0, larger, 0, remaining);
+			data = larger;
+		} else {
+			System.arraycopy(data, position, data, 0, remaining);
+		}
+		position = 0;
+		limit = remaining;
+
+		final int read = channel.read(ByteBuffer.wrap(data, limit, data.length - limit));
+		if (read < 0) {
+			finished = true;
+		} else {
+			limit += read;
+		}
+	}
+
+
+
+	/**
+	 * Marks a range of the buffer as the current line.
+	 * 
+	 * @param start The index of the first byte of the line.
+	 * @param end The index after the last byte of the line.
+	 * @param onlyAscii Whether the line is entirely made up of ASCII characters.
+	 */
+	private void markLine(int start, int end, boolean onlyAscii) {
+		lineStart = start;
+		lineEnd = end;
+		ascii = onlyAscii;
+		decoded = null;
+	}
+
+
+
+	/**
+	 * Checks whether the current line has anything other than whitespace before its first comment.
+	 * 
+	 * @return {@code true} if the line is significant, {@code false} otherwise.
+	 */
+	private boolean isSignificant() {
+		for (int i = lineStart; i < lineEnd; i++) {
+			final byte b = data[i];
+			if (b == '#') return false;
+			// Unicode whitespace is rare enough that it's simplest to decode the line.
+			if (b < 0) return !DataReader.isCommentOrBlank(decoded());
+			if (!isWhitespace(b)) return true;
+		}
+		return false;
+	}
+
+
+
+	/**
+	 * Decodes the current line into a string, caching the result.
+	 * 
+	 * @return The current line.
+	 */
+	private @NonNull String decoded() {
+		if (decoded == null) {
+			decoded = new String(data, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+		}
+		return decoded;
+	}
+
+
+
+	/**
+	 * Builds a string from a range of the buffer which is known to be ASCII, or finds the
+	 * matching string in the symbol table if there is one.
+	 * 
+	 * @param start The index of the first byte.
+	 * @param end The index after the last byte.
+	 * @return The string.
+	 */
+	private @NonNull String asciiString(int start, int end) {
+		if (symbols != null) return symbols.intern(data, start, end);
+		return new String(data, start, end - start, StandardCharsets.ISO_8859_1);
+	}
+
+
+
+	/**
+	 * Checks whether an ASCII byte is whitespace, as defined by {@link Character#isWhitespace(char)}.
+	 * 
+	 * @param b The byte to check.
+	 * @return {@code true} if the byte is whitespace.
+	 */
+	static boolean isWhitespace(byte b) {
+		return b == ' ' || (b >= '\t' && b <= '\r') || (b >= 0x1C && b <= 0x1F);
+	}
+
+
+
+	/**
+	 * Counts the line terminators in a region of data, recognizing the same terminators
+	 * as {@link #next()}. The region should start at the beginning of a line.
+	 * 
+	 * @param data The array holding the data.
+	 * @param from The index of the first byte to count from.
+	 * @param to The index after the last byte to count.
+	 * @return The number of line terminators found.
+	 */
+	static int countLines(byte @NonNull [] data, int from, int to) {
+		int count = 0;
+		int i = from;
+		while (i < to) {
+			final int length = terminatorLength(data, i, to);
+			if (length > 0) {
+				count++;
+				i += length;
+			} else {
+				i++;
+			}
+		}
+		return count;
+	}
+
+
+
+	/**
+	 * Finds the start of the first line which begins after a given index.
+	 * 
+	 * @param data The array holding the data.
+	 * @param from The index to start searching from. This does not need to be at the start of a
+	 * line, or even of a character.
+	 * @param to The index after the last byte to search.
+	 * @return The index of the start of the next line, or {@code to} if there is none.
+	 */
+	static int nextLineStart(byte @NonNull [] data, int from, int to) {
+		for (int i = from; i < to; i++) {
+			final int length = terminatorLength(data, i, to);
+			if (length > 0) return i + length;
+		}
+		return to;
+	}
+
+
+
+	/**
+	 * Checks for a complete line terminator at an index of a fully loaded array.
+	 * 
+	 * @param data The array holding the data.
+	 * @param i The index to check.
+	 * @param to The index after the last valid byte.
+	 * @return The length of the terminator, or {@code 0} if there is none.
+	 */
+	private static int terminatorLength(byte @NonNull [] data, int i, int to) {
+		final byte b = data[i];
+		if (b == '\n') return 1;
+		if (b == '\r') return (i + 1 < to && data[i + 1] == '\n') ? 2 : 1;
+		if (b == (byte) 0xC2) {
+			return (i + 1 < to && data[i + 1] == (byte) 0x85) ? 2 : 0;
+		}
+		if (b == (byte) 0xE2 && i + 2 < to && data[i + 1] == (byte) 0x80) {
+			return (data[i + 2] == (byte) 0xA8 || data[i + 2] == (byte) 0xA9) ? 3 : 0;
+		}
+		return 0;
+	}
+
+
+
+	// MARK: Getters / Setters
+	/**
+	 * Getter: Returns the number of the current line.
+	 * 
+	 * @return {@link #lineNumber}
+	 */
+	int getLineNumber() {
+		return lineNumber;
+	}
+
+	/**
+	 * Getter: Returns the index of the first byte of the current line.
+	 * 
+	 * @return {@link #lineStart}
+	 */
+	int getLineStart() {
+		return lineStart;
+	}
+
+	/**
+	 * Setter: Changes the table used to share repeated tokens.
+	 * 
+	 * @param symbols The new value for {@link #symbols}.
+	 */
+	void setSymbols(@Nullable SymbolTable symbols) {
+		this.symbols = symbols;
+	}
+}
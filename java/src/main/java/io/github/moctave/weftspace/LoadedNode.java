@@ -56,6 +56,31 @@ public class LoadedNode extends DataNode {
 
 
 
+	// MARK: Methods
+	/**
+	 * Gets the line this node was loaded from.
+	 * 
+	 * @return {@link #getLine()}
+	 */
+	@Override
+	int sourceLine() {
+		return getLine();
+	}
+
+
+
+	/**
+	 * Gets the file this node was loaded from.
+	 * 
+	 * @return {@link #getFile()}
+	 */
+	@Override
+	@Nullable File sourceFile() {
+		return getFile();
+	}
+
+
+
 	// MARK: Getters / Setters
 	/**
 	 * Getter: Returns the line number this node was parsed from.
@@ -0,0 +1,38 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a record component or field which {@link NodeBinder} fills from an argument of the node
+ * being bound, such as the name in {@code ship "Kestrel"}. The component can be a {@code String},
+ * {@code int}, {@code long} or {@code double}, or a boxed number. If the argument is missing or
+ * cannot be converted, binding fails with a {@link BuilderException}.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.RECORD_COMPONENT})
+public @interface NodeArg {
+	/**
+	 * The index of the argument.
+	 * 
+	 * @return The index of the argument, starting from 0.
+	 */
+	int value();
+}
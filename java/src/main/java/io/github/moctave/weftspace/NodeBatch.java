@@ -0,0 +1,217 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jspecify.annotations.*;
+
+/**
+ * A batch of changes to a tree, created by {@link DataNode#beginBatch()}, which are held back
+ * and made all at once when the batch is closed:
+ * 
+ * <pre>
+ * try (NodeBatch batch = root.beginBatch()) {
+ *     DataNode ship = batch.add(root, "ship", "Kestrel");
+ *     batch.add(ship, "mass", "300");
+ * }
+ * </pre>
+ * 
+ * Each list of children or arguments is grown once to its final size, rather than once per
+ * change, and every remembered hash code is forgotten once, rather than once per change for
+ * every ancestor. Changes made by a batch cannot be seen in the tree until it is closed.
+ * Batches are not thread-safe.
+ */
+public final class NodeBatch implements AutoCloseable {
+	// MARK: Fields
+	/** The node the batch was started from. */
+	private final @NonNull DataNode root;
+
+	/** The children waiting to be added to each node. */
+	private final @NonNull Map<DataNode, List<DataNode>> children = new IdentityHashMap<>();
+
+	/** The arguments waiting to be added to each node. */
+	private final @NonNull Map<DataNode, List<String>> args = new IdentityHashMap<>();
+
+	/** The number of changes waiting to be made. */
+	private int size;
+
+	/** Whether the batch has been closed or discarded. */
+	private boolean closed;
+
+
+
+	// MARK: Constructor
+	/**
+	 * Sole constructor.
+	 * 
+	 * @param root The node the batch was started from.
+	 */
+	NodeBatch(@NonNull DataNode root) {
+		this.root = root;
+	}
+
+
+
+	// MARK: Methods
+	/**
+	 * Creates a new node, and adds it to the end of a parent's children when the batch is closed.
+	 * Its own children and arguments can be added by this batch before then.
+	 * 
+	 * @param parent The parent of the new node.
+	 * @param name The name of the new node.
+	 * @param nodeArgs The arguments of the new node.
+	 * @return The new node.
+	 */
+	public @NonNull DataNode add(@NonNull DataNode parent, @NonNull String name, @NonNull String... nodeArgs) {
+		final List<String> list = new ArrayList<>(nodeArgs.length);
+		Collections.addAll(list, nodeArgs);
+		final DataNode child = new DataNode(name, parent, list, new ArrayList<>(0));
+		add(parent, child);
+		return child;
+	}
+
+
+	/**
+	 * Adds an existing node to the end of a parent's children when the batch is closed, and makes
+	 * the parent its parent.
+	 * 
+	 * @param parent The parent to add the node to.
+	 * @param child The node to add.
+	 */
+	public void add(@NonNull DataNode parent, @NonNull DataNode child) {
+		checkOpen();
+		children.computeIfAbsent(parent, node -> new ArrayList<>()).add(child);
+		size++;
+	}
+
+
+
+	/**
+	 * Adds an argument to the end of a node's arguments when the batch is closed.
+	 * 
+	 * @param node The node to add the argument to.
+	 * @param arg The argument to add.
+	 */
+	public void addArg(@NonNull DataNode node, @NonNull String arg) {
+		checkOpen();
+		args.computeIfAbsent(node, key -> new ArrayList<>()).add(arg);
+		size++;
+	}
+
+
+
+	/**
+	 * Makes every change in the batch. Each list is grown to its final size once, and each changed
+	 * node and its ancestors forget their hash codes once. Closing a batch again does nothing.
+	 */
+	@Override
+	public void close() {
+		if (closed) return;
+		closed = true;
+
+		final Set<DataNode> done = Collections.newSetFromMap(new IdentityHashMap<>());
+		for (Map.Entry<DataNode, List<DataNode>> entry : children.entrySet()) {
+			final DataNode parent = entry.getKey();
+			final List<DataNode> added = entry.getValue();
+			grow(parent.getChildren(), added.size());
+			parent.getChildren().addAll(added);
+			for (DataNode child : added) {
+				if (child.getParent() != parent) child.setParent(parent);
+			}
+			parent.invalidateHash(done);
+		}
+
+		for (Map.Entry<DataNode, List<String>> entry : args.entrySet()) {
+			grow(entry.getKey().getArgs(), entry.getValue().size());
+			entry.getKey().getArgs().addAll(entry.getValue());
+			entry.getKey().dropParentIndex();
+			entry.getKey().invalidateHash(done);
+		}
+
+		children.clear();
+		args.clear();
+		size = 0;
+	}
+
+
+
+	/**
+	 * Throws away every change in the batch without making it, and closes the batch.
+	 */
+	public void discard() {
+		closed = true;
+		children.clear();
+		args.clear();
+		size = 0;
+	}
+
+
+
+	/**
+	 * Makes room in a list for more elements, if it is a list which can be grown ahead of time.
+	 * 
+	 * @param list The list.
+	 * @param extra The number of elements which will be added.
+	 */
+	private static void grow(@NonNull List<?> list, int extra) {
+		if (list instanceof ArrayList) ((ArrayList<?>) list).ensureCapacity(list.size() + extra);
+	}
+
+
+
+	/**
+	 * Checks that the batch can still be changed.
+	 * 
+	 * @throws IllegalStateException If the batch has been closed or discarded.
+	 */
+	private void checkOpen() {
+		if (closed) throw new IllegalStateException("Batch has already been closed");
+	}
+
+
+
+	// MARK: Getters
+	/**
+	 * Getter: Returns the node the batch was started from.
+	 * 
+	 * @return {@link #root}
+	 */
+	public @NonNull DataNode getRoot() {
+		return root;
+	}
+
+	/**
+	 * Getter: Returns the number of changes waiting to be made.
+	 * 
+	 * @return {@link #size}
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	/**
+	 * Getter: Returns whether the batch has been closed or discarded.
+	 * 
+	 * @return {@link #closed}
+	 */
+	public boolean isClosed() {
+		return closed;
+	}
+}
@@ -0,0 +1,588 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.RecordComponent;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.jspecify.annotations.*;
+
+/**
+ * Builds objects from nodes, filling each record component or field marked with {@link NodeArg}
+ * or {@link NodeChild}:
+ * 
+ * <pre>
+ * record Ship(
+ *     &#64;NodeArg(0) String name,
+ *     &#64;NodeChild("mass") int mass,
+ *     &#64;NodeChild("drag") double drag,
+ *     &#64;NodeChild("weapon") List&lt;Weapon&gt; weapons
+ * ) { }
+ * 
+ * Ship ship = NodeBinder.of(Ship.class).bind(node);
+ * </pre>
+ * 
+ * The annotations of each class are read once, the first time a binder is needed for it, and
+ * turned into method handles for its constructor and fields. Binding a node then walks its
+ * children once, so building an object costs about as much as building it by hand.
+ * 
+ * Records are created through their canonical constructor, with unannotated components left as
+ * {@code null} or zero. Any other class needs a constructor with no parameters and at least one
+ * annotated field, and only its own annotated fields are set, which must not be final; fields
+ * with no matching child keep whatever value the constructor gave them. Classes in a named module
+ * must open their package to this one. The classes of objects bound from children are checked
+ * along with the class that holds them.
+ * 
+ * @param <T> The class of object built.
+ */
+public final class NodeBinder<T> {
+	// MARK: Constants
+	/** The binder for each class, created the first time it is needed. */
+	private static final ClassValue<NodeBinder<?>> BINDERS = new ClassValue<>() {
+		@Override
+		protected NodeBinder<?> computeValue(Class<?> type) {
+			BUILDING.get().add(type);
+			try {
+				return new NodeBinder<>(type);
+			} finally {
+				BUILDING.get().remove(type);
+			}
+		}
+	};
+
+	/**
+	 * The classes whose binders are being created on this thread. A class which holds itself,
+	 * directly or through other classes, is checked once instead of forever.
+	 */
+	private static final ThreadLocal<Set<Class<?>>> BUILDING = ThreadLocal.withInitial(HashSet::new);
+
+
+
+	// MARK: Fields
+	/** The class of object built. */
+	private final @NonNull Class<T> type;
+
+	/** Every component of a record, or every annotated field of any other class. */
+	private final @NonNull Slot @NonNull [] slots;
+
+	/** The indices of the slots filled from children with each name. */
+	private final @NonNull Map<String, int[]> byName = new HashMap<>();
+
+	/**
+	 * Creates an object: from an array holding every component for a record, or from nothing
+	 * for any other class.
+	 */
+	private final @NonNull MethodHandle create;
+
+	/** Sets the field of each slot, or {@code null} for a record. */
+	private final @NonNull MethodHandle @Nullable [] setters;
+
+
+
+	// MARK: Constructor
+	/**
+	 * Sole constructor. Reads the annotations of a class, and finds its constructor and fields.
+	 * 
+	 * @param type The class of object built.
+	 * @throws IllegalArgumentException If the class cannot be bound.
+	 */
+	private NodeBinder(@NonNull Class<T> type) {
+		this.type = type;
+		if (!type.isRecord() && Arrays.stream(type.getDeclaredFields()).noneMatch(NodeBinder::isAnnotated)) {
+			throw new IllegalArgumentException(
+				String.format("%s cannot be bound, as it is not a record and has no annotated fields", type.getName()));
+		}
+		final MethodHandles.Lookup lookup = lookupIn(type);
+		final List<Slot> found = new ArrayList<>();
+
+		if (type.isRecord()) {
+			final RecordComponent[] components = type.getRecordComponents();
+			final Class<?>[] parameters = new Class<?>[components.length];
+			for (int i = 0; i < components.length; i++) {
+				final RecordComponent component = components[i];
+				parameters[i] = component.getType();
+				found.add(Slot.of(component.getName(), component.getType(), component.getGenericType(),
+					component.getAnnotation(NodeArg.class), component.getAnnotation(NodeChild.class)));
+			}
+			this.create = constructor(lookup, type, parameters)
+				.asSpreader(Object[].class, parameters.length)
+				.asType(MethodType.methodType(Object.class, Object[].class));
+			this.setters = null;
+		} else {
+			final List<MethodHandle> handles = new ArrayList<>();
+			for (Field field : type.getDeclaredFields()) {
+				final NodeArg arg = field.getAnnotation(NodeArg.class);
+				final NodeChild child = field.getAnnotation(NodeChild.class);
+				if (Modifier.isStatic(field.getModifiers()) || (arg == null && child == null)) continue;
+				found.add(Slot.of(field.getName(), field.getType(), field.getGenericType(), arg, child));
+				handles.add(setter(lookup, field));
+			}
+			this.create = constructor(lookup, type).asType(MethodType.methodType(Object.class));
+			this.setters = handles.toArray(new MethodHandle[0]);
+		}
+
+		this.slots = found.toArray(new Slot[0]);
+		for (int i = 0; i < slots.length; i++) {
+			slots[i].check();
+			final String name = slots[i].child;
+			if (name == null) continue;
+			final int[] before = byName.getOrDefault(name, new int[0]);
+			final int[] after = Arrays.copyOf(before, before.length + 1);
+			after[before.length] = i;
+			byName.put(name, after);
+		}
+	}
+
+
+
+	// MARK: Methods
+	/**
+	 * Gets the binder for a class, reading its annotations if this is the first time.
+	 * 
+	 * @param <T> The class of object built.
+	 * @param type The class of object built.
+	 * @return The binder.
+	 * @throws IllegalArgumentException If the class cannot be bound, such as if an annotated
+	 * component has an unsupported type, or the class or a class bound from one of its children
+	 * has no suitable constructor.
+	 */
+	@SuppressWarnings("unchecked")
+	public static <T> @NonNull NodeBinder<T> of(@NonNull Class<T> type) {
+		return (NodeBinder<T>) BINDERS.get(type);
+	}
+
+
+
+	/**
+	 * Builds an object from a node.
+	 * 
+	 * @param node The node to build the object from.
+	 * @return The object.
+	 * @throws BuilderException If an argument is missing or cannot be converted, or if the
+	 * object's constructor throws an exception.
+	 */
+	public @NonNull T bind(@NonNull DataNode node) throws BuilderException {
+		final Object[] values = new Object[slots.length];
+		for (int i = 0; i < slots.length; i++) {
+			if (slots[i].kind != null && slots[i].child == null) values[i] = slots[i].convert(node);
+		}
+
+		if (!byName.isEmpty()) {
+			for (DataNode child : node.getChildren()) {
+				final int[] targets = byName.get(child.getName());
+				if (targets == null) continue;
+				for (int i : targets) {
+					values[i] = slots[i].accept(values[i], child);
+				}
+			}
+		}
+
+		return create(node, values);
+	}
+
+
+
+	/**
+	 * Builds an object from every child of a node with a name, such as every top-level
+	 * {@code ship} in a tree.
+	 * 
+	 * @param parent The node whose children should be bound.
+	 * @param name The name of the children to bind.
+	 * @return The objects, in the same order as the children.
+	 * @throws BuilderException If any child cannot be bound.
+	 */
+	public @NonNull List<T> bindAll(@NonNull DataNode parent, @NonNull String name) throws BuilderException {
+		final List<T> result = new ArrayList<>();
+		for (DataNode child : parent.getChildren()) {
+			if (child.getName().equals(name)) result.add(bind(child));
+		}
+		return result;
+	}
+
+
+
+	/**
+	 * Creates an object from the values found for each slot.
+	 * 
+	 * @param node The node the object is built from, to blame if creating it fails.
+	 * @param values The value found for each slot, or {@code null} if none was found.
+	 * @return The object.
+	 * @throws BuilderException If the object's constructor throws an exception.
+	 */
+	private @NonNull T create(@NonNull DataNode node, @Nullable Object @NonNull [] values) throws BuilderException {
+		try {
+			if (setters == null) {
+				for (int i = 0; i < values.length; i++) {
+					if (values[i] == null) values[i] = slots[i].empty();
+				}
+				return type.cast((Object) create.invokeExact(values));
+			}
+
+			final Object object = (Object) create.invokeExact();
+			for (int i = 0; i < values.length; i++) {
+				if (values[i] != null) setters[i].invokeExact(object, values[i]);
+			}
+			return type.cast(object);
+		} catch (Error e) {
+			throw e;
+		} catch (Throwable e) {
+			final BuilderException wrapped = new BuilderException(
+				String.format("Could not create %s: %s", type.getSimpleName(), e.getMessage()), node);
+			wrapped.initCause(e);
+			throw wrapped;
+		}
+	}
+
+
+
+	/**
+	 * Gets a lookup which can reach the private members of a class.
+	 * 
+	 * @param type The class.
+	 * @return The lookup.
+	 * @throws IllegalArgumentException If the class is in a module which is not open to this one.
+	 */
+	private static MethodHandles.@NonNull Lookup lookupIn(@NonNull Class<?> type) {
+		try {
+			return MethodHandles.privateLookupIn(type, MethodHandles.lookup());
+		} catch (IllegalAccessException e) {
+			throw new IllegalArgumentException(String.format("%s is not open to Weftspace", type.getName()), e);
+		}
+	}
+
+
+
+	/**
+	 * Finds a constructor of a class.
+	 * 
+	 * @param lookup A lookup which can reach the constructor.
+	 * @param type The class.
+	 * @param parameters The types of the constructor's parameters.
+	 * @return A handle to the constructor.
+	 * @throws IllegalArgumentException If there is no such constructor.
+	 */
+	private static @NonNull MethodHandle constructor(
+		MethodHandles.@NonNull Lookup lookup,
+		@NonNull Class<?> type,
+		@NonNull Class<?>... parameters
+	) {
+		try {
+			return lookup.findConstructor(type, MethodType.methodType(void.class, parameters));
+		} catch (NoSuchMethodException | IllegalAccessException e) {
+			throw new IllegalArgumentException(String.format("%s has no constructor to bind with", type.getName()), e);
+		}
+	}
+
+
+
+	/**
+	 * Finds a handle which sets a field, taking the object and the value as plain objects.
+	 * 
+	 * @param lookup A lookup which can reach the field.
+	 * @param field The field.
+	 * @return A handle which sets the field.
+	 * @throws IllegalArgumentException If the field is final.
+	 */
+	private static @NonNull MethodHandle setter(MethodHandles.@NonNull Lookup lookup, @NonNull Field field) {
+		if (Modifier.isFinal(field.getModifiers())) {
+			throw new IllegalArgumentException(
+				String.format("Field %s cannot be bound, as it is final", field.getName()));
+		}
+		try {
+			return lookup.unreflectSetter(field).asType(MethodType.methodType(void.class, Object.class, Object.class));
+		} catch (IllegalAccessException e) {
+			throw new IllegalArgumentException(String.format("Field %s cannot be set", field.getName()), e);
+		}
+	}
+
+
+
+	/**
+	 * Checks whether a field is marked to be bound.
+	 * 
+	 * @param field The field.
+	 * @return {@code true} if the field is not static, and has a {@link NodeArg} or {@link NodeChild}
+	 * annotation.
+	 */
+	private static boolean isAnnotated(@NonNull Field field) {
+		return !Modifier.isStatic(field.getModifiers())
+			&& (field.isAnnotationPresent(NodeArg.class) || field.isAnnotationPresent(NodeChild.class));
+	}
+
+
+
+	// MARK: Getters
+	/**
+	 * Getter: Returns the class of object built.
+	 * 
+	 * @return {@link #type}
+	 */
+	public @NonNull Class<T> getType() {
+		return type;
+	}
+
+
+
+	// MARK: Nested Types
+	/**
+	 * The kinds of value a slot can hold.
+	 */
+	private static enum Kind {
+		/** A string argument. */
+		STRING,
+		/** An integer argument. */
+		INT,
+		/** A long argument. */
+		LONG,
+		/** A double argument. */
+		DOUBLE,
+		/** Whether a child exists. */
+		BOOLEAN,
+		/** The child node itself. */
+		NODE,
+		/** An object bound from the child. */
+		OBJECT;
+
+		/** The kind of each class with a kind of its own. */
+		private static final Map<Class<?>, Kind> KINDS = Map.of(
+			String.class, STRING, int.class, INT, Integer.class, INT, long.class, LONG, Long.class, LONG,
+			double.class, DOUBLE, Double.class, DOUBLE, boolean.class, BOOLEAN, Boolean.class, BOOLEAN,
+			DataNode.class, NODE
+		);
+
+		/**
+		 * Finds the kind of value held by a slot of a class.
+		 * 
+		 * @param name The name of the slot, for error messages.
+		 * @param type The class of the slot.
+		 * @return The kind of value.
+		 * @throws IllegalArgumentException If values of the class cannot be bound.
+		 */
+		static @NonNull Kind of(@NonNull String name, @NonNull Class<?> type) {
+			final Kind kind = KINDS.get(type);
+			if (kind != null) return kind;
+			if (type.isPrimitive() || type.isArray() || type.isInterface() || type.isEnum()
+				|| Modifier.isAbstract(type.getModifiers())) {
+				throw new IllegalArgumentException(String.format("%s has a type which cannot be bound", name));
+			}
+			return OBJECT;
+		}
+	}
+
+
+
+	/**
+	 * A record component or field, and how to fill it.
+	 */
+	private static final class Slot {
+		// MARK: Fields
+		/** The name of the component or field, for error messages. */
+		private final @NonNull String name;
+
+		/** The name of the child this slot is filled from, or {@code null} if it is filled from an argument. */
+		private final @Nullable String child;
+
+		/** The index of the argument this slot is built from. */
+		private final int arg;
+
+		/** Whether this slot is a list filled from every child with its name. */
+		private final boolean many;
+
+		/** The kind of value held, or {@code null} if the slot is not annotated. */
+		private final @Nullable Kind kind;
+
+		/** The class of value held, or of each element of a list. */
+		private final @NonNull Class<?> target;
+
+		/** The value used if nothing is found: zero for primitives, and otherwise {@code null}. */
+		private final @Nullable Object empty;
+
+
+
+		// MARK: Constructor
+		/**
+		 * Sole constructor.
+		 * 
+		 * @param name The name of the component or field.
+		 * @param child The name of the child this slot is filled from, or {@code null}.
+		 * @param arg The index of the argument this slot is built from.
+		 * @param many Whether this slot is a list.
+		 * @param kind The kind of value held, or {@code null} if the slot is not annotated.
+		 * @param target The class of value held, or of each element of a list.
+		 * @param empty The value used if nothing is found.
+		 */
+		Slot(
+			@NonNull String name,
+			@Nullable String child,
+			int arg,
+			boolean many,
+			@Nullable Kind kind,
+			@NonNull Class<?> target,
+			@Nullable Object empty
+		) {
+			this.name = name;
+			this.child = child;
+			this.arg = arg;
+			this.many = many;
+			this.kind = kind;
+			this.target = target;
+			this.empty = empty;
+		}
+
+
+
+		// MARK: Methods
+		/**
+		 * Reads how a component or field should be filled.
+		 * 
+		 * @param name The name of the component or field.
+		 * @param declared The declared class of the component or field.
+		 * @param generic The declared type of the component or field, including any type arguments.
+		 * @param arg The argument annotation, if there is one.
+		 * @param child The child annotation, if there is one.
+		 * @return The slot.
+		 * @throws IllegalArgumentException If the annotations cannot be applied to the component or field.
+		 */
+		static @NonNull Slot of(
+			@NonNull String name,
+			@NonNull Class<?> declared,
+			@NonNull Type generic,
+			@Nullable NodeArg arg,
+			@Nullable NodeChild child
+		) {
+			final Object empty = declared.isPrimitive() ? Array.get(Array.newInstance(declared, 1), 0) : null;
+			if (arg == null && child == null) return new Slot(name, null, 0, false, null, declared, empty);
+			if (arg != null && child != null) {
+				throw new IllegalArgumentException(
+					String.format("%s cannot be bound to both an argument and a child", name));
+			}
+
+			final boolean many = declared == List.class;
+			final Class<?> target = many ? elementOf(name, generic) : declared;
+			final Kind kind = Kind.of(name, target);
+			if (arg != null) {
+				if (many || kind == Kind.BOOLEAN || kind == Kind.NODE || kind == Kind.OBJECT) {
+					throw new IllegalArgumentException(String.format("%s cannot be bound to an argument", name));
+				}
+				return new Slot(name, null, arg.value(), false, kind, target, empty);
+			}
+			if (many && kind == Kind.BOOLEAN) {
+				throw new IllegalArgumentException(String.format("%s cannot be a list of flags", name));
+			}
+			return new Slot(name, child.value(), child.arg(), many, kind, target, empty);
+		}
+
+
+
+		/**
+		 * Finds the class of the elements of a list.
+		 * 
+		 * @param name The name of the component or field, for error messages.
+		 * @param generic The declared type of the list.
+		 * @return The class of the elements.
+		 * @throws IllegalArgumentException If the list does not have a plain class as its element type.
+		 */
+		private static @NonNull Class<?> elementOf(@NonNull String name, @NonNull Type generic) {
+			if (generic instanceof ParameterizedType parameterized
+				&& parameterized.getActualTypeArguments()[0] instanceof Class<?> element) {
+				return element;
+			}
+			throw new IllegalArgumentException(String.format("%s must be a list of a specific class", name));
+		}
+
+
+
+		/**
+		 * Checks that objects held by this slot can be bound, so that a class which cannot be
+		 * bound is found when the binder is created rather than when a node is first bound.
+		 * 
+		 * @throws IllegalArgumentException If this slot holds objects of a class which cannot be bound.
+		 */
+		void check() {
+			if (kind != Kind.OBJECT || BUILDING.get().contains(target)) return;
+			try {
+				NodeBinder.of(target);
+			} catch (IllegalArgumentException e) {
+				throw new IllegalArgumentException(
+					String.format("%s has a type which cannot be bound: %s", name, e.getMessage()), e);
+			}
+		}
+
+
+
+		/**
+		 * Converts a node to the value held by this slot.
+		 * 
+		 * @param node The node being bound, or the child this slot is filled from.
+		 * @return The value.
+		 * @throws BuilderException If the argument is missing or cannot be converted.
+		 */
+		@NonNull Object convert(@NonNull DataNode node) throws BuilderException {
+			return switch (kind) {
+				case STRING -> Builder.buildString(node, arg);
+				case INT -> Builder.buildInt(node, arg);
+				case LONG -> Builder.buildLong(node, arg);
+				case DOUBLE -> Builder.buildDouble(node, arg);
+				case BOOLEAN -> Boolean.TRUE;
+				case NODE -> node;
+				default -> NodeBinder.of(target).bind(node);
+			};
+		}
+
+
+
+		/**
+		 * Fills this slot from a child with its name.
+		 * 
+		 * @param current The value found so far, or {@code null} if nothing has been found.
+		 * @param node The child.
+		 * @return The new value: the current value with the child added for a list, otherwise
+		 * the current value if there is one, or the child's value if not.
+		 * @throws BuilderException If the child cannot be converted.
+		 */
+		@SuppressWarnings("unchecked")
+		@NonNull Object accept(@Nullable Object current, @NonNull DataNode node) throws BuilderException {
+			if (!many) return current == null ? convert(node) : current;
+
+			final List<Object> list = current == null ? new ArrayList<>() : (List<Object>) current;
+			list.add(convert(node));
+			return list;
+		}
+
+
+
+		/**
+		 * Gets the value used for a record component if nothing is found.
+		 * 
+		 * @return An empty list for a list, zero for a primitive, and otherwise {@code null}.
+		 */
+		@Nullable Object empty() {
+			return many ? new ArrayList<>() : empty;
+		}
+	}
+}
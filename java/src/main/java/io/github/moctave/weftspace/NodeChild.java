@@ -0,0 +1,55 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a record component or field which {@link NodeBinder} fills from a child of the node being
+ * bound, such as the mass in {@code mass 300}. What is taken from the child depends on the type:
+ * 
+ * <ul>
+ * <li>A {@code String}, {@code int}, {@code long} or {@code double}, or a boxed number, is built
+ * from one of the child's arguments.</li>
+ * <li>A {@code boolean} is {@code true} if there is such a child, for flags like {@code "unique"}.</li>
+ * <li>A {@link DataNode} is the child itself.</li>
+ * <li>Any other class is bound from the child by its own {@link NodeBinder}.</li>
+ * <li>A {@link java.util.List} of any of these is filled from every child with the name, in order.</li>
+ * </ul>
+ * 
+ * Otherwise, only the first child with the name is used. If there is none, the component is left
+ * as {@code null}, zero or {@code false}, or an empty list.
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.RECORD_COMPONENT})
+public @interface NodeChild {
+	/**
+	 * The name of the child.
+	 * 
+	 * @return The name of the child.
+	 */
+	String value();
+
+	/**
+	 * The index of the child's argument to build, for strings and numbers.
+	 * 
+	 * @return The index of the argument, starting from 0.
+	 */
+	int arg() default 0;
+}
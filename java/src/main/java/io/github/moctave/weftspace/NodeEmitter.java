@@ -0,0 +1,221 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.jspecify.annotations.*;
+
+/**
+ * A class which reads lines from a {@link LineScanner} and works out where each node
+ * starts and ends, passing them on to a {@link NodeHandler}.
+ * 
+ * Only the indentation of the nodes which are currently open is remembered, so memory use
+ * depends on how deeply nodes are nested rather than on how many there are.
+ */
+final class NodeEmitter {
+	// MARK: Fields
+	/** The scanner lines are read from. */
+	private final @NonNull LineScanner scanner;
+
+	/** The handler nodes are passed to. */
+	private final @NonNull NodeHandler handler;
+
+	/** The path of the file being read, for warning messages. */
+	private final @NonNull String path;
+
+	/** A reusable list to hold the tokens of each line. */
+	private final @NonNull List<String> tokens = new ArrayList<>();
+
+	/** The indentation of each level of open parent nodes, starting with the root at 0. */
+	private int @NonNull [] indentDepths = new int[16];
+
+	/** The index of the innermost open parent node in {@link #indentDepths}. */
+	private int depth;
+
+	/** Whether the most recent line started a node which has not yet ended. */
+	private boolean currentOpen;
+
+	/** The first indentation string seen, which all others are expected to match. */
+	private @Nullable String expectedIndentString;
+
+	/** Every distinct indentation string used to nest one node inside another. */
+	private final @NonNull List<String> indentStrings = new ArrayList<>(1);
+
+
+
+	// MARK: Constructor
+	/**
+	 * Sole constructor.
+	 * 
+	 * @param scanner The scanner lines are read from.
+	 * @param handler The handler nodes are passed to.
+	 * @param path The path of the file being read, for warning messages.
+	 */
+	NodeEmitter(@NonNull LineScanner scanner, @NonNull NodeHandler handler, @NonNull String path) {
+		this.scanner = scanner;
+		this.handler = handler;
+		this.path = path;
+	}
+
+
+
+	// MARK: Methods
+	/**
+	 * Reads every remaining line and then ends all open nodes.
+	 * 
+	 * @throws IOException If the scanner cannot read from its channel.
+	 */
+	void emitAll() throws IOException {
+		while (scanner.next()) {
+			emitLine();
+		}
+		finish();
+	}
+
+
+
+	/**
+	 * Reads a single significant line, ending any nodes it closes and starting the node it holds.
+	 * 
+	 * @return {@code true} if a line was read, or {@code false} if there are none left.
+	 * @throws IOException If the scanner cannot read from its channel.
+	 */
+	boolean step() throws IOException {
+		if (!scanner.next()) return false;
+		emitLine();
+		return true;
+	}
+
+
+
+	/**
+	 * Ends any nodes closed by the current line of the scanner, and starts the node it holds.
+	 */
+	private void emitLine() {
+		final int indent = scanner.indent();
+		final int parentIndent = indentDepths[depth];
+		if (expectedIndentString == null && indent > parentIndent) {
+			expectedIndentString = scanner.indentSubstring(parentIndent);
+		}
+
+		if (indent > parentIndent && currentOpen) {
+			// The current node becomes a parent.
+			if (!isKnownIndent(parentIndent)) {
+				indentStrings.add(scanner.indentSubstring(parentIndent));
+			}
+			depth++;
+			if (depth == indentDepths.length) {
+				indentDepths = Arrays.copyOf(indentDepths, depth * 2);
+			}
+			indentDepths[depth] = indent;
+		} else {
+			if (currentOpen) handler.endNode();
+			while (indentDepths[depth] > indent) {
+				handler.endNode();
+				depth--;
+			}
+		}
+
+		tokens.clear();
+		scanner.tokenize(tokens);
+		currentOpen = !tokens.isEmpty();
+		if (currentOpen) {
+			// The first entry is the node name, everything else is args.
+			handler.startNode(
+				tokens.get(0),
+				DataReader.argsOf(tokens),
+				scanner.getLineNumber()
+			);
+		}
+	}
+
+
+
+	/**
+	 * Ends every node which is still open, and reports any warnings.
+	 */
+	void finish() {
+		if (currentOpen) handler.endNode();
+		currentOpen = false;
+		while (depth > 0) {
+			handler.endNode();
+			depth--;
+		}
+
+		if (isMixed(expectedIndentString, indentStrings)) {
+			handler.warning(String.format(
+				"Warning - mixed whitespace in file %s (parsing completed with issue)", path));
+		}
+	}
+
+
+
+	/**
+	 * Checks whether the indentation of the current line of the scanner has been used before.
+	 * 
+	 * @param parentIndent The indentation of the parent of the current line.
+	 * @return {@code true} if the indentation is already in {@link #indentStrings}.
+	 */
+	private boolean isKnownIndent(int parentIndent) {
+		for (String indentString : indentStrings) {
+			if (scanner.indentMatches(parentIndent, indentString)) return true;
+		}
+		return false;
+	}
+
+
+
+	/**
+	 * Checks whether a file mixes tabs and spaces in its indentation.
+	 * 
+	 * @param expected The first indentation string in the file, or {@code null} if nothing was indented.
+	 * @param used Every distinct indentation string used to nest one node inside another.
+	 * @return {@code true} if the expected string mixes tabs and spaces, or if any other
+	 * indentation string was used.
+	 */
+	static boolean isMixed(@Nullable String expected, @NonNull List<String> used) {
+		if (expected == null) return false;
+		if (expected.contains(" ") && expected.contains("\t")) return true;
+
+		for (String indentString : used) {
+			if (!indentString.equals(expected)) return true;
+		}
+		return false;
+	}
+
+
+
+	// MARK: Getters
+	/**
+	 * Getter: Returns the first indentation string read.
+	 * 
+	 * @return {@link #expectedIndentString}
+	 */
+	@Nullable String getExpectedIndentString() {
+		return expectedIndentString;
+	}
+
+	/**
+	 * Getter: Returns every distinct indentation string used to nest one node inside another.
+	 * 
+	 * @return {@link #indentStrings}
+	 */
+	@NonNull List<String> getIndentStrings() {
+		return indentStrings;
+	}
+}
@@ -0,0 +1,401 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.jspecify.annotations.*;
+
+/**
+ * Reads many values from the children of a node in a single pass over them. Each value is
+ * declared once, and given a slot number, which is then used to read it from a {@link Result}:
+ * 
+ * <pre>
+ * NodeExtractor extractor = new NodeExtractor();
+ * int mass = extractor.add("mass", NodeExtractor.Type.INT);
+ * int drag = extractor.add("drag", NodeExtractor.Type.DOUBLE);
+ * NodeExtractor.Result result = extractor.newResult();
+ * 
+ * for (DataNode ship : root.getChildrenNamed("ship")) {
+ *     extractor.extract(ship, result);
+ *     setMass(result.getInt(mass));
+ *     setDrag(result.getDouble(drag, 1.));
+ * }
+ * </pre>
+ * 
+ * Each child is looked up by name in a table built as values are declared, so a node is only
+ * walked once however many values are read from it, and walking stops as soon as every value
+ * has been found. As with {@link DataNode#findChild(String)}, only the first child with each name
+ * is used. A result can be reused for any number of nodes without allocating anything.
+ * 
+ * Extractors can be shared between threads once every value has been declared, but each thread
+ * needs its own result.
+ */
+public final class NodeExtractor {
+	// MARK: Fields
+	/** Every value declared, in slot order. */
+	private final @NonNull List<Slot> slots = new ArrayList<>();
+
+	/** The slots filled from children with each name. */
+	private final @NonNull Map<String, int[]> byName = new HashMap<>();
+
+
+
+	// MARK: Methods
+	/**
+	 * Declares a value built from the first argument of the first child with a name.
+	 * 
+	 * @param name The name of the child.
+	 * @param type The type of value to build.
+	 * @return The slot number of the value.
+	 */
+	public int add(@NonNull String name, @NonNull Type type) {
+		return add(name, 0, type);
+	}
+
+
+	/**
+	 * Declares a value built from an argument of the first child with a name. Several values
+	 * can be built from the same child, such as both coordinates of {@code position 10 -20}.
+	 * 
+	 * @param name The name of the child.
+	 * @param arg The index of the argument to build.
+	 * @param type The type of value to build.
+	 * @return The slot number of the value.
+	 */
+	public int add(@NonNull String name, int arg, @NonNull Type type) {
+		final int slot = slots.size();
+		slots.add(new Slot(arg, type));
+
+		final int[] before = byName.get(name);
+		final int[] after = before == null ? new int[1] : Arrays.copyOf(before, before.length + 1);
+		after[after.length - 1] = slot;
+		byName.put(name, after);
+		return slot;
+	}
+
+
+
+	/**
+	 * Creates a result with room for every value declared so far.
+	 * 
+	 * @return The result.
+	 */
+	public @NonNull Result newResult() {
+		return new Result(slots.size());
+	}
+
+
+
+	/**
+	 * Reads every declared value from the children of a node into a new result.
+	 * 
+	 * @param node The node whose children should be read.
+	 * @return The result.
+	 * @throws BuilderException If a child is missing an argument, or its argument cannot be converted.
+	 */
+	public @NonNull Result extract(@NonNull DataNode node) throws BuilderException {
+		final Result result = newResult();
+		extract(node, result);
+		return result;
+	}
+
+
+	/**
+	 * Reads every declared value from the children of a node into a result, replacing whatever
+	 * it held before.
+	 * 
+	 * @param node The node whose children should be read.
+	 * @param result The result to fill.
+	 * @throws BuilderException If a child is missing an argument, or its argument cannot be converted.
+	 */
+	public void extract(@NonNull DataNode node, @NonNull Result result) throws BuilderException {
+		final int count = slots.size();
+		result.reset(count);
+
+		int found = 0;
+		for (DataNode child : node.getChildren()) {
+			final int[] targets = byName.get(child.getName());
+			if (targets == null) continue;
+			for (int slot : targets) {
+				if (result.has(slot)) continue;
+				slots.get(slot).fill(child, result, slot);
+				found++;
+			}
+			if (found == count) return;
+		}
+	}
+
+
+
+	// MARK: Getters
+	/**
+	 * Getter: Returns the number of values declared.
+	 * 
+	 * @return The number of slots.
+	 */
+	public int getSize() {
+		return slots.size();
+	}
+
+
+
+	// MARK: Nested Types
+	/**
+	 * The types of value which can be read from a child.
+	 */
+	public static enum Type {
+		/** An argument, as a string. */
+		STRING,
+
+		/** An argument, as an integer. */
+		INT,
+
+		/** An argument, as a long int. */
+		LONG,
+
+		/** An argument, as a double. */
+		DOUBLE,
+
+		/** Only whether the child exists. The child itself can be read with {@link Result#getChild(int)}. */
+		CHILD
+	}
+
+
+
+	/**
+	 * The values read from one node, reused from node to node.
+	 */
+	public static final class Result {
+		// MARK: Fields
+		/** The whole numbers read, by slot. */
+		private long @NonNull [] longs;
+
+		/** The decimal numbers read, by slot. */
+		private double @NonNull [] doubles;
+
+		/** The strings read, by slot. */
+		private @Nullable String @NonNull [] strings;
+
+		/** The child each value was read from, by slot. */
+		private @Nullable DataNode @NonNull [] children;
+
+		/** The extraction each slot was last filled by, so that slots never need to be cleared. */
+		private int @NonNull [] filled;
+
+		/**
+		 * The number of the current extraction. This starts at 1, so that slots which have never
+		 * been filled are never counted as filled by it.
+		 */
+		private int extraction = 1;
+
+
+
+		// MARK: Constructor
+		/**
+		 * Sole constructor.
+		 * 
+		 * @param size The number of slots.
+		 */
+		Result(int size) {
+			this.longs = new long[size];
+			this.doubles = new double[size];
+			this.strings = new String[size];
+			this.children = new DataNode[size];
+			this.filled = new int[size];
+		}
+
+
+
+		// MARK: Methods
+		/**
+		 * Empties every slot, and makes sure there are enough of them.
+		 * 
+		 * @param size The number of slots needed.
+		 */
+		void reset(int size) {
+			if (filled.length < size) {
+				longs = Arrays.copyOf(longs, size);
+				doubles = Arrays.copyOf(doubles, size);
+				strings = Arrays.copyOf(strings, size);
+				children = Arrays.copyOf(children, size);
+				filled = Arrays.copyOf(filled, size);
+			}
+			if (++extraction == 0) {
+				// After billions of extractions, start counting again from a clean slate.
+				Arrays.fill(filled, 0);
+				extraction = 1;
+			}
+		}
+
+
+
+		/**
+		 * Records that a slot was filled from a child.
+		 * 
+		 * @param slot The slot number.
+		 * @param child The child the value was read from.
+		 */
+		void mark(int slot, @NonNull DataNode child) {
+			children[slot] = child;
+			filled[slot] = extraction;
+		}
+
+
+
+		/**
+		 * Checks whether a value was found.
+		 * 
+		 * @param slot The slot number of the value.
+		 * @return {@code true} if there was a child to read the value from.
+		 */
+		public boolean has(int slot) {
+			return slot < filled.length && filled[slot] == extraction;
+		}
+
+
+
+		// MARK: Getters
+		/**
+		 * Getter: Returns an integer value.
+		 * 
+		 * @param slot The slot number of the value.
+		 * @return The value, or 0 if it was not found.
+		 */
+		public int getInt(int slot) {
+			return has(slot) ? (int) longs[slot] : 0;
+		}
+
+		/**
+		 * Getter: Returns an integer value, or a fallback if it was not found.
+		 * 
+		 * @param slot The slot number of the value.
+		 * @param fallback The value to return if it was not found.
+		 * @return The value, or the fallback.
+		 */
+		public int getInt(int slot, int fallback) {
+			return has(slot) ? (int) longs[slot] : fallback;
+		}
+
+
+		/**
+		 * Getter: Returns a long int value.
+		 * 
+		 * @param slot The slot number of the value.
+		 * @return The value, or 0 if it was not found.
+		 */
+		public long getLong(int slot) {
+			return has(slot) ? longs[slot] : 0;
+		}
+
+		/**
+		 * Getter: Returns a long int value, or a fallback if it was not found.
+		 * 
+		 * @param slot The slot number of the value.
+		 * @param fallback The value to return if it was not found.
+		 * @return The value, or the fallback.
+		 */
+		public long getLong(int slot, long fallback) {
+			return has(slot) ? longs[slot] : fallback;
+		}
+
+
+		/**
+		 * Getter: Returns a double value.
+		 * 
+		 * @param slot The slot number of the value.
+		 * @return The value, or 0 if it was not found.
+		 */
+		public double getDouble(int slot) {
+			return has(slot) ? doubles[slot] : 0.;
+		}
+
+		/**
+		 * Getter: Returns a double value, or a fallback if it was not found.
+		 * 
+		 * @param slot The slot number of the value.
+		 * @param fallback The value to return if it was not found.
+		 * @return The value, or the fallback.
+		 */
+		public double getDouble(int slot, double fallback) {
+			return has(slot) ? doubles[slot] : fallback;
+		}
+
+
+		/**
+		 * Getter: Returns a string value.
+		 * 
+		 * @param slot The slot number of the value.
+		 * @return The value, or {@code null} if it was not found.
+		 */
+		public @Nullable String getString(int slot) {
+			return has(slot) ? strings[slot] : null;
+		}
+
+		/**
+		 * Getter: Returns a string value, or a fallback if it was not found.
+		 * 
+		 * @param slot The slot number of the value.
+		 * @param fallback The value to return if it was not found.
+		 * @return The value, or the fallback.
+		 */
+		public @NonNull String getString(int slot, @NonNull String fallback) {
+			return has(slot) ? strings[slot] : fallback;
+		}
+
+
+		/**
+		 * Getter: Returns the child a value was read from, such as to report a problem with it.
+		 * 
+		 * @param slot The slot number of the value.
+		 * @return The child, or {@code null} if it was not found.
+		 */
+		public @Nullable DataNode getChild(int slot) {
+			return has(slot) ? children[slot] : null;
+		}
+	}
+
+
+
+	/**
+	 * A declared value.
+	 * 
+	 * @param arg The index of the argument to build.
+	 * @param type The type of value to build.
+	 */
+	private static record Slot(int arg, @NonNull Type type) {
+		/**
+		 * Builds this value from a child and stores it in a result.
+		 * 
+		 * @param child The child.
+		 * @param result The result.
+		 * @param slot The slot number of this value.
+		 * @throws BuilderException If the child is missing the argument, or it cannot be converted.
+		 */
+		void fill(@NonNull DataNode child, @NonNull Result result, int slot) throws BuilderException {
+			switch (type) {
+				case STRING -> result.strings[slot] = Builder.buildString(child, arg);
+				case INT -> result.longs[slot] = Builder.buildInt(child, arg);
+				case LONG -> result.longs[slot] = Builder.buildLong(child, arg);
+				case DOUBLE -> result.doubles[slot] = Builder.buildDouble(child, arg);
+				default -> { }
+			}
+			result.mark(slot, child);
+		}
+	}
+}
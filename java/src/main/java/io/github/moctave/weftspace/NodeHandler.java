@@ -0,0 +1,54 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import java.util.List;
+
+import org.jspecify.annotations.*;
+
+/**
+ * A callback interface which receives nodes from {@link DataReader#stream(NodeHandler)}
+ * one at a time, as they are read, instead of having them stored in a tree.
+ * 
+ * Every call to {@link #startNode(String, List, int)} is eventually matched by a call to
+ * {@link #endNode()}. Any nodes started in between are children of that node, so a handler
+ * only needs to remember as much about the tree as it wants to.
+ */
+public interface NodeHandler {
+	/**
+	 * Called when a node is read.
+	 * 
+	 * @param name The name of the node.
+	 * @param args The arguments of the node. This list is newly created for each node,
+	 * so the handler is free to keep or modify it.
+	 * @param line The line the node was read from.
+	 */
+	void startNode(@NonNull String name, @NonNull List<String> args, int line);
+
+	/**
+	 * Called when the most recently started node which has not yet ended, and all of its
+	 * children, have been read.
+	 */
+	void endNode();
+
+	/**
+	 * Called when there is a problem with the file which does not stop it from being read,
+	 * such as mixed whitespace. By default, warnings are ignored.
+	 * 
+	 * @param message A description of the problem.
+	 */
+	default void warning(@NonNull String message) {
+		// Warnings are not important to every handler.
+	}
+}
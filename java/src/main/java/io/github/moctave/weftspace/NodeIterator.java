@@ -0,0 +1,132 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import org.jspecify.annotations.*;
+
+/**
+ * An iterator which reads a file one top-level node at a time, created by
+ * {@link DataReader#nodeIterator()}.
+ * 
+ * Each node is returned fully built, with all its children, but without a parent. Nodes are
+ * only read as they are asked for, so no more than one top-level node is held in memory at once.
+ */
+public final class NodeIterator implements Iterator<DataNode>, Closeable {
+	// MARK: Fields
+	/** The scanner lines are read from. */
+	private final @NonNull LineScanner scanner;
+
+	/** The emitter which splits lines into nodes. */
+	private final @NonNull NodeEmitter emitter;
+
+	/** The builder which assembles nodes into complete top-level nodes. */
+	private final @NonNull TreeBuilder builder;
+
+	/** Whether every line has been read. */
+	private boolean exhausted;
+
+
+
+	// MARK: Constructor
+	/**
+	 * Sole constructor.
+	 * 
+	 * @param scanner The scanner to read lines from.
+	 * @param file The file being read.
+	 * @param cacheNumbers Whether arguments which look like numbers are parsed as soon as each node is created.
+	 */
+	NodeIterator(@NonNull LineScanner scanner, @NonNull File file, boolean cacheNumbers) {
+		this.scanner = scanner;
+		this.builder = new TreeBuilder(null, file);
+		builder.setCacheNumbers(cacheNumbers);
+		this.emitter = new NodeEmitter(scanner, builder, file.getPath());
+	}
+
+
+
+	// MARK: Methods
+	/**
+	 * Checks whether there is another top-level node, reading ahead until one is complete.
+	 * 
+	 * @return {@code true} if there is another node.
+	 * @throws UncheckedIOException If the file cannot be read.
+	 */
+	@Override
+	public boolean hasNext() {
+		try {
+			while (!builder.hasFinished() && !exhausted) {
+				if (!emitter.step()) {
+					emitter.finish();
+					exhausted = true;
+					scanner.close();
+				}
+			}
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+		return builder.hasFinished();
+	}
+
+
+
+	/**
+	 * Reads the next top-level node.
+	 * 
+	 * @return The node, with all of its children.
+	 * @throws NoSuchElementException If there are no more nodes.
+	 * @throws UncheckedIOException If the file cannot be read.
+	 */
+	@Override
+	public @NonNull DataNode next() {
+		if (!hasNext()) throw new NoSuchElementException();
+		return builder.pollFinished();
+	}
+
+
+
+	/**
+	 * Closes the file, if it is still open.
+	 * 
+	 * @throws UncheckedIOException If the file cannot be closed.
+	 */
+	@Override
+	public void close() {
+		exhausted = true;
+		try {
+			scanner.close();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+
+
+	// MARK: Getters
+	/**
+	 * Getter: Returns the warning produced while reading the file, such as mixed whitespace.
+	 * This is only known once every node has been read.
+	 * 
+	 * @return The warning, or {@code null} if there is none.
+	 */
+	public @Nullable String getWarning() {
+		return builder.getWarning();
+	}
+}
@@ -0,0 +1,489 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+
+import org.jspecify.annotations.*;
+
+/**
+ * A compiled path expression which finds nodes in a tree.
+ * 
+ * An expression is a list of steps separated by {@code /}, each of which matches children of
+ * the nodes matched by the step before it. The first step matches children of the node the
+ * query is run on. Steps are written like lines in a data file: a name, optionally followed by
+ * arguments, with quotes around anything containing spaces. For example:
+ * 
+ * <pre>
+ * ship "Kestrel"/weapon/"hull damage"
+ * </pre>
+ * 
+ * <ul>
+ * <li>A bare {@code *} in place of the name or an argument matches anything.</li>
+ * <li>A node matches a step if its name matches and its first arguments match the step's
+ * arguments. It may have more arguments than the step.</li>
+ * <li>A step written after {@code //} instead of {@code /} matches descendants at any depth,
+ * rather than only children.</li>
+ * <li>A step ending in {@code [n]} only matches the {@code n}th matching node, counting from 0.</li>
+ * </ul>
+ * 
+ * Compiled queries are immutable, so they can be shared between threads and reused on any
+ * number of trees. Use {@link #of(String)} to reuse queries by their expression.
+ */
+public final class NodeQuery {
+	// MARK: Constants
+	/** The largest number of queries kept by {@link #of(String)}. */
+	private static final int CACHE_LIMIT = 1024;
+
+	/** Every query compiled by {@link #of(String)}, keyed by its expression. */
+	private static final @NonNull Map<String, NodeQuery> CACHE = new ConcurrentHashMap<>();
+
+
+
+	// MARK: Fields
+	/** The expression this query was compiled from. */
+	private final @NonNull String expression;
+
+	/** The steps of this query, in order. */
+	private final @NonNull Step @NonNull [] steps;
+
+
+
+	// MARK: Constructor
+	/**
+	 * Sole constructor.
+	 * 
+	 * @param expression The expression this query was compiled from.
+	 * @param steps The steps of this query, in order.
+	 */
+	private NodeQuery(@NonNull String expression, @NonNull Step @NonNull [] steps) {
+		this.expression = expression;
+		this.steps = steps;
+	}
+
+
+
+	// MARK: Methods
+	/**
+	 * Compiles an expression into a query.
+	 * 
+	 * @param expression The expression to compile.
+	 * @return The compiled query.
+	 * @throws IllegalArgumentException If the expression is not valid.
+	 */
+	public static @NonNull NodeQuery compile(@NonNull String expression) {
+		return new NodeQuery(expression, new Parser(expression).parse());
+	}
+
+
+	/**
+	 * Gets a compiled query for an expression, reusing an earlier one if the same
+	 * expression has been compiled by this method before.
+	 * 
+	 * @param expression The expression to compile.
+	 * @return The compiled query.
+	 * @throws IllegalArgumentException If the expression is not valid.
+	 */
+	public static @NonNull NodeQuery of(@NonNull String expression) {
+		final NodeQuery cached = CACHE.get(expression);
+		if (cached != null) return cached;
+
+		final NodeQuery query = compile(expression);
+		if (CACHE.size() < CACHE_LIMIT) CACHE.putIfAbsent(expression, query);
+		return query;
+	}
+
+
+
+	/**
+	 * Visits every node matched by this query, in tree order, until the visitor asks to stop.
+	 * 
+	 * @param root The node whose children the first step should match.
+	 * @param visitor A function which is given each match, and returns {@code false} to stop.
+	 * @return {@code true} if every match was visited, or {@code false} if the visitor stopped early.
+	 */
+	public boolean visit(@NonNull DataNode root, @NonNull Predicate<DataNode> visitor) {
+		return visitStep(root, 0, visitor);
+	}
+
+
+	/**
+	 * Runs an action on every node matched by this query, in tree order.
+	 * 
+	 * @param root The node whose children the first step should match.
+	 * @param action The action to run.
+	 */
+	public void forEach(@NonNull DataNode root, @NonNull Consumer<DataNode> action) {
+		visit(root, node -> {
+			action.accept(node);
+			return true;
+		});
+	}
+
+
+	/**
+	 * Finds the first node matched by this query, without looking for any others.
+	 * 
+	 * @param root The node whose children the first step should match.
+	 * @return The first match, or {@code null} if there are none.
+	 */
+	public @Nullable DataNode first(@NonNull DataNode root) {
+		final DataNode[] found = new DataNode[1];
+		visit(root, node -> {
+			found[0] = node;
+			return false;
+		});
+		return found[0];
+	}
+
+
+	/**
+	 * Finds every node matched by this query.
+	 * 
+	 * @param root The node whose children the first step should match.
+	 * @return Every match, in tree order.
+	 */
+	public @NonNull List<DataNode> all(@NonNull DataNode root) {
+		final List<DataNode> found = new ArrayList<>();
+		forEach(root, found::add);
+		return found;
+	}
+
+
+	/**
+	 * Counts the nodes matched by this query.
+	 * 
+	 * @param root The node whose children the first step should match.
+	 * @return The number of matches.
+	 */
+	public int count(@NonNull DataNode root) {
+		final int[] count = new int[1];
+		forEach(root, node -> count[0]++);
+		return count[0];
+	}
+
+
+
+	/**
+	 * Returns the expression this query was compiled from.
+	 * 
+	 * @return {@link #expression}
+	 */
+	@Override
+	public @NonNull String toString() {
+		return expression;
+	}
+
+
+
+	/**
+	 * Matches a step against the children or descendants of a node.
+	 * 
+	 * @param node The node to search.
+	 * @param step The index of the step.
+	 * @param visitor The visitor to give final matches to.
+	 * @return {@code false} if the visitor asked to stop.
+	 */
+	private boolean visitStep(@NonNull DataNode node, int step, @NonNull Predicate<DataNode> visitor) {
+		final Step current = steps[step];
+		if (current.descendant()) return visitDescendants(node, step, visitor, new int[1]);
+
+		int seen = 0;
+		for (DataNode child : candidates(node, current)) {
+			if (!current.matches(child)) continue;
+			if (current.position() >= 0 && seen++ != current.position()) continue;
+
+			if (!visitMatch(child, step, visitor)) return false;
+			if (current.position() >= 0) break;
+		}
+		return true;
+	}
+
+
+
+	/**
+	 * Matches a descendant step against every descendant of a node, in tree order.
+	 * 
+	 * @param node The node to search.
+	 * @param step The index of the step.
+	 * @param visitor The visitor to give final matches to.
+	 * @param seen The number of matches found so far, for steps which only match one position.
+	 * @return {@code false} if the visitor asked to stop.
+	 */
+	private boolean visitDescendants(
+		@NonNull DataNode node,
+		int step,
+		@NonNull Predicate<DataNode> visitor,
+		int @NonNull [] seen
+	) {
+		final Step current = steps[step];
+		for (DataNode child : node.getChildren()) {
+			if (current.position() >= 0 && seen[0] > current.position()) return true;
+
+			if (current.matches(child) && (current.position() < 0 || seen[0]++ == current.position())) {
+				if (!visitMatch(child, step, visitor)) return false;
+			}
+			if (!visitDescendants(child, step, visitor, seen)) return false;
+		}
+		return true;
+	}
+
+
+
+	/**
+	 * Passes a node matched by a step on to the next step, or to the visitor if it was the last step.
+	 * 
+	 * @param match The matched node.
+	 * @param step The index of the step it matched.
+	 * @param visitor The visitor to give final matches to.
+	 * @return {@code false} if the visitor asked to stop.
+	 */
+	private boolean visitMatch(@NonNull DataNode match, int step, @NonNull Predicate<DataNode> visitor) {
+		if (step == steps.length - 1) return visitor.test(match);
+		return visitStep(match, step + 1, visitor);
+	}
+
+
+
+	/**
+	 * Gets the children of a node which might match a step, using the node's child index
+	 * to skip children with the wrong name if the node has one.
+	 * 
+	 * @param node The node whose children should be searched.
+	 * @param step The step to match.
+	 * @return The children worth checking, in order.
+	 */
+	private static @NonNull List<DataNode> candidates(@NonNull DataNode node, @NonNull Step step) {
+		if (step.name() == null) return node.getChildren();
+
+		final ChildIndex index = node.index();
+		if (index == null) return node.getChildren();
+
+		// The index knows the first child with each name and first argument, which is all
+		// that is needed when only the first match is wanted.
+		if (step.position() == 0 && step.args().length == 1 && step.args()[0] != null) {
+			final DataNode found = index.find(step.name(), step.args()[0]);
+			return found == null ? List.of() : List.of(found);
+		}
+		return index.named(step.name());
+	}
+
+
+
+	// MARK: Getters
+	/**
+	 * Getter: Returns the expression this query was compiled from.
+	 * 
+	 * @return {@link #expression}
+	 */
+	public @NonNull String getExpression() {
+		return expression;
+	}
+
+
+
+	// MARK: Nested Types
+	/**
+	 * A single step of a query.
+	 * 
+	 * @param name The name to match, or {@code null} to match any name.
+	 * @param args The arguments to match, with {@code null} in place of any which can be anything.
+	 * @param descendant Whether this step matches descendants at any depth, rather than only children.
+	 * @param position The position of the only match this step accepts, or -1 to accept every match.
+	 */
+	private static record Step(
+		@Nullable String name,
+		@Nullable String @NonNull [] args,
+		boolean descendant,
+		int position
+	) {
+		/**
+		 * Checks whether a node matches this step, ignoring its position.
+		 * 
+		 * @param node The node to check.
+		 * @return {@code true} if the node's name and first arguments match.
+		 */
+		private boolean matches(@NonNull DataNode node) {
+			if (name != null && !name.equals(node.getName())) return false;
+			if (node.countArgs() < args.length) return false;
+
+			for (int i = 0; i < args.length; i++) {
+				if (args[i] != null && !args[i].equals(node.getArg(i))) return false;
+			}
+			return true;
+		}
+	}
+
+
+
+	/**
+	 * A parser which turns an expression into steps.
+	 */
+	private static final class Parser {
+		/** The expression being parsed. */
+		private final @NonNull String expression;
+
+		/** The index of the next character to read. */
+		private int position;
+
+
+		/**
+		 * Sole constructor.
+		 * 
+		 * @param expression The expression to parse.
+		 */
+		private Parser(@NonNull String expression) {
+			this.expression = expression;
+		}
+
+
+		/**
+		 * Parses the whole expression.
+		 * 
+		 * @return The steps of the expression, in order.
+		 */
+		private @NonNull Step @NonNull [] parse() {
+			final List<Step> steps = new ArrayList<>();
+			boolean descendant = false;
+			if (expression.startsWith("//")) {
+				descendant = true;
+				position = 2;
+			} else if (expression.startsWith("/")) {
+				position = 1;
+			}
+
+			while (true) {
+				steps.add(parseStep(descendant));
+				if (position >= expression.length()) break;
+
+				// The step ended at a slash; a second slash makes the next step a descendant step.
+				position++;
+				descendant = position < expression.length() && expression.charAt(position) == '/';
+				if (descendant) position++;
+			}
+			return steps.toArray(new Step[0]);
+		}
+
+
+		/**
+		 * Parses a single step, stopping at the slash after it or the end of the expression.
+		 * 
+		 * @param descendant Whether the step matches descendants at any depth.
+		 * @return The step.
+		 */
+		private @NonNull Step parseStep(boolean descendant) {
+			final List<String> tokens = new ArrayList<>();
+			int selected = -1;
+			while (true) {
+				skipSpaces();
+				if (position >= expression.length() || expression.charAt(position) == '/') break;
+				if (selected >= 0) throw error("Nothing may follow a position");
+
+				final char c = expression.charAt(position);
+				if (c == '"' || c == '`') {
+					tokens.add(readQuoted(c));
+				} else {
+					final String token = readBare();
+					final int bracket = positionStart(token);
+					if (bracket >= 0) selected = Integer.parseInt(token.substring(bracket + 1, token.length() - 1));
+					final String rest = bracket >= 0 ? token.substring(0, bracket) : token;
+					if (!rest.isEmpty()) tokens.add(rest.equals("*") ? null : rest);
+				}
+			}
+
+			if (tokens.isEmpty()) throw error("Empty step");
+			final String name = tokens.get(0);
+			final String[] args = tokens.subList(1, tokens.size()).toArray(new String[0]);
+			return new Step(name, args, descendant, selected);
+		}
+
+
+		/**
+		 * Reads a quoted token, leaving the position just after the closing quote.
+		 * 
+		 * @param quote The quote character the token starts and ends with.
+		 * @return The text between the quotes.
+		 */
+		private @NonNull String readQuoted(char quote) {
+			final int end = expression.indexOf(quote, position + 1);
+			if (end < 0) throw error("Unterminated quote");
+
+			final String token = expression.substring(position + 1, end);
+			position = end + 1;
+			return token;
+		}
+
+
+		/**
+		 * Reads an unquoted token, which ends at a space, a slash, a quote, or the end of the expression.
+		 * 
+		 * @return The token.
+		 */
+		private @NonNull String readBare() {
+			final int start = position;
+			while (position < expression.length()) {
+				final char c = expression.charAt(position);
+				if (c == ' ' || c == '/' || c == '"' || c == '`') break;
+				position++;
+			}
+			return expression.substring(start, position);
+		}
+
+
+		/**
+		 * Skips over any spaces.
+		 */
+		private void skipSpaces() {
+			while (position < expression.length() && expression.charAt(position) == ' ') {
+				position++;
+			}
+		}
+
+
+		/**
+		 * Finds a position written at the end of an unquoted token, such as {@code [2]}.
+		 * 
+		 * @param token The token to check.
+		 * @return The index of the opening bracket, or -1 if the token does not end in a position.
+		 */
+		private static int positionStart(@NonNull String token) {
+			if (!token.endsWith("]")) return -1;
+
+			final int bracket = token.lastIndexOf('[');
+			if (bracket < 0 || bracket == token.length() - 2) return -1;
+			for (int i = bracket + 1; i < token.length() - 1; i++) {
+				if (!Character.isDigit(token.charAt(i))) return -1;
+			}
+			return bracket;
+		}
+
+
+		/**
+		 * Creates the exception thrown for an invalid expression.
+		 * 
+		 * @param problem A description of the problem.
+		 * @return The exception.
+		 */
+		private @NonNull IllegalArgumentException error(@NonNull String problem) {
+			return new IllegalArgumentException(
+				String.format("%s at position %d in query: %s", problem, position, expression)
+			);
+		}
+	}
+}
@@ -0,0 +1,248 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import org.jspecify.annotations.*;
+
+/**
+ * A spliterator over a node and its descendants, in the same order they appear in a file,
+ * created by {@link DataNode#stream()} and {@link DataNode#descendants()}.
+ * 
+ * Nodes are visited with an explicit stack of sibling lists rather than by recursion, so deeply
+ * nested trees cannot overflow the call stack. Splitting hands off half of the shallowest
+ * remaining siblings, so each half is made of whole subtrees. The size of an unsplit spliterator
+ * is counted exactly the first time it is needed, and each half of a split estimates half of it.
+ */
+final class NodeSpliterator implements Spliterator<DataNode> {
+	// MARK: Fields
+	/** A node to visit before anything on the stack, whose children are already on the stack. */
+	private @Nullable DataNode head;
+
+	/** The sibling lists still being visited, with the deepest first. */
+	private @NonNull Deque<Frame> stack;
+
+	/** The number of nodes left to visit, or -1 if it has not been counted. */
+	private long size;
+
+
+
+	// MARK: Constructors
+	/**
+	 * Creates a spliterator over a node's descendants.
+	 * 
+	 * @param root The node to start from.
+	 * @param includeRoot Whether to visit the node itself before its descendants.
+	 */
+	NodeSpliterator(@NonNull DataNode root, boolean includeRoot) {
+		this(includeRoot ? root : null, new ArrayDeque<>(), -1);
+		if (root.countChildren() > 0) stack.push(new Frame(root.getChildren(), 0, root.countChildren()));
+	}
+
+
+	/**
+	 * Creates a spliterator over part of a traversal.
+	 * 
+	 * @param head The node to visit first, or {@code null} if there is none.
+	 * @param stack The sibling lists to visit, with the deepest first.
+	 * @param size The number of nodes left to visit, or -1 if it is not known.
+	 */
+	private NodeSpliterator(@Nullable DataNode head, @NonNull Deque<Frame> stack, long size) {
+		this.head = head;
+		this.stack = stack;
+		this.size = size;
+	}
+
+
+
+	// MARK: Methods
+	/**
+	 * Visits the next node, if there is one.
+	 * 
+	 * @param action The action to perform on the node.
+	 * @return {@code true} if a node was visited.
+	 */
+	@Override
+	public boolean tryAdvance(@NonNull Consumer<? super DataNode> action) {
+		final DataNode node;
+		if (head != null) {
+			node = head;
+			head = null;
+		} else {
+			while (!stack.isEmpty() && stack.peek().isDone()) {
+				stack.pop();
+			}
+			if (stack.isEmpty()) return false;
+
+			node = stack.peek().take();
+			if (node.countChildren() > 0) stack.push(new Frame(node.getChildren(), 0, node.countChildren()));
+		}
+
+		if (size > 0) size--;
+		action.accept(node);
+		return true;
+	}
+
+
+
+	/**
+	 * Splits off the first part of the remaining nodes, leaving this spliterator with the rest.
+	 * 
+	 * @return A spliterator over the first part, or {@code null} if there is too little left to split.
+	 */
+	@Override
+	public @Nullable Spliterator<DataNode> trySplit() {
+		stack.removeIf(Frame::isDone);
+
+		// A single subtree can't be split, so move down until there are siblings to share out.
+		while (head == null && stack.size() == 1 && stack.peekLast().remaining() == 1) {
+			head = stack.pop().take();
+			if (head.countChildren() > 0) stack.push(new Frame(head.getChildren(), 0, head.countChildren()));
+		}
+		if (stack.isEmpty()) return null;
+
+		// Everything except the second half of the shallowest siblings comes first.
+		final Frame shallowest = stack.peekLast();
+		final int middle = shallowest.next + shallowest.remaining() / 2;
+		if (middle == shallowest.next && head == null && stack.size() == 1) return null;
+
+		final Frame rest = new Frame(shallowest.siblings, middle, shallowest.end);
+		shallowest.end = middle;
+
+		final long first = size < 0 ? -1 : size / 2;
+		final NodeSpliterator prefix = new NodeSpliterator(head, stack, first);
+		head = null;
+		stack = new ArrayDeque<>();
+		stack.push(rest);
+		size = size < 0 ? -1 : size - first;
+		return prefix;
+	}
+
+
+
+	/**
+	 * Estimates the number of nodes left to visit, counting them if this spliterator has never been split.
+	 * 
+	 * @return The number of nodes left, or an estimate of it.
+	 */
+	@Override
+	public long estimateSize() {
+		if (size < 0) size = count();
+		return size;
+	}
+
+
+
+	/**
+	 * Gets the characteristics of this spliterator.
+	 * 
+	 * @return {@link Spliterator#ORDERED} and {@link Spliterator#NONNULL}.
+	 */
+	@Override
+	public int characteristics() {
+		return ORDERED | NONNULL;
+	}
+
+
+
+	/**
+	 * Counts the nodes left to visit, without recursion.
+	 * 
+	 * @return The number of nodes left.
+	 */
+	private long count() {
+		long total = head == null ? 0 : 1;
+		final Deque<DataNode> pending = new ArrayDeque<>();
+		for (Frame frame : stack) {
+			for (int i = frame.next; i < frame.end; i++) {
+				pending.push(frame.siblings.get(i));
+			}
+		}
+
+		while (!pending.isEmpty()) {
+			final DataNode node = pending.pop();
+			total++;
+			for (DataNode child : node.getChildren()) {
+				pending.push(child);
+			}
+		}
+		return total;
+	}
+
+
+
+	// MARK: Nested Types
+	/**
+	 * A range of siblings which are still to be visited.
+	 */
+	private static final class Frame {
+		/** The list of siblings. */
+		private final @NonNull List<DataNode> siblings;
+
+		/** The index of the next sibling to visit. */
+		private int next;
+
+		/** The index after the last sibling to visit. */
+		private int end;
+
+
+		/**
+		 * Sole constructor.
+		 * 
+		 * @param siblings The list of siblings.
+		 * @param next The index of the first sibling to visit.
+		 * @param end The index after the last sibling to visit.
+		 */
+		Frame(@NonNull List<DataNode> siblings, int next, int end) {
+			this.siblings = siblings;
+			this.next = next;
+			this.end = end;
+		}
+
+
+		/**
+		 * Takes the next sibling.
+		 * 
+		 * @return The sibling.
+		 */
+		@NonNull DataNode take() {
+			return siblings.get(next++);
+		}
+
+
+		/**
+		 * Counts the siblings left to visit.
+		 * 
+		 * @return The number of siblings left.
+		 */
+		int remaining() {
+			return end - next;
+		}
+
+
+		/**
+		 * Checks whether every sibling has been visited.
+		 * 
+		 * @return {@code true} if there are no siblings left.
+		 */
+		boolean isDone() {
+			return next >= end;
+		}
+	}
+}
@@ -0,0 +1,166 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+
+import org.jspecify.annotations.*;
+
+/**
+ * The parsed values of a node's arguments, so that building the same argument as a number
+ * again does not parse it again.
+ * 
+ * Each argument has one slot, holding a single long and a byte of flags saying whether it has
+ * been parsed yet, and whether it is a whole number, a decimal number, or neither. Arguments
+ * which are both hold the whole number, which converts to exactly the same double as parsing
+ * the text would. Slots are filled the first time they are needed.
+ * 
+ * Several threads may fill the same slot at once. Each fills it with the same value, and the
+ * flags are only published once the value has been written, so readers never see a half-filled
+ * slot.
+ */
+final class NumberCache {
+	// MARK: Constants
+	/** The flag set on a slot once its argument has been parsed. */
+	private static final byte CHECKED = 1;
+
+	/** The flag set on a slot whose argument is a valid long. */
+	private static final byte LONG = 2;
+
+	/** The flag set on a slot whose argument is a valid double. */
+	private static final byte DOUBLE = 4;
+
+	/** The flag set on a slot whose argument is a whole number written with a minus sign. */
+	private static final byte NEGATIVE = 8;
+
+	/** A handle used to read and write flags with the ordering needed to publish values. */
+	private static final VarHandle FLAGS = MethodHandles.arrayElementVarHandle(byte[].class);
+
+
+
+	// MARK: Fields
+	/** The value of each argument: a long if it is a whole number, or otherwise the bits of a double. */
+	private final long @NonNull [] values;
+
+	/** The flags of each argument. */
+	private final byte @NonNull [] flags;
+
+
+
+	// MARK: Constructor
+	/**
+	 * Sole constructor.
+	 * 
+	 * @param size The number of arguments.
+	 */
+	NumberCache(int size) {
+		this.values = new long[size];
+		this.flags = new byte[size];
+	}
+
+
+
+	// MARK: Methods
+	/**
+	 * Checks whether an argument is a whole number within a range.
+	 * 
+	 * @param i The index of the argument.
+	 * @param text The argument.
+	 * @param min The smallest number allowed.
+	 * @param max The largest number allowed.
+	 * @return {@code true} if the argument can be read with {@link #getLong(int)}.
+	 */
+	boolean isLong(int i, @NonNull String text, long min, long max) {
+		if ((flags(i, text) & LONG) == 0) return false;
+		return values[i] >= min && values[i] <= max;
+	}
+
+
+
+	/**
+	 * Checks whether an argument is a decimal number.
+	 * 
+	 * @param i The index of the argument.
+	 * @param text The argument.
+	 * @return {@code true} if the argument can be read with {@link #getDouble(int)}.
+	 */
+	boolean isDouble(int i, @NonNull String text) {
+		return (flags(i, text) & DOUBLE) != 0;
+	}
+
+
+
+	/**
+	 * Gets the flags of an argument, parsing it if it has not been parsed yet.
+	 * 
+	 * @param i The index of the argument.
+	 * @param text The argument.
+	 * @return The flags of the argument.
+	 */
+	private byte flags(int i, @NonNull String text) {
+		final byte known = (byte) FLAGS.getAcquire(flags, i);
+		if (known != 0) return known;
+
+		byte found = CHECKED;
+		if (NumberParser.isInteger(text, Long.MIN_VALUE, Long.MAX_VALUE)) {
+			values[i] = Long.parseLong(text);
+			found |= LONG;
+			if (text.charAt(0) == '-') found |= NEGATIVE;
+			if (NumberParser.isDouble(text)) found |= DOUBLE;
+		} else if (NumberParser.isDouble(text)) {
+			values[i] = Double.doubleToRawLongBits(Double.parseDouble(text));
+			found |= DOUBLE;
+		}
+		FLAGS.setRelease(flags, i, found);
+		return found;
+	}
+
+
+
+	// MARK: Getters
+	/**
+	 * Getter: Returns an argument as a long, once {@link #isLong(int, String, long, long)} has
+	 * confirmed that it is one.
+	 * 
+	 * @param i The index of the argument.
+	 * @return The value of the argument.
+	 */
+	long getLong(int i) {
+		return values[i];
+	}
+
+	/**
+	 * Getter: Returns an argument as a double, once {@link #isDouble(int, String)} has confirmed
+	 * that it is one.
+	 * 
+	 * @param i The index of the argument.
+	 * @return The value of the argument.
+	 */
+	double getDouble(int i) {
+		final byte known = (byte) FLAGS.getAcquire(flags, i);
+		if ((known & LONG) == 0) return Double.longBitsToDouble(values[i]);
+		// "-0" is the whole number 0, but the double -0.0.
+		return values[i] == 0 && (known & NEGATIVE) != 0 ? -0.0 : values[i];
+	}
+
+	/**
+	 * Getter: Returns the number of arguments this cache has room for.
+	 * 
+	 * @return The length of {@link #values}.
+	 */
+	int getSize() {
+		return values.length;
+	}
+}
@@ -0,0 +1,149 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import org.jspecify.annotations.*;
+
+/**
+ * Checks whether text can be parsed as a number, without parsing it or throwing an exception.
+ * 
+ * Each check accepts exactly the text accepted by the matching method in the standard library,
+ * so once a check passes, {@link Integer#parseInt(String)}, {@link Long#parseLong(String)} or
+ * {@link Double#parseDouble(String)} can be called without it ever throwing. Checks do not
+ * allocate anything, so rejecting bad numbers costs no more than accepting good ones.
+ */
+final class NumberParser {
+	// MARK: Constructor
+	/**
+	 * Numbers are checked with static methods, so this class is never instantiated.
+	 */
+	private NumberParser() {
+		// Never called.
+	}
+
+
+
+	// MARK: Methods
+	/**
+	 * Checks whether text is a whole number within a range, in the form accepted by
+	 * {@link Long#parseLong(String)}: an optional sign, followed by decimal digits.
+	 * 
+	 * @param text The text to check.
+	 * @param min The smallest number allowed.
+	 * @param max The largest number allowed.
+	 * @return {@code true} if the text is a number in the range.
+	 */
+	static boolean isInteger(@NonNull String text, long min, long max) {
+		final int length = text.length();
+		if (length == 0) return false;
+
+		final char first = text.charAt(0);
+		final boolean negative = first == '-';
+		final int start = (negative || first == '+') ? 1 : 0;
+		if (start == length) return false;
+
+		// Add up the digits as a negative number, so the most negative long can be reached.
+		final long limit = negative ? min : -max;
+		final long beforeLast = limit / 10;
+		long value = 0;
+		for (int i = start; i < length; i++) {
+			final int digit = Character.digit(text.charAt(i), 10);
+			if (digit < 0 || value < beforeLast) return false;
+			value *= 10;
+			if (value < limit + digit) return false;
+			value -= digit;
+		}
+		return true;
+	}
+
+
+
+	/**
+	 * Checks whether text is a decimal number in the form accepted by {@link Double#parseDouble(String)},
+	 * such as {@code 3}, {@code -0.5}, {@code .25}, {@code 1e-3}, {@code 2.5f}, {@code NaN} or
+	 * {@code -Infinity}, with optional spaces around it.
+	 * 
+	 * @param text The text to check.
+	 * @return {@code true} if the text is a number.
+	 */
+	static boolean isDouble(@NonNull String text) {
+		int end = text.length();
+		while (end > 0 && text.charAt(end - 1) <= ' ') {
+			end--;
+		}
+		int i = 0;
+		while (i < end && text.charAt(i) <= ' ') {
+			i++;
+		}
+		if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) i++;
+		if (i == end) return false;
+
+		if (text.startsWith("NaN", i)) return i + 3 == end;
+		if (text.startsWith("Infinity", i)) return i + 8 == end;
+		if (text.startsWith("0x", i) || text.startsWith("0X", i)) return isHexDouble(text);
+
+		final int integer = skipDigits(text, i, end);
+		int fraction = integer;
+		if (fraction < end && text.charAt(fraction) == '.') fraction = skipDigits(text, fraction + 1, end);
+		if (integer == i && fraction <= integer + 1) return false;
+
+		i = fraction;
+		if (i < end && (text.charAt(i) == 'e' || text.charAt(i) == 'E')) {
+			i++;
+			if (i < end && (text.charAt(i) == '-' || text.charAt(i) == '+')) i++;
+			final int exponent = skipDigits(text, i, end);
+			if (exponent == i) return false;
+			i = exponent;
+		}
+
+		if (i < end && "fFdD".indexOf(text.charAt(i)) >= 0) i++;
+		return i == end;
+	}
+
+
+
+	/**
+	 * Checks whether text is a hexadecimal floating point number, such as {@code 0x1.8p1}.
+	 * These are never written in data files, so they are simply handed to the standard library.
+	 * 
+	 * @param text The text to check.
+	 * @return {@code true} if the text is a number.
+	 */
+	private static boolean isHexDouble(@NonNull String text) {
+		try {
+			Double.parseDouble(text);
+			return true;
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+
+
+
+	/**
+	 * Finds the end of a run of ASCII digits.
+	 * 
+	 * @param text The text to search.
+	 * @param start The index to start at.
+	 * @param end The index to stop at.
+	 * @return The index of the first character which is not a digit, or {@code end}.
+	 */
+	private static int skipDigits(@NonNull String text, int start, int end) {
+		int i = start;
+		while (i < end && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+			i++;
+		}
+		return i;
+	}
+}
@@ -0,0 +1,251 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+
+import org.jspecify.annotations.*;
+
+/**
+ * A parser which splits the contents of a single file into chunks and parses them in parallel.
+ * 
+ * Any significant line without indentation starts a new top-level node, and nothing before
+ * that line can affect how it or its children are read, so the file can be split at any such
+ * line. The only state which crosses chunk boundaries is the line count and the indentation
+ * used for the mixed whitespace check, both of which are combined once every chunk is done.
+ */
+final class ParallelParser {
+	// MARK: Constants
+	/** The smallest chunk worth handing to another thread, in bytes. */
+	static final int MIN_CHUNK_SIZE = 1 << 18;
+
+	/** How many chunks to aim for per thread, so that uneven chunks still balance out. */
+	private static final int CHUNKS_PER_THREAD = 4;
+
+
+
+	// MARK: Fields
+	/** The contents of the file. */
+	private final byte @NonNull [] data;
+
+	/** The file being parsed. */
+	private final @NonNull File file;
+
+	/** The executor chunks are parsed on. */
+	private final @NonNull Executor executor;
+
+	/** The table used to share repeated tokens, or {@code null} if they are not shared. */
+	private final @Nullable SymbolTable symbols;
+
+	/** Whether arguments which look like numbers are parsed as soon as each node is created. */
+	private final boolean cacheNumbers;
+
+
+
+	// MARK: Constructor
+	/**
+	 * Sole constructor.
+	 * 
+	 * @param data The contents of the file.
+	 * @param file The file being parsed.
+	 * @param executor The executor chunks are parsed on.
+	 * @param symbols The table used to share repeated tokens, or {@code null} if they are not shared.
+	 * @param cacheNumbers Whether arguments which look like numbers are parsed as soon as each node is created.
+	 */
+	ParallelParser(
+		byte @NonNull [] data,
+		@NonNull File file,
+		@NonNull Executor executor,
+		@Nullable SymbolTable symbols,
+		boolean cacheNumbers
+	) {
+		this.data = data;
+		this.file = file;
+		this.executor = executor;
+		this.symbols = symbols;
+		this.cacheNumbers = cacheNumbers;
+	}
+
+
+
+	// MARK: Methods
+	/**
+	 * Parses the file and stores all nodes in the tree.
+	 * 
+	 * @param root The root node of the tree that nodes are stored in.
+	 * @return A warning about mixed whitespace, or {@code null} if there is none.
+	 */
+	@Nullable String parse(@NonNull DataNode root) {
+		final int[] bounds = findBoundaries(chunkCount());
+
+		// Each chunk needs to know how many lines came before it.
+		final List<CompletableFuture<Integer>> counts = new ArrayList<>(bounds.length - 1);
+		for (int i = 0; i < bounds.length - 1; i++) {
+			final int from = bounds[i];
+			final int to = bounds[i + 1];
+			counts.add(CompletableFuture.supplyAsync(() -> LineScanner.countLines(data, from, to), executor));
+		}
+
+		final List<CompletableFuture<Chunk>> chunks = new ArrayList<>(counts.size());
+		int firstLine = 1;
+		for (int i = 0; i < counts.size(); i++) {
+			final int from = bounds[i];
+			final int to = bounds[i + 1];
+			final int line = firstLine;
+			chunks.add(CompletableFuture.supplyAsync(() -> parseChunk(from, to, line), executor));
+			firstLine += join(counts.get(i));
+		}
+
+		String expected = null;
+		final List<String> used = new ArrayList<>(1);
+		for (CompletableFuture<Chunk> future : chunks) {
+			final Chunk chunk = join(future);
+			for (DataNode child : chunk.tree().getChildren()) {
+				root.addChild(child);
+				child.setParent(root);
+			}
+
+			if (expected == null) expected = chunk.emitter().getExpectedIndentString();
+			used.addAll(chunk.emitter().getIndentStrings());
+		}
+
+		if (!NodeEmitter.isMixed(expected, used)) return null;
+		return String.format("Warning - mixed whitespace in file %s (parsing completed with issue)", file.getPath());
+	}
+
+
+
+	/**
+	 * Decides how many chunks to aim for, based on the size of the file and the number of threads.
+	 * 
+	 * @return The number of chunks.
+	 */
+	private int chunkCount() {
+		final int threads = executor instanceof ForkJoinPool
+			? ((ForkJoinPool) executor).getParallelism()
+			: Runtime.getRuntime().availableProcessors();
+		return Math.max(1, Math.min(data.length / MIN_CHUNK_SIZE, threads * CHUNKS_PER_THREAD));
+	}
+
+
+
+	/**
+	 * Splits the file into roughly equal chunks, each starting with a top-level node.
+	 * 
+	 * @param target The number of chunks to aim for.
+	 * @return The index of the start of each chunk, followed by the length of the file.
+	 * There may be fewer chunks than the target if top-level nodes are far apart.
+	 */
+	private int @NonNull [] findBoundaries(int target) {
+		final int[] bounds = new int[target + 1];
+		int count = 1;
+		for (int i = 1; i < target; i++) {
+			final int nominal = (int) ((long) data.length * i / target);
+			final int boundary = nextTopLevelLine(Math.max(nominal, bounds[count - 1] + 1));
+			if (boundary >= data.length) break;
+			bounds[count] = boundary;
+			count++;
+		}
+		bounds[count] = data.length;
+
+		final int[] trimmed = new int[count + 1];
+		System.arraycopy(bounds, 0, trimmed, 0, count + 1);
+		return trimmed;
+	}
+
+
+
+	/**
+	 * Finds the first significant line without indentation that starts after a given index.
+	 * 
+	 * @param from The index to start searching from.
+	 * @return The index of the start of the line, or the length of the file if there is none.
+	 */
+	private int nextTopLevelLine(int from) {
+		final int start = LineScanner.nextLineStart(data, from, data.length);
+		final LineScanner scanner = new LineScanner(data, start, data.length, 1);
+		try {
+			while (scanner.next()) {
+				if (scanner.indent() == 0) return scanner.getLineStart();
+			}
+		} catch (IOException e) {
+			// Scanners over data in memory never read from a channel.
+			throw new UncheckedIOException(e);
+		}
+		return data.length;
+	}
+
+
+
+	/**
+	 * Parses a single chunk into a tree of its own.
+	 * 
+	 * @param from The index of the start of the chunk.
+	 * @param to The index after the end of the chunk.
+	 * @param firstLine The line number of the first line in the chunk.
+	 * @return The parsed chunk.
+	 */
+	private @NonNull Chunk parseChunk(int from, int to, int firstLine) {
+		final DataNode tree = new DataNode();
+		final LineScanner scanner = new LineScanner(data, from, to, firstLine);
+		scanner.setSymbols(symbols);
+		final TreeBuilder builder = new TreeBuilder(tree, file);
+		builder.setCacheNumbers(cacheNumbers);
+		final NodeEmitter emitter = new NodeEmitter(scanner, builder, file.getPath());
+		try {
+			emitter.emitAll();
+		} catch (IOException e) {
+			// Scanners over data in memory never read from a channel.
+			throw new UncheckedIOException(e);
+		}
+		return new Chunk(tree, emitter);
+	}
+
+
+
+	/**
+	 * Waits for a task to finish, passing on any exception it threw.
+	 * 
+	 * @param <T> The type of the task's result.
+	 * @param future The task to wait for.
+	 * @return The task's result.
+	 */
+	private static <T> T join(@NonNull CompletableFuture<T> future) {
+		try {
+			return future.join();
+		} catch (CompletionException e) {
+			if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+			throw e;
+		}
+	}
+
+
+
+	// MARK: Nested Types
+	/**
+	 * A single parsed chunk of the file.
+	 * 
+	 * @param tree A root node holding every top-level node in the chunk.
+	 * @param emitter The emitter which parsed the chunk, holding its indentation details.
+	 */
+	private static record Chunk(@NonNull DataNode tree, @NonNull NodeEmitter emitter) { }
+}
@@ -0,0 +1,532 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.UnaryOperator;
+
+import org.jspecify.annotations.*;
+
+/**
+ * An immutable node which is edited by making changed copies of it, sharing everything which
+ * did not change. This makes it cheap to keep many versions of the same tree, such as the
+ * history of an editor, since each version only costs as much memory as the nodes it changed.
+ * 
+ * A change deep inside a tree is made with {@link #update(int[], UnaryOperator)}, which copies
+ * only the nodes along the path from the root to the changed node. Children are kept in a list
+ * which is itself copied in chunks, so a node with thousands of children, such as the root of a
+ * whole data set, only copies a few dozen of them when one child changes. Since the same node can
+ * be shared by many trees, persistent nodes do not know their parents, and {@link #getParent()}
+ * always returns {@code null}. Every method which would change the node in place throws an
+ * {@link UnsupportedOperationException}.
+ */
+public final class PersistentNode extends DataNode {
+	// MARK: Constants
+	/** The message of the exception thrown when trying to change a persistent node in place. */
+	private static final @NonNull String IMMUTABLE = "Persistent nodes cannot be changed in place";
+
+
+
+	// MARK: Fields
+	/** The name of this node. */
+	private final @NonNull String name;
+
+	/** This node's arguments. */
+	private final @NonNull List<String> args;
+
+	/** This node's children, all of which are persistent nodes. */
+	private final @NonNull ChildVector children;
+
+	/** The line this node was parsed from, or 0 if it was not parsed from a file. */
+	private final int line;
+
+	/** The file this node was parsed from, or {@code null} if it was not parsed from a file. */
+	private final @Nullable File file;
+
+	/** The hash code of this node, which can never change. */
+	private final int hash;
+
+
+
+	// MARK: Constructor
+	/**
+	 * Sole constructor. The arguments must already be unmodifiable, and every child must be a persistent node.
+	 * 
+	 * @param name The name of the node.
+	 * @param args The arguments of the node.
+	 * @param children The children of the node.
+	 * @param line The line the node was parsed from, or 0 if it was not parsed from a file.
+	 * @param file The file the node was parsed from, or {@code null} if it was not parsed from a file.
+	 */
+	private PersistentNode(
+		@NonNull String name,
+		@NonNull List<String> args,
+		@NonNull ChildVector children,
+		int line,
+		@Nullable File file
+	) {
+		super("", null, List.of(), List.of());
+		this.name = name;
+		this.args = args;
+		this.children = children;
+		this.line = line;
+		this.file = file;
+		this.hash = hashOf(name, args, children);
+	}
+
+
+
+	// MARK: Methods
+	/**
+	 * Creates a persistent copy of a node and all its descendants. Persistent nodes anywhere in
+	 * the source are shared rather than copied. The tree is walked without recursion, so even
+	 * very deeply nested trees are safe.
+	 * 
+	 * @param source The node to copy.
+	 * @return A persistent copy of the node.
+	 */
+	public static @NonNull PersistentNode of(@NonNull DataNode source) {
+		if (source instanceof PersistentNode) return (PersistentNode) source;
+
+		// Each node is copied once all of its children have been.
+		final Deque<Level> levels = new ArrayDeque<>();
+		levels.push(new Level(source));
+		while (true) {
+			final Level level = levels.peek();
+			if (level.remaining.hasNext()) {
+				final DataNode child = level.remaining.next();
+				if (child instanceof PersistentNode) {
+					level.children.add(child);
+				} else {
+					levels.push(new Level(child));
+				}
+				continue;
+			}
+
+			final PersistentNode copy = new PersistentNode(
+				level.source.getName(),
+				List.copyOf(level.source.getArgs()),
+				ChildVector.of(level.children),
+				level.source.sourceLine(),
+				level.source.sourceFile()
+			);
+			levels.pop();
+			if (levels.isEmpty()) return copy;
+			levels.peek().children.add(copy);
+		}
+	}
+
+
+
+	/**
+	 * Creates a persistent node with no children.
+	 * 
+	 * @param name The name of the node.
+	 * @param args The arguments of the node.
+	 * @return The new node.
+	 */
+	public static @NonNull PersistentNode of(@NonNull String name, @NonNull String... args) {
+		return new PersistentNode(name, List.of(args), ChildVector.of(List.of()), 0, null);
+	}
+
+
+
+	/**
+	 * Creates an ordinary, mutable copy of this node and all its descendants. Nodes which were
+	 * loaded from a file are copied as {@link LoadedNode}s. The tree is walked without recursion,
+	 * so even very deeply nested trees are safe.
+	 * 
+	 * @return A mutable copy of this node, with no parent.
+	 */
+	public @NonNull DataNode toDataNode() {
+		final DataNode root = copy(this, null);
+		final Deque<Iterator<DataNode>> pending = new ArrayDeque<>();
+		final Deque<DataNode> parents = new ArrayDeque<>();
+		pending.push(children.iterator());
+		parents.push(root);
+		while (!pending.isEmpty()) {
+			final Iterator<DataNode> siblings = pending.peek();
+			if (!siblings.hasNext()) {
+				pending.pop();
+				parents.pop();
+				continue;
+			}
+
+			final PersistentNode child = (PersistentNode) siblings.next();
+			final DataNode copy = copy(child, parents.peek());
+			parents.peek().getChildren().add(copy);
+			if (!child.children.isEmpty()) {
+				pending.push(child.children.iterator());
+				parents.push(copy);
+			}
+		}
+		return root;
+	}
+
+
+
+	/**
+	 * Creates an ordinary, mutable copy of a single node, with an empty list for its children.
+	 * 
+	 * @param node The node to copy.
+	 * @param parent The parent of the copy.
+	 * @return A mutable copy of the node.
+	 */
+	private static @NonNull DataNode copy(@NonNull PersistentNode node, @Nullable DataNode parent) {
+		final List<DataNode> copied = new ArrayList<>(node.children.size());
+		return node.file == null
+			? new DataNode(node.name, parent, new ArrayList<>(node.args), copied)
+			: new LoadedNode(node.name, parent, new ArrayList<>(node.args), copied, node.line, node.file);
+	}
+
+
+
+	/**
+	 * Makes a copy of this node with a different name.
+	 * 
+	 * @param newName The name of the copy.
+	 * @return The copy, which shares this node's arguments and children.
+	 */
+	public @NonNull PersistentNode withName(@NonNull String newName) {
+		return new PersistentNode(newName, args, children, line, file);
+	}
+
+
+
+	/**
+	 * Makes a copy of this node with different arguments.
+	 * 
+	 * @param newArgs The arguments of the copy.
+	 * @return The copy, which shares this node's children.
+	 */
+	public @NonNull PersistentNode withArgs(@NonNull List<String> newArgs) {
+		return new PersistentNode(name, List.copyOf(newArgs), children, line, file);
+	}
+
+
+
+	/**
+	 * Makes a copy of this node with one argument replaced.
+	 * 
+	 * @param i The index of the argument to replace.
+	 * @param arg The new argument.
+	 * @return The copy, which shares this node's children.
+	 */
+	public @NonNull PersistentNode withArg(int i, @NonNull String arg) {
+		final List<String> changed = new ArrayList<>(args);
+		changed.set(i, arg);
+		return withArgs(changed);
+	}
+
+
+
+	/**
+	 * Makes a copy of this node with different children.
+	 * 
+	 * @param newChildren The children of the copy, which are made persistent if they are not already.
+	 * @return The copy, which shares this node's arguments.
+	 */
+	public @NonNull PersistentNode withChildren(@NonNull List<? extends DataNode> newChildren) {
+		final List<DataNode> copied = new ArrayList<>(newChildren.size());
+		for (DataNode child : newChildren) {
+			copied.add(of(child));
+		}
+		return new PersistentNode(name, args, ChildVector.of(copied), line, file);
+	}
+
+
+
+	/**
+	 * Makes a copy of this node with one child replaced.
+	 * 
+	 * @param i The index of the child to replace.
+	 * @param child The new child, which is made persistent if it is not already.
+	 * @return The copy, which shares this node's arguments and every other child.
+	 */
+	public @NonNull PersistentNode withChild(int i, @NonNull DataNode child) {
+		return new PersistentNode(name, args, children.replaced(i, of(child)), line, file);
+	}
+
+
+
+	/**
+	 * Makes a copy of this node with a child added after its other children.
+	 * 
+	 * @param child The new child, which is made persistent if it is not already.
+	 * @return The copy, which shares this node's arguments and children.
+	 */
+	public @NonNull PersistentNode withChildAdded(@NonNull DataNode child) {
+		return new PersistentNode(name, args, children.inserted(children.size(), of(child)), line, file);
+	}
+
+
+
+	/**
+	 * Makes a copy of this node with one child removed.
+	 * 
+	 * @param i The index of the child to remove.
+	 * @return The copy, which shares this node's arguments and every other child.
+	 */
+	public @NonNull PersistentNode withChildRemoved(int i) {
+		return new PersistentNode(name, args, children.removed(i), line, file);
+	}
+
+
+
+	/**
+	 * Changes a descendant of this node, copying only the nodes on the path to it.
+	 * 
+	 * @param path The index of the child to follow at each level, starting from this node. An empty
+	 * path changes this node itself.
+	 * @param edit A function which is given the descendant, and returns its replacement.
+	 * @return A copy of this node containing the replacement, which shares everything not on the path.
+	 * @throws IndexOutOfBoundsException If the path does not lead to a descendant.
+	 */
+	public @NonNull PersistentNode update(int @NonNull [] path, @NonNull UnaryOperator<PersistentNode> edit) {
+		return update(path, 0, edit);
+	}
+
+
+
+	/**
+	 * Changes a descendant of this node, starting part of the way along its path.
+	 * 
+	 * @param path The index of the child to follow at each level.
+	 * @param depth How much of the path has already been followed.
+	 * @param edit A function which is given the descendant, and returns its replacement.
+	 * @return A copy of this node containing the replacement.
+	 */
+	private @NonNull PersistentNode update(
+		int @NonNull [] path,
+		int depth,
+		@NonNull UnaryOperator<PersistentNode> edit
+	) {
+		if (depth == path.length) return edit.apply(this);
+
+		final PersistentNode child = (PersistentNode) children.get(path[depth]);
+		final PersistentNode updated = child.update(path, depth + 1, edit);
+		return updated == child ? this : withChild(path[depth], updated);
+	}
+
+
+
+	/**
+	 * Calculates the hash code of a node the same way as {@link DataNode#hashCode()}, using the
+	 * hash code the list of children keeps up to date rather than visiting every child.
+	 * 
+	 * @param name The name of the node.
+	 * @param args The arguments of the node.
+	 * @param children The children of the node.
+	 * @return A hash code value for the node.
+	 */
+	private static int hashOf(@NonNull String name, @NonNull List<String> args, @NonNull ChildVector children) {
+		final int prime = 31;
+		int result = 1;
+		result = prime * result + name.hashCode();
+		result = prime * result + args.hashCode();
+		result = prime * result + children.hashCode();
+		return result;
+	}
+
+
+
+	/**
+	 * Returns the hash code calculated when this node was created.
+	 * 
+	 * @return A hash code value for this node.
+	 */
+	@Override
+	public int hashCode() {
+		return hash;
+	}
+
+
+
+	/**
+	 * Gets the hash code calculated when this node was created, which {@link DataNode#equals(Object)}
+	 * uses to tell different nodes apart without comparing their subtrees.
+	 * 
+	 * @return {@link #hash}
+	 */
+	@Override
+	int cachedHash() {
+		return hash;
+	}
+
+
+
+	/**
+	 * Gets the line this node was loaded from.
+	 * 
+	 * @return {@link #getLine()}
+	 */
+	@Override
+	int sourceLine() {
+		return getLine();
+	}
+
+
+
+	/**
+	 * Gets the file this node was loaded from.
+	 * 
+	 * @return {@link #getFile()}
+	 */
+	@Override
+	@Nullable File sourceFile() {
+		return getFile();
+	}
+
+
+
+	// MARK: Getters / Setters
+	/**
+	 * Getter: Returns the name of this node.
+	 * 
+	 * @return {@link #name}
+	 */
+	@Override
+	public @NonNull String getName() {
+		return name;
+	}
+
+	/**
+	 * Persistent nodes cannot be changed in place; use {@link #withName(String)} instead.
+	 * 
+	 * @param name Ignored.
+	 * @throws UnsupportedOperationException Always.
+	 */
+	@Override
+	public void setName(@NonNull String name) {
+		throw new UnsupportedOperationException(IMMUTABLE);
+	}
+
+
+	/**
+	 * Getter: Returns {@code null}, since persistent nodes can be shared between many parents.
+	 * 
+	 * @return {@code null}
+	 */
+	@Override
+	public @Nullable DataNode getParent() {
+		return null;
+	}
+
+	/**
+	 * Persistent nodes do not know their parents.
+	 * 
+	 * @param parent Ignored.
+	 * @throws UnsupportedOperationException Always.
+	 */
+	@Override
+	public void setParent(@Nullable DataNode parent) {
+		throw new UnsupportedOperationException(IMMUTABLE);
+	}
+
+
+	/**
+	 * Getter: Returns an unmodifiable list of the arguments of this node.
+	 * 
+	 * @return {@link #args}
+	 */
+	@Override
+	public @NonNull List<String> getArgs() {
+		return args;
+	}
+
+	/**
+	 * Persistent nodes cannot be changed in place; use {@link #withArgs(List)} instead.
+	 * 
+	 * @param args Ignored.
+	 * @throws UnsupportedOperationException Always.
+	 */
+	@Override
+	public void setArgs(@NonNull List<String> args) {
+		throw new UnsupportedOperationException(IMMUTABLE);
+	}
+
+
+	/**
+	 * Getter: Returns an unmodifiable list of the children of this node, all of which are persistent nodes.
+	 * 
+	 * @return {@link #children}
+	 */
+	@Override
+	public @NonNull List<DataNode> getChildren() {
+		return children;
+	}
+
+	/**
+	 * Persistent nodes cannot be changed in place; use {@link #withChildren(List)} instead.
+	 * 
+	 * @param children Ignored.
+	 * @throws UnsupportedOperationException Always.
+	 */
+	@Override
+	public void setChildren(@NonNull List<DataNode> children) {
+		throw new UnsupportedOperationException(IMMUTABLE);
+	}
+
+
+	/**
+	 * Getter: Returns the line number this node was parsed from.
+	 * 
+	 * @return {@link #line}
+	 */
+	public int getLine() {
+		return line;
+	}
+
+
+	/**
+	 * Getter: Returns the file this node was parsed from.
+	 * 
+	 * @return {@link #file}
+	 */
+	public @Nullable File getFile() {
+		return file;
+	}
+
+
+
+	// MARK: Nested Types
+	/** A node being copied, whose children are copied first. */
+	private static final class Level {
+		/** The node being copied. */
+		private final @NonNull DataNode source;
+
+		/** The children of the node which have not been started yet. */
+		private final @NonNull Iterator<DataNode> remaining;
+
+		/** The persistent copies of the children, in order. */
+		private final @NonNull List<DataNode> children;
+
+
+		/**
+		 * Sole constructor.
+		 * 
+		 * @param source The node being copied.
+		 */
+		private Level(@NonNull DataNode source) {
+			this.source = source;
+			this.remaining = source.getChildren().iterator();
+			this.children = new ArrayList<>(source.countChildren());
+		}
+	}
+}
@@ -23,4 +23,15 @@ public class ReaderException extends Exception {
 	public ReaderException(String message) {
 		super(message);
 	}
+
+
+	/**
+	 * Constructs a new file exception with the given message and underlying cause.
+	 * 
+	 * @param message The error message for this instruction
+	 * @param cause The exception which prevented the file from being read
+	 */
+	public ReaderException(String message, Throwable cause) {
+		super(message, cause);
+	}
 }
@@ -0,0 +1,177 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import java.util.function.UnaryOperator;
+
+import org.jspecify.annotations.*;
+
+/**
+ * A tree which can be read by any number of threads while other threads change it.
+ * 
+ * The tree is kept as a {@link PersistentNode}, and every change publishes a new version of it,
+ * sharing every node which did not change with the previous version. Readers never lock: they
+ * take the current root, and see a consistent tree for as long as they hold on to it, however
+ * many changes are made in the meantime. Changes are made one at a time, so each change sees
+ * the result of the one before it.
+ */
+public final class SharedTree {
+	// MARK: Fields
+	/** The current version of the tree. */
+	private volatile @NonNull Version current;
+
+
+
+	// MARK: Constructor
+	/**
+	 * Sole constructor.
+	 * 
+	 * @param root The root of the initial tree, which is copied unless it is already persistent.
+	 */
+	public SharedTree(@NonNull DataNode root) {
+		this.current = new Version(PersistentNode.of(root), 0);
+	}
+
+
+
+	// MARK: Methods
+	/**
+	 * Changes the tree. The edit is run exactly once, while no other changes are being made.
+	 * 
+	 * @param edit A function which is given the current root, and returns the new root.
+	 * @return The new root.
+	 */
+	public synchronized @NonNull PersistentNode update(@NonNull UnaryOperator<PersistentNode> edit) {
+		final Version before = current;
+		final PersistentNode root = edit.apply(before.root());
+		if (root != before.root()) current = new Version(root, before.number() + 1);
+		return root;
+	}
+
+
+	/**
+	 * Changes a descendant of the root, copying only the nodes on the path to it.
+	 * 
+	 * @param path The index of the child to follow at each level, starting from the root.
+	 * @param edit A function which is given the descendant, and returns its replacement.
+	 * @return The new root.
+	 * @see PersistentNode#update(int[], UnaryOperator)
+	 */
+	public @NonNull PersistentNode update(int @NonNull [] path, @NonNull UnaryOperator<PersistentNode> edit) {
+		return update(root -> root.update(path, edit));
+	}
+
+
+
+	/**
+	 * Replaces the whole tree, such as after reloading it from disk.
+	 * 
+	 * @param root The root of the new tree, which is copied unless it is already persistent.
+	 * @return The new root.
+	 */
+	public @NonNull PersistentNode replace(@NonNull DataNode root) {
+		final PersistentNode persistent = PersistentNode.of(root);
+		return update(old -> persistent);
+	}
+
+
+
+	/**
+	 * Puts a top-level node into the tree, replacing the first top-level node with the same name
+	 * and first argument, or adding it at the end if there is none.
+	 * 
+	 * @param node The node to put, which is copied unless it is already persistent.
+	 * @return The new root.
+	 */
+	public @NonNull PersistentNode put(@NonNull DataNode node) {
+		final PersistentNode persistent = PersistentNode.of(node);
+		return update(root -> {
+			final int index = indexOf(root, node.getName(), node.countArgs() == 0 ? null : node.getArg(0));
+			return index < 0 ? root.withChildAdded(persistent) : root.withChild(index, persistent);
+		});
+	}
+
+
+
+	/**
+	 * Removes the first top-level node with a name and first argument.
+	 * 
+	 * @param name The name of the node to remove.
+	 * @param arg The first argument of the node to remove.
+	 * @return The new root, which is unchanged if there was no such node.
+	 */
+	public @NonNull PersistentNode remove(@NonNull String name, @NonNull String arg) {
+		return update(root -> {
+			final int index = indexOf(root, name, arg);
+			return index < 0 ? root : root.withChildRemoved(index);
+		});
+	}
+
+
+
+	/**
+	 * Finds the first child of a node with a name and first argument.
+	 * 
+	 * @param root The node to search.
+	 * @param name The name to look for.
+	 * @param arg The first argument to look for, or {@code null} to match a child with no arguments.
+	 * @return The index of the child, or -1 if there is none.
+	 */
+	private static int indexOf(@NonNull PersistentNode root, @NonNull String name, @Nullable String arg) {
+		// Persistent children don't know their parent, so the root can't keep an index of them.
+		int i = 0;
+		for (DataNode child : root.getChildren()) {
+			if (
+				child.getName().equals(name)
+				&& (arg == null ? child.countArgs() == 0 : child.countArgs() > 0 && child.getArg(0).equals(arg))
+			) return i;
+			i++;
+		}
+		return -1;
+	}
+
+
+
+	// MARK: Getters
+	/**
+	 * Getter: Returns the current root of the tree. The root can never change, so it can be read
+	 * for as long as needed without seeing later changes.
+	 * 
+	 * @return The current root.
+	 */
+	public @NonNull PersistentNode getRoot() {
+		return current.root();
+	}
+
+	/**
+	 * Getter: Returns the number of changes which have been made to the tree. Readers can compare
+	 * this against an earlier value to find out whether anything has changed.
+	 * 
+	 * @return The current version number, starting from 0.
+	 */
+	public long getVersion() {
+		return current.number();
+	}
+
+
+
+	// MARK: Nested Types
+	/**
+	 * A version of the tree.
+	 * 
+	 * @param root The root of the tree.
+	 * @param number The number of changes made before this version.
+	 */
+	private static record Version(@NonNull PersistentNode root, long number) { }
+}
@@ -0,0 +1,242 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import java.nio.charset.StandardCharsets;
+
+import org.jspecify.annotations.*;
+
+/**
+ * A table of canonical strings, used to make sure that repeated node names and arguments
+ * share a single string instead of each node holding its own copy.
+ * 
+ * Endless Sky data repeats a few hundred names (like {@code "mass"} or {@code "hull damage"})
+ * hundreds of thousands of times, so sharing them saves a great deal of memory. Since equal
+ * strings from the same table are also identical, comparing them is very fast.
+ * 
+ * To keep the table from filling up with one-off text like descriptions, strings longer than
+ * a maximum length are never stored, and once the table is full no more strings are added.
+ * A table can be shared by several readers, including readers on different threads.
+ */
+public final class SymbolTable {
+	// MARK: Constants
+	/** The default maximum number of strings to store. */
+	public static final int DEFAULT_MAX_SIZE = 1 << 16;
+
+	/** The default maximum length of a string to store. */
+	public static final int DEFAULT_MAX_LENGTH = 48;
+
+	/** The number of slots a new table starts with. */
+	private static final int INITIAL_CAPACITY = 256;
+
+
+
+	// MARK: Fields
+	/** The maximum number of strings to store. */
+	private final int maxSize;
+
+	/** The maximum length of a string to store. */
+	private final int maxLength;
+
+	/**
+	 * The stored strings, in an open-addressed hash table which is never more than half full.
+	 * The array is replaced when it grows, and slots are only ever filled in, so it can be
+	 * read without locking.
+	 */
+	private volatile String @NonNull [] table;
+
+	/** The number of strings stored. Only accessed while synchronized. */
+	private int size;
+
+
+
+	// MARK: Constructors
+	/**
+	 * Primary constructor.
+	 * 
+	 * @param maxSize The maximum number of strings to store.
+	 * @param maxLength The maximum length of a string to store.
+	 */
+	public SymbolTable(int maxSize, int maxLength) {
+		this.maxSize = maxSize;
+		this.maxLength = maxLength;
+		this.table = new String[INITIAL_CAPACITY];
+	}
+
+
+	/**
+	 * A simplified constructor using the default maximum size and length.
+	 */
+	public SymbolTable() {
+		this(DEFAULT_MAX_SIZE, DEFAULT_MAX_LENGTH);
+	}
+
+
+
+	// MARK: Methods
+	/**
+	 * Gets the canonical copy of a string, adding it to the table if there is room.
+	 * 
+	 * @param string The string to look up.
+	 * @return A string equal to {@code string}, which is the same instance every time
+	 * unless the string is too long or the table is full.
+	 */
+	public @NonNull String intern(@NonNull String string) {
+		if (string.length() > maxLength) return string;
+
+		final String[] current = table;
+		final int mask = current.length - 1;
+		for (int i = string.hashCode() & mask; current[i] != null; i = (i + 1) & mask) {
+			if (current[i].equals(string)) return current[i];
+		}
+		return add(string);
+	}
+
+
+	/**
+	 * Gets the canonical copy of a string held as ASCII bytes. If the string is already in
+	 * the table, no new string is created.
+	 * 
+	 * @param data The array holding the string.
+	 * @param start The index of the first byte of the string.
+	 * @param end The index after the last byte of the string.
+	 * @return The string, which is the same instance every time unless the string is too long
+	 * or the table is full.
+	 */
+	@NonNull String intern(byte @NonNull [] data, int start, int end) {
+		final int length = end - start;
+		if (length > maxLength) return new String(data, start, length, StandardCharsets.ISO_8859_1);
+
+		// This matches String.hashCode() for ASCII strings.
+		int hash = 0;
+		for (int i = start; i < end; i++) {
+			hash = 31 * hash + data[i];
+		}
+
+		final String[] current = table;
+		final int mask = current.length - 1;
+		for (int i = hash & mask; current[i] != null; i = (i + 1) & mask) {
+			if (matches(current[i], data, start, length)) return current[i];
+		}
+		return add(new String(data, start, length, StandardCharsets.ISO_8859_1));
+	}
+
+
+
+	/**
+	 * Adds a string to the table if it is not already there and there is room.
+	 * 
+	 * @param string The string to add.
+	 * @return The canonical copy of the string.
+	 */
+	private synchronized @NonNull String add(@NonNull String string) {
+		String[] current = table;
+		int mask = current.length - 1;
+		int i = string.hashCode() & mask;
+		while (current[i] != null) {
+			// Another thread may have added it since the caller looked.
+			if (current[i].equals(string)) return current[i];
+			i = (i + 1) & mask;
+		}
+
+		if (size >= maxSize) return string;
+
+		if ((size + 1) * 2 > current.length) {
+			current = grow(current);
+			mask = current.length - 1;
+			i = string.hashCode() & mask;
+			while (current[i] != null) {
+				i = (i + 1) & mask;
+			}
+		}
+
+		current[i] = string;
+		size++;
+		table = current;
+		return string;
+	}
+
+
+
+	/**
+	 * Creates a copy of the table with twice as many slots.
+	 * 
+	 * @param current The current table.
+	 * @return The larger table.
+	 */
+	private static String @NonNull [] grow(String @NonNull [] current) {
+		final String[] larger = new String[current.length * 2];
+		final int mask = larger.length - 1;
+		for (String string : current) {
+			if (string == null) continue;
+
+			int i = string.hashCode() & mask;
+			while (larger[i] != null) {
+				i = (i + 1) & mask;
+			}
+			larger[i] = string;
+		}
+		return larger;
+	}
+
+
+
+	/**
+	 * Checks whether a string matches a range of ASCII bytes.
+	 * 
+	 * @param string The string to check.
+	 * @param data The array holding the bytes.
+	 * @param start The index of the first byte.
+	 * @param length The number of bytes.
+	 * @return {@code true} if the string and the bytes hold the same characters.
+	 */
+	private static boolean matches(@NonNull String string, byte @NonNull [] data, int start, int length) {
+		if (string.length() != length) return false;
+
+		for (int i = 0; i < length; i++) {
+			if (string.charAt(i) != data[start + i]) return false;
+		}
+		return true;
+	}
+
+
+
+	// MARK: Getters
+	/**
+	 * Getter: Returns the number of strings stored in the table.
+	 * 
+	 * @return {@link #size}
+	 */
+	public synchronized int getSize() {
+		return size;
+	}
+
+	/**
+	 * Getter: Returns the maximum number of strings this table will store.
+	 * 
+	 * @return {@link #maxSize}
+	 */
+	public int getMaxSize() {
+		return maxSize;
+	}
+
+	/**
+	 * Getter: Returns the maximum length of a string this table will store.
+	 * 
+	 * @return {@link #maxLength}
+	 */
+	public int getMaxLength() {
+		return maxLength;
+	}
+}
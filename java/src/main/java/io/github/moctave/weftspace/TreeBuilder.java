@@ -0,0 +1,152 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import org.jspecify.annotations.*;
+
+/**
+ * A node handler which stores every node it receives in a tree, as {@link LoadedNode}s.
+ * 
+ * If there is no root, top-level nodes are left without a parent, and are instead queued
+ * up to be collected one at a time once they and all their children have been received.
+ */
+final class TreeBuilder implements NodeHandler {
+	// MARK: Fields
+	/** The root node of the tree that nodes are stored in, if there is one. */
+	private final @Nullable DataNode root;
+
+	/** The file nodes are being read from. */
+	private final @NonNull File file;
+
+	/** Every node which has been started but not yet ended, innermost first. */
+	private final @NonNull Deque<DataNode> open = new ArrayDeque<>();
+
+	/** Finished top-level nodes which have not been collected yet, if there is no root. */
+	private final @NonNull Deque<DataNode> finished = new ArrayDeque<>();
+
+	/** The most recent warning received, or {@code null} if there has been none. */
+	private @Nullable String warning;
+
+	/** Whether arguments which look like numbers are parsed as soon as each node is created. */
+	private boolean cacheNumbers;
+
+
+
+	// MARK: Constructor
+	/**
+	 * Sole constructor.
+	 * 
+	 * @param root The root node of the tree that nodes are stored in, or {@code null} to queue
+	 * top-level nodes instead.
+	 * @param file The file nodes are being read from.
+	 */
+	TreeBuilder(@Nullable DataNode root, @NonNull File file) {
+		this.root = root;
+		this.file = file;
+	}
+
+
+
+	// MARK: Methods
+	/**
+	 * Creates a node and attaches it to the innermost open node, or to the root.
+	 * 
+	 * @param name The name of the node.
+	 * @param args The arguments of the node.
+	 * @param line The line the node was read from.
+	 */
+	@Override
+	public void startNode(@NonNull String name, @NonNull List<String> args, int line) {
+		final DataNode parent = open.isEmpty() ? root : open.peek();
+		final DataNode node = new LoadedNode(name, parent, args, new ArrayList<>(), line, file);
+		if (cacheNumbers) node.cacheNumbers();
+		if (parent != null) parent.addChild(node);
+		open.push(node);
+	}
+
+
+
+	/**
+	 * Closes the innermost open node, queuing it if it is a top-level node without a root.
+	 */
+	@Override
+	public void endNode() {
+		final DataNode node = open.pop();
+		if (root == null && open.isEmpty()) finished.add(node);
+	}
+
+
+
+	/**
+	 * Remembers a warning so that it can be thrown once reading is complete.
+	 * 
+	 * @param message A description of the problem.
+	 */
+	@Override
+	public void warning(@NonNull String message) {
+		warning = message;
+	}
+
+
+
+	/**
+	 * Collects the oldest finished top-level node from the queue.
+	 * 
+	 * @return The node, or {@code null} if no top-level nodes are waiting.
+	 */
+	@Nullable DataNode pollFinished() {
+		return finished.poll();
+	}
+
+
+
+	/**
+	 * Checks whether any finished top-level nodes are waiting in the queue.
+	 * 
+	 * @return {@code true} if there is a node to collect.
+	 */
+	boolean hasFinished() {
+		return !finished.isEmpty();
+	}
+
+
+
+	// MARK: Getters / Setters
+	/**
+	 * Getter: Returns the most recent warning received.
+	 * 
+	 * @return {@link #warning}
+	 */
+	public @Nullable String getWarning() {
+		return warning;
+	}
+
+
+	/**
+	 * Setter: Changes whether arguments which look like numbers are parsed as soon as each node
+	 * is created.
+	 * 
+	 * @param cacheNumbers The new value for {@link #cacheNumbers}.
+	 * @see DataNode#cacheNumbers()
+	 */
+	void setCacheNumbers(boolean cacheNumbers) {
+		this.cacheNumbers = cacheNumbers;
+	}
+}
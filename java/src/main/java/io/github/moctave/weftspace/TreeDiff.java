@@ -0,0 +1,428 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+import org.jspecify.annotations.*;
+
+/**
+ * Compares two trees of nodes, and lists what was added, removed, changed, or moved between them.
+ * 
+ * Children are matched by their name and first argument rather than by their position, so
+ * inserting a ship at the top of a file only reports that ship as added. When several siblings
+ * share a name and first argument, they are matched in the order they appear. Subtrees which
+ * are equal are skipped without looking inside them, using their remembered hash codes, so
+ * comparing two large trees which differ in only a few places is quick.
+ * 
+ * Children which are left over are then matched by name alone if they have no children of their
+ * own, so changing a single value such as {@code mass 300} is reported as a change. Any other
+ * node whose name or first argument changes is reported as removed from the first tree and added
+ * to the second.
+ */
+public final class TreeDiff {
+	// MARK: Constructor
+	/**
+	 * Trees are compared with {@link #compare(DataNode, DataNode)}, so this class is never instantiated.
+	 */
+	private TreeDiff() {
+		// Never called.
+	}
+
+
+
+	// MARK: Methods
+	/**
+	 * Compares two trees.
+	 * 
+	 * @param before The root of the older tree.
+	 * @param after The root of the newer tree.
+	 * @return Every difference between the trees, in the order they are found, with the changes
+	 * to each node listed before the changes to its children.
+	 */
+	public static @NonNull List<Change> compare(@NonNull DataNode before, @NonNull DataNode after) {
+		final List<Change> changes = new ArrayList<>();
+		if (!same(before, after)) comparePair(before, after, "", changes);
+		return changes;
+	}
+
+
+
+	/**
+	 * Compares two matched nodes which are known to be different.
+	 * 
+	 * @param before The node from the older tree.
+	 * @param after The node from the newer tree.
+	 * @param path The path to the node.
+	 * @param changes The list to add differences to.
+	 */
+	private static void comparePair(
+		@NonNull DataNode before,
+		@NonNull DataNode after,
+		@NonNull String path,
+		@NonNull List<Change> changes
+	) {
+		if (!before.getName().equals(after.getName()) || !before.getArgs().equals(after.getArgs())) {
+			changes.add(new Change(Kind.CHANGED, path, before, after));
+		}
+
+		final List<DataNode> older = before.getChildren();
+		final List<DataNode> newer = after.getChildren();
+		final int[] match = match(older, newer);
+		final boolean[] moved = moved(match);
+
+		final boolean[] kept = new boolean[older.size()];
+		for (int index : match) {
+			if (index >= 0) kept[index] = true;
+		}
+
+		final Siblings olderPaths = new Siblings(older, path);
+		for (int i = 0; i < kept.length; i++) {
+			if (!kept[i]) changes.add(new Change(Kind.REMOVED, olderPaths.path(i), older.get(i), null));
+		}
+
+		final Siblings newerPaths = new Siblings(newer, path);
+		for (int i = 0; i < match.length; i++) {
+			final DataNode child = newer.get(i);
+			if (match[i] < 0) {
+				changes.add(new Change(Kind.ADDED, newerPaths.path(i), null, child));
+				continue;
+			}
+
+			final DataNode original = older.get(match[i]);
+			if (moved[i]) changes.add(new Change(Kind.MOVED, newerPaths.path(i), original, child));
+			if (!same(original, child)) comparePair(original, child, newerPaths.path(i), changes);
+		}
+	}
+
+
+
+	/**
+	 * Checks whether two subtrees are equal. Once their hash codes are known, different subtrees
+	 * are told apart without looking inside them.
+	 * 
+	 * @param before The node from the older tree.
+	 * @param after The node from the newer tree.
+	 * @return {@code true} if the subtrees are equal.
+	 */
+	private static boolean same(@NonNull DataNode before, @NonNull DataNode after) {
+		return before == after || (before.hashCode() == after.hashCode() && before.equals(after));
+	}
+
+
+
+	/**
+	 * Matches the children of a node in the newer tree with the children of the same node in the older tree.
+	 * 
+	 * @param older The children in the older tree.
+	 * @param newer The children in the newer tree.
+	 * @return The index in the older list of each newer child's match, or -1 for children with no match.
+	 */
+	private static int @NonNull [] match(@NonNull List<DataNode> older, @NonNull List<DataNode> newer) {
+		final int[] match = new int[newer.size()];
+
+		// Usually the children are still in the same order, so check that first.
+		if (older.size() == newer.size()) {
+			boolean aligned = true;
+			for (int i = 0; i < match.length && aligned; i++) {
+				aligned = keyOf(older.get(i)).equals(keyOf(newer.get(i)));
+				match[i] = i;
+			}
+			if (aligned) return match;
+		}
+
+		final Map<Key, ArrayDeque<Integer>> unmatched = new HashMap<>();
+		for (int i = 0; i < older.size(); i++) {
+			unmatched.computeIfAbsent(keyOf(older.get(i)), key -> new ArrayDeque<>(1)).add(i);
+		}
+		boolean leftover = false;
+		for (int i = 0; i < match.length; i++) {
+			final ArrayDeque<Integer> candidates = unmatched.get(keyOf(newer.get(i)));
+			match[i] = (candidates == null || candidates.isEmpty()) ? -1 : candidates.poll();
+			leftover |= match[i] < 0;
+		}
+
+		if (leftover) matchLeaves(older, newer, match, unmatched);
+		return match;
+	}
+
+
+
+	/**
+	 * Matches leftover children with no children of their own by name alone, so that a line like
+	 * {@code mass 300} which becomes {@code mass 350} is reported as changed.
+	 * 
+	 * @param older The children in the older tree.
+	 * @param newer The children in the newer tree.
+	 * @param match The matches found so far, which are filled in.
+	 * @param unmatched The older children which have not been matched yet, by key.
+	 */
+	private static void matchLeaves(
+		@NonNull List<DataNode> older,
+		@NonNull List<DataNode> newer,
+		int @NonNull [] match,
+		@NonNull Map<Key, ArrayDeque<Integer>> unmatched
+	) {
+		final boolean[] free = new boolean[older.size()];
+		for (ArrayDeque<Integer> candidates : unmatched.values()) {
+			for (int index : candidates) {
+				free[index] = true;
+			}
+		}
+
+		final Map<String, ArrayDeque<Integer>> leaves = new HashMap<>();
+		for (int i = 0; i < free.length; i++) {
+			if (free[i] && older.get(i).countChildren() == 0) {
+				leaves.computeIfAbsent(older.get(i).getName(), name -> new ArrayDeque<>(1)).add(i);
+			}
+		}
+		if (leaves.isEmpty()) return;
+
+		for (int i = 0; i < match.length; i++) {
+			if (match[i] >= 0 || newer.get(i).countChildren() > 0) continue;
+			final ArrayDeque<Integer> candidates = leaves.get(newer.get(i).getName());
+			if (candidates != null && !candidates.isEmpty()) match[i] = candidates.poll();
+		}
+	}
+
+
+
+	/**
+	 * Works out which matched children have moved. The longest run of matches which are still
+	 * in their original order stays put, and every other match has moved.
+	 * 
+	 * @param match The index in the older list of each newer child's match, or -1 for no match.
+	 * @return Whether each newer child has moved.
+	 */
+	private static boolean @NonNull [] moved(int @NonNull [] match) {
+		final boolean[] moved = new boolean[match.length];
+		final int[] tails = new int[match.length];
+		final int[] previous = new int[match.length];
+		int length = 0;
+
+		// Find the longest increasing subsequence of matches, remembering the end of each length.
+		for (int i = 0; i < match.length; i++) {
+			if (match[i] < 0) continue;
+			moved[i] = true;
+
+			int low = 0;
+			int high = length;
+			while (low < high) {
+				final int middle = (low + high) >>> 1;
+				if (match[tails[middle]] < match[i]) {
+					low = middle + 1;
+				} else {
+					high = middle;
+				}
+			}
+			previous[i] = low > 0 ? tails[low - 1] : -1;
+			tails[low] = i;
+			if (low == length) length++;
+		}
+
+		for (int i = length > 0 ? tails[length - 1] : -1; i >= 0; i = previous[i]) {
+			moved[i] = false;
+		}
+		return moved;
+	}
+
+
+
+	/**
+	 * Gets the key a node is matched by.
+	 * 
+	 * @param node The node.
+	 * @return The name and first argument of the node.
+	 */
+	private static @NonNull Key keyOf(@NonNull DataNode node) {
+		return new Key(node.getName(), node.countArgs() == 0 ? null : node.getArg(0));
+	}
+
+
+
+	/**
+	 * Puts quotes around a word in a path if it would not otherwise be read back as a single token
+	 * by {@link NodeQuery}.
+	 * 
+	 * @param word The word to quote.
+	 * @return The word, quoted if necessary.
+	 */
+	private static @NonNull String quote(@NonNull String word) {
+		if (!word.isEmpty() && !word.equals("*") && !word.endsWith("]") && word.indexOf(' ') < 0
+			&& word.indexOf('/') < 0 && word.indexOf('"') < 0 && word.indexOf('`') < 0) {
+			return word;
+		}
+		return word.indexOf('"') < 0 ? "\"" + word + "\"" : "`" + word + "`";
+	}
+
+
+
+	// MARK: Nested Types
+	/**
+	 * The kinds of difference between two trees.
+	 */
+	public static enum Kind {
+		/** A node which is only in the newer tree. */
+		ADDED,
+
+		/** A node which is only in the older tree. */
+		REMOVED,
+
+		/** A node whose name or arguments have changed. Changes to its children are listed separately. */
+		CHANGED,
+
+		/** A node which is in a different place among its siblings. */
+		MOVED
+	}
+
+
+
+	/**
+	 * A single difference between two trees.
+	 * 
+	 * @param kind The kind of difference.
+	 * @param path The path to the node, in the form used by {@link NodeQuery}, as it is in the newer
+	 * tree (or the older tree, for removed nodes). Passing it to {@link NodeQuery#first(DataNode)}
+	 * finds the node again.
+	 * @param before The node in the older tree, or {@code null} if it was added.
+	 * @param after The node in the newer tree, or {@code null} if it was removed.
+	 */
+	public static record Change(
+		@NonNull Kind kind,
+		@NonNull String path,
+		@Nullable DataNode before,
+		@Nullable DataNode after
+	) {
+		/**
+		 * Gets the file the node was loaded from.
+		 * 
+		 * @return The file the newer node was loaded from (or the older node, if it was removed),
+		 * or {@code null} if it was not loaded from a file.
+		 */
+		public @Nullable File getFile() {
+			return (after == null ? before : after).sourceFile();
+		}
+
+
+		/**
+		 * Gets the line the node was loaded from.
+		 * 
+		 * @return The line the newer node was loaded from (or the older node, if it was removed),
+		 * or 0 if it was not loaded from a file.
+		 */
+		public int getLine() {
+			return (after == null ? before : after).sourceLine();
+		}
+
+
+		/**
+		 * Describes this difference in a single line, such as {@code changed ship Kestrel/mass (ships.txt:12)}.
+		 * 
+		 * @return A description of this difference.
+		 */
+		@Override
+		public @NonNull String toString() {
+			final File file = getFile();
+			final String where = file == null ? "" : " (" + file.getName() + ":" + getLine() + ")";
+			return kind.name().toLowerCase(Locale.ROOT) + " " + path + where;
+		}
+	}
+
+
+
+	/**
+	 * A name and first argument, used to match children.
+	 * 
+	 * @param name The name of the node.
+	 * @param arg The first argument of the node, or {@code null} if it has no arguments.
+	 */
+	private static record Key(@NonNull String name, @Nullable String arg) { }
+
+
+
+	/**
+	 * The children of a node, which works out the path to each child when it is first needed.
+	 */
+	private static final class Siblings {
+		/** The children. */
+		private final @NonNull List<DataNode> nodes;
+
+		/** The path to their parent. */
+		private final @NonNull String parent;
+
+		/** How many earlier siblings each child's path also matches, or {@code null} if not counted yet. */
+		private int @Nullable [] positions;
+
+
+		/**
+		 * Sole constructor.
+		 * 
+		 * @param nodes The children.
+		 * @param parent The path to their parent.
+		 */
+		Siblings(@NonNull List<DataNode> nodes, @NonNull String parent) {
+			this.nodes = nodes;
+			this.parent = parent;
+		}
+
+
+		/**
+		 * Gets the path to one of the children.
+		 * 
+		 * @param i The index of the child.
+		 * @return The path to the child.
+		 */
+		@NonNull String path(int i) {
+			if (positions == null) positions = count();
+
+			final DataNode node = nodes.get(i);
+			final StringBuilder step = new StringBuilder(parent);
+			if (!parent.isEmpty()) step.append('/');
+			step.append(quote(node.getName()));
+			if (node.countArgs() > 0) step.append(' ').append(quote(node.getArg(0)));
+			if (positions[i] > 0) step.append(" [").append(positions[i]).append(']');
+			return step.toString();
+		}
+
+
+		/**
+		 * Counts how many earlier siblings match the same step as each child. A step with an argument
+		 * only matches siblings with the same first argument, but a step without one matches every
+		 * sibling with the same name.
+		 * 
+		 * @return The position of each child among the siblings its step matches.
+		 */
+		private int @NonNull [] count() {
+			final int[] counted = new int[nodes.size()];
+			final Map<String, Integer> byName = new HashMap<>();
+			final Map<Key, Integer> byKey = new HashMap<>();
+			for (int i = 0; i < counted.length; i++) {
+				final DataNode node = nodes.get(i);
+				final int named = byName.merge(node.getName(), 1, Integer::sum) - 1;
+				if (node.countArgs() == 0) {
+					counted[i] = named;
+				} else {
+					counted[i] = byKey.merge(keyOf(node), 1, Integer::sum) - 1;
+				}
+			}
+			return counted;
+		}
+	}
+}
@@ -0,0 +1,451 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BiFunction;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+import org.jspecify.annotations.*;
+
+/**
+ * Reduces a tree of nodes to a single result from the bottom up, spreading the work over a
+ * {@link ForkJoinPool}. The reducer is given each node along with the results for its children,
+ * in order, and returns the result for that node. This can be used for validation (collecting
+ * problems), aggregation (adding up values), or transformation (building a new tree).
+ * 
+ * Subtrees with no more than {@link #getThreshold()} nodes are reduced on a single thread
+ * without recursion. Larger subtrees are split up, with their small children grouped into tasks
+ * of about the threshold size and each large child handled as a task of its own. The reducer
+ * may be called from several threads at once, so it must not depend on shared mutable state.
+ * The tree must not be changed while it is being reduced.
+ * 
+ * @param <R> The type of result.
+ */
+public final class TreeReducer<R> {
+	// MARK: Constants
+	/** The default largest number of nodes reduced on a single thread. */
+	public static final int DEFAULT_THRESHOLD = 1024;
+
+
+
+	// MARK: Fields
+	/** The function which combines a node with the results for its children. */
+	private final @NonNull BiFunction<DataNode, List<R>, R> reducer;
+
+	/** The largest number of nodes reduced on a single thread. */
+	private int threshold = DEFAULT_THRESHOLD;
+
+	/** The pool tasks are run in. */
+	private @NonNull ForkJoinPool pool = ForkJoinPool.commonPool();
+
+
+
+	// MARK: Constructor
+	/**
+	 * Sole constructor.
+	 * 
+	 * @param reducer A function which is given a node and the results for its children, in order,
+	 * and returns the result for the node.
+	 */
+	public TreeReducer(@NonNull BiFunction<DataNode, List<R>, R> reducer) {
+		this.reducer = reducer;
+	}
+
+
+
+	// MARK: Methods
+	/**
+	 * Creates a reducer which maps every node to a value, and combines the values of each node
+	 * and its descendants, such as adding up the cost of everything in a tree.
+	 * 
+	 * @param <R> The type of result.
+	 * @param map A function which gets the value of a single node.
+	 * @param combine An associative function which combines two values.
+	 * @return The reducer.
+	 */
+	public static <R> @NonNull TreeReducer<R> mapReduce(
+		@NonNull Function<DataNode, R> map,
+		@NonNull BinaryOperator<R> combine
+	) {
+		return new TreeReducer<>((node, results) -> fold(map.apply(node), results, combine));
+	}
+
+
+
+	/**
+	 * Combines a value with a list of other values, in order.
+	 * 
+	 * @param <R> The type of value.
+	 * @param first The first value.
+	 * @param rest The values to combine with it.
+	 * @param combine The function which combines two values.
+	 * @return The combined value.
+	 */
+	private static <R> R fold(R first, @NonNull List<R> rest, @NonNull BinaryOperator<R> combine) {
+		R total = first;
+		for (R value : rest) {
+			total = combine.apply(total, value);
+		}
+		return total;
+	}
+
+
+
+	/**
+	 * Reduces a tree, splitting large subtrees between the threads of the pool.
+	 * 
+	 * @param root The root of the tree.
+	 * @return The result for the root.
+	 */
+	public R reduce(@NonNull DataNode root) {
+		return pool.invoke(new NodeTask<>(this, root));
+	}
+
+
+
+	/**
+	 * Reduces a tree on the calling thread, without recursion.
+	 * 
+	 * @param root The root of the tree.
+	 * @return The result for the root.
+	 */
+	public R reduceSequentially(@NonNull DataNode root) {
+		final Deque<Frame<R>> stack = new ArrayDeque<>();
+		stack.push(new Frame<>(root));
+		while (true) {
+			final Frame<R> top = stack.peek();
+			if (top.next < top.node.countChildren()) {
+				stack.push(new Frame<>(top.node.getChild(top.next++)));
+				continue;
+			}
+
+			stack.pop();
+			final R result = reducer.apply(top.node, top.results);
+			if (stack.isEmpty()) return result;
+			stack.peek().results.add(result);
+		}
+	}
+
+
+
+	/**
+	 * Counts the nodes in a subtree, giving up once there are more than the threshold.
+	 * 
+	 * @param node The root of the subtree.
+	 * @return The number of nodes, or any number over the threshold if there are too many.
+	 */
+	private int countUpToThreshold(@NonNull DataNode node) {
+		final Deque<DataNode> pending = new ArrayDeque<>();
+		pending.push(node);
+		int count = 0;
+		while (!pending.isEmpty() && count <= threshold) {
+			count++;
+			for (DataNode child : pending.pop().getChildren()) {
+				pending.push(child);
+			}
+		}
+		return count;
+	}
+
+
+
+	/**
+	 * Starts tasks for the children of a large node. Small children are grouped together, and
+	 * each large child gets a task of its own, except for the first, which is left for the calling
+	 * thread to handle itself.
+	 * 
+	 * @param node The node, which must have more nodes than the threshold.
+	 * @return The started tasks, and the child left for the calling thread.
+	 */
+	private @NonNull Level<R> split(@NonNull DataNode node) {
+		final Level<R> level = new Level<>(node);
+		final int count = node.countChildren();
+		int from = 0;
+		int grouped = 0;
+		for (int i = 0; i < count; i++) {
+			final int size = countUpToThreshold(node.getChild(i));
+			if (size <= threshold) {
+				grouped += size;
+				if (grouped >= threshold) {
+					level.start(new GroupTask<>(this, node, from, i + 1, false));
+					from = i + 1;
+					grouped = 0;
+				}
+				continue;
+			}
+
+			if (from < i) level.start(new GroupTask<>(this, node, from, i, false));
+			if (level.inline < 0) {
+				level.inline = i;
+			} else {
+				level.start(new GroupTask<>(this, node, i, i + 1, true));
+			}
+			from = i + 1;
+			grouped = 0;
+		}
+		if (from < count) level.start(new GroupTask<>(this, node, from, count, false));
+		return level;
+	}
+
+
+
+	// MARK: Getters / Setters
+	/**
+	 * Getter: Returns the largest number of nodes reduced on a single thread.
+	 * 
+	 * @return {@link #threshold}
+	 */
+	public int getThreshold() {
+		return threshold;
+	}
+
+	/**
+	 * Setter: Sets the largest number of nodes reduced on a single thread. Lower thresholds split
+	 * the work more finely, at the cost of more tasks.
+	 * 
+	 * @param threshold The new threshold, which must be at least 1.
+	 * @throws IllegalArgumentException If the threshold is less than 1.
+	 */
+	public void setThreshold(int threshold) {
+		if (threshold < 1) throw new IllegalArgumentException("Threshold must be at least 1: " + threshold);
+		this.threshold = threshold;
+	}
+
+
+	/**
+	 * Getter: Returns the pool tasks are run in.
+	 * 
+	 * @return {@link #pool}
+	 */
+	public @NonNull ForkJoinPool getPool() {
+		return pool;
+	}
+
+	/**
+	 * Setter: Sets the pool tasks are run in. By default, this is the common pool.
+	 * 
+	 * @param pool The new pool.
+	 */
+	public void setPool(@NonNull ForkJoinPool pool) {
+		this.pool = pool;
+	}
+
+
+
+	// MARK: Nested Types
+	/**
+	 * A node being reduced on a single thread, along with the results for the children reduced so far.
+	 * 
+	 * @param <R> The type of result.
+	 */
+	private static final class Frame<R> {
+		/** The node. */
+		private final @NonNull DataNode node;
+
+		/** The results for the children reduced so far. */
+		private final @NonNull List<R> results;
+
+		/** The index of the next child to reduce. */
+		private int next;
+
+
+		/**
+		 * Sole constructor.
+		 * 
+		 * @param node The node.
+		 */
+		Frame(@NonNull DataNode node) {
+			this.node = node;
+			this.results = new ArrayList<>(node.countChildren());
+		}
+	}
+
+
+
+	/**
+	 * A large node whose children are being reduced by other tasks.
+	 * 
+	 * @param <R> The type of result.
+	 */
+	private static final class Level<R> {
+		/** The node. */
+		private final @NonNull DataNode node;
+
+		/** The tasks reducing the children, in order. */
+		private final @NonNull List<GroupTask<R>> tasks = new ArrayList<>();
+
+		/** The index of the child left for the calling thread, or -1 if there is none. */
+		private int inline = -1;
+
+
+		/**
+		 * Sole constructor.
+		 * 
+		 * @param node The node.
+		 */
+		Level(@NonNull DataNode node) {
+			this.node = node;
+		}
+
+
+		/**
+		 * Starts a task for some of the children.
+		 * 
+		 * @param task The task.
+		 */
+		void start(@NonNull GroupTask<R> task) {
+			task.fork();
+			tasks.add(task);
+		}
+
+
+		/**
+		 * Waits for every task to finish, and reduces the node.
+		 * 
+		 * @param reducer The function which combines a node with the results for its children.
+		 * @param inlineResult The result for the child left for the calling thread, if there is one.
+		 * @return The result for the node.
+		 */
+		R finish(@NonNull BiFunction<DataNode, List<R>, R> reducer, @Nullable R inlineResult) {
+			final List<R> results = new ArrayList<>(node.countChildren());
+			for (GroupTask<R> task : tasks) {
+				if (inline >= 0 && results.size() == inline) results.add(inlineResult);
+				results.addAll(task.join());
+			}
+			if (inline >= 0 && results.size() == inline) results.add(inlineResult);
+			return reducer.apply(node, results);
+		}
+	}
+
+
+
+	/**
+	 * A task which reduces a subtree, splitting it up if it is large.
+	 * 
+	 * @param <R> The type of result.
+	 */
+	@SuppressWarnings("serial")
+	private static final class NodeTask<R> extends RecursiveTask<R> {
+		/** The reducer which started this task. */
+		private final @NonNull TreeReducer<R> owner;
+
+		/** The root of the subtree. */
+		private final @NonNull DataNode root;
+
+
+		/**
+		 * Sole constructor.
+		 * 
+		 * @param owner The reducer which started this task.
+		 * @param root The root of the subtree.
+		 */
+		NodeTask(@NonNull TreeReducer<R> owner, @NonNull DataNode root) {
+			this.owner = owner;
+			this.root = root;
+		}
+
+
+		/**
+		 * Reduces the subtree. Rather than starting a new task for a large child and waiting for
+		 * it, one large child of each node is handled on this thread, so long chains of nodes do
+		 * not use up the call stack.
+		 * 
+		 * @return The result for the root of the subtree.
+		 */
+		@Override
+		protected R compute() {
+			if (owner.countUpToThreshold(root) <= owner.threshold) return owner.reduceSequentially(root);
+
+			final Deque<Level<R>> path = new ArrayDeque<>();
+			DataNode node = root;
+			while (node != null) {
+				final Level<R> level = owner.split(node);
+				path.push(level);
+				node = level.inline < 0 ? null : node.getChild(level.inline);
+			}
+
+			R result = null;
+			while (!path.isEmpty()) {
+				result = path.pop().finish(owner.reducer, result);
+			}
+			return result;
+		}
+	}
+
+
+
+	/**
+	 * A task which reduces a range of children of a node, in order.
+	 * 
+	 * @param <R> The type of result.
+	 */
+	@SuppressWarnings("serial")
+	private static final class GroupTask<R> extends RecursiveTask<List<R>> {
+		/** The reducer which started this task. */
+		private final @NonNull TreeReducer<R> owner;
+
+		/** The parent of the children. */
+		private final @NonNull DataNode parent;
+
+		/** The index of the first child. */
+		private final int from;
+
+		/** The index after the last child. */
+		private final int to;
+
+		/** Whether the children are large enough to be split up further. */
+		private final boolean large;
+
+
+		/**
+		 * Sole constructor.
+		 * 
+		 * @param owner The reducer which started this task.
+		 * @param parent The parent of the children.
+		 * @param from The index of the first child.
+		 * @param to The index after the last child.
+		 * @param large Whether the children are large enough to be split up further.
+		 */
+		GroupTask(@NonNull TreeReducer<R> owner, @NonNull DataNode parent, int from, int to, boolean large) {
+			this.owner = owner;
+			this.parent = parent;
+			this.from = from;
+			this.to = to;
+			this.large = large;
+		}
+
+
+		/**
+		 * Reduces each child.
+		 * 
+		 * @return The results for the children, in order.
+		 */
+		@Override
+		protected @NonNull List<R> compute() {
+			final List<R> results = new ArrayList<>(to - from);
+			for (int i = from; i < to; i++) {
+				final DataNode child = parent.getChild(i);
+				results.add(large ? new NodeTask<>(owner, child).compute() : owner.reduceSequentially(child));
+			}
+			return results;
+		}
+	}
+}
@@ -0,0 +1,112 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * A small benchmark which measures how many bytes are allocated for each line parsed.
+ * It is not run as part of the test suite; run it by hand with:
+ * 
+ * <pre>
+ * mvn test-compile
+ * java -cp target/classes:target/test-classes:[jspecify jar] io.github.moctave.weftspace.AllocationBenchmark
+ * </pre>
+ * 
+ * The figures include the nodes themselves, so they can never reach zero.
+ */
+public final class AllocationBenchmark {
+	/** Lines typical of Endless Sky data, used for the benchmark. */
+	private static final String[] LINES = {
+		"ship \"Much Confused Wardragon\"",
+		"\tattributes",
+		"\t\tcategory \"Heavy Warship\"",
+		"\t\t\"cost\" 9600000",
+		"\t\t\"mass\" 1250 # Heavy!",
+		"\t\t\"hull damage\" 6100",
+		"\t\tdescription `This Wardragon bears no resemblance to any actual ship in the game.`",
+		"\toutfits",
+		"\t\t\"Heavy Laser Turret\" 4",
+		"\t\"engine\" -12 205",
+	};
+
+	/** How many times to run each measurement before measuring it. */
+	private static final int WARMUP = 20;
+
+	/** How many lines to parse in each measurement. */
+	private static final int REPEATS = 200_000;
+
+	/** Sole constructor. Never called. */
+	private AllocationBenchmark() {
+		// Never called.
+	}
+
+
+
+	/**
+	 * Runs the benchmark and prints the results.
+	 * 
+	 * @param args Unused.
+	 */
+	public static void main(String[] args) throws IOException {
+		com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+		// makeNode() on its own
+		DataReader reader = new DataReader(new File("benchmark.txt"), new DataNode());
+		for (int w = 0; w <= WARMUP; w++) {
+			long before = bean.getCurrentThreadAllocatedBytes();
+			for (int i = 0; i < REPEATS; i++) {
+				reader.makeNode(LINES[i % LINES.length], i);
+			}
+			long after = bean.getCurrentThreadAllocatedBytes();
+			if (w == WARMUP) {
+				System.out.printf("makeNode():     %6.1f bytes per line%n", (after - before) / (double) REPEATS);
+			}
+		}
+
+		// Whole files, including the nodes kept in the tree
+		Path path = Files.createTempFile("weftspace", ".txt");
+		StringBuilder text = new StringBuilder();
+		for (int i = 0; i < REPEATS; i++) {
+			text.append(LINES[i % LINES.length]).append('\n');
+		}
+		Files.writeString(path, text);
+
+		for (String engine : new String[] {"parse()", "parseChannel()"}) {
+			for (int w = 0; w <= WARMUP; w++) {
+				DataReader fileReader = new DataReader(path.toFile(), new DataNode());
+				long before = bean.getCurrentThreadAllocatedBytes();
+				try {
+					if (engine.equals("parse()")) {
+						fileReader.parse();
+					} else {
+						fileReader.parseChannel();
+					}
+				} catch (ReaderException e) {
+					throw new IllegalStateException(e);
+				}
+				long after = bean.getCurrentThreadAllocatedBytes();
+				if (w == WARMUP) {
+					System.out.printf("%-15s %6.1f bytes per line%n", engine + ":", (after - before) / (double) REPEATS);
+				}
+			}
+		}
+
+		Files.delete(path);
+	}
+}
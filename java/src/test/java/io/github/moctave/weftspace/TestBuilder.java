@@ -15,6 +15,7 @@ package io.github.moctave.weftspace;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.junit.jupiter.api.BeforeEach;
@@ -227,6 +228,38 @@ public class TestBuilder {
 
 
 
+	// MARK: tryBuild*()
+	@Test
+	public void testTryBuildInt() {
+		assertEquals(3, Builder.tryBuildInt(testIntegerArgs, 2).getAsInt());
+		assertTrue(Builder.tryBuildInt(testIntegerArgs, 4).isEmpty());
+		assertTrue(Builder.tryBuildInt(testIntegerArgs, -1).isEmpty());
+		assertTrue(Builder.tryBuildInt(testStringArgs, 0).isEmpty());
+		assertTrue(Builder.tryBuildInt(testDoubleArgs, 0).isEmpty());
+		assertEquals(-1, Builder.buildInt(testIntegerArgs, 3, 99));
+		assertEquals(99, Builder.buildInt(testNoArgs, 0, 99));
+	}
+
+	@Test
+	public void testTryBuildDouble() {
+		assertEquals(3.14159, Builder.tryBuildDouble(testDoubleArgs, 3).getAsDouble(), 1e-6);
+		assertEquals(1., Builder.tryBuildDouble(testIntegerArgs, 0).getAsDouble());
+		assertTrue(Builder.tryBuildDouble(testStringArgs, 1).isEmpty());
+		assertTrue(Builder.tryBuildDouble(testNoArgs, 0).isEmpty());
+		assertEquals(-0.8, Builder.buildDouble(testDoubleArgs, 1, 5.), 1e-9);
+		assertEquals(5., Builder.buildDouble(testStringArgs, 0, 5.));
+	}
+
+	@Test
+	public void testTryBuildLong() {
+		assertEquals(2L, Builder.tryBuildLong(testIntegerArgs, 1).getAsLong());
+		assertTrue(Builder.tryBuildLong(testDoubleArgs, 2).isEmpty());
+		assertTrue(Builder.tryBuildLong(testNoArgs, 0).isEmpty());
+		assertEquals(7L, Builder.buildLong(testStringArgs, 1, 7L));
+	}
+
+
+
 	// MARK: search()
 	@Test
 	public void testSearchNoMatch() {
@@ -272,4 +305,86 @@ public class TestBuilder {
 	public void testSearchSecondLevelMatch() {
 		assertNull(Builder.search(testDoubleArgs, testNoArgs));
 	}
+
+	@Test
+	public void testSearchSkipsArgless() {
+		DataNode scope = new DataNode();
+		scope.addChild(new DataNode("intargs", scope, List.of(), List.of()));
+		scope.addChild(testIntegerArgs);
+		assertEquals(testIntegerArgs, Builder.search(testIntegerArgs, scope));
+	}
+
+	@Test
+	public void testSearchLargeScope() {
+		DataNode scope = new DataNode();
+		for (int i = 0; i < 1000; i++) {
+			scope.addChild(new DataNode("strargs", scope, List.of(Integer.toString(i)), List.of()));
+		}
+		scope.addChild(testStringArgs);
+		assertSame(testStringArgs, Builder.search(testStringArgs, scope));
+		assertSame(scope.getChild(7), Builder.search(new DataNode("strargs", null, List.of("7"), List.of()), scope));
+	}
+
+	@Test
+	public void testSearchAfterRenamingInLargeScope() {
+		DataNode scope = new DataNode();
+		for (int i = 0; i < 20; i++) {
+			scope.addChild(new DataNode("ship", scope, new ArrayList<>(List.of("S" + i)), new ArrayList<>()));
+		}
+		DataNode renamed = scope.getChild(5);
+		assertSame(renamed, Builder.search(new DataNode("ship", null, List.of("S5"), List.of()), scope));
+
+		renamed.setArgs(new ArrayList<>(List.of("Renamed")));
+		assertNull(Builder.search(new DataNode("ship", null, List.of("S5"), List.of()), scope));
+		assertSame(renamed, Builder.search(new DataNode("ship", null, List.of("Renamed"), List.of()), scope));
+
+		DataNode outfit = scope.getChild(3);
+		outfit.setName("outfit");
+		assertSame(outfit, Builder.search(new DataNode("outfit", null, List.of("S3"), List.of()), scope));
+		assertSame(outfit, scope.findChild("outfit"));
+		assertSame(outfit, NodeQuery.of("outfit").first(scope));
+
+		DataNode bare = new DataNode("planet", scope, new ArrayList<>(), new ArrayList<>());
+		scope.addChild(bare);
+		assertNull(scope.findChild("planet", "Earth"));
+		bare.addArg("Earth");
+		assertSame(bare, Builder.search(new DataNode("planet", null, List.of("Earth"), List.of()), scope));
+
+		scope.getChild(0).getArgs().set(0, "Replaced");
+		scope.getChild(0).invalidateHash();
+		assertSame(scope.getChild(0), scope.findChild("ship", "Replaced"));
+	}
+
+	@Test
+	public void testSearchLargeScopeWithoutParents() {
+		DataNode scope = new DataNode();
+		for (int i = 0; i < 20; i++) {
+			scope.addChild(new DataNode("ship", null, new ArrayList<>(List.of("S" + i)), new ArrayList<>()));
+		}
+		DataNode renamed = scope.getChild(5);
+		assertSame(renamed, Builder.search(new DataNode("ship", null, List.of("S5"), List.of()), scope));
+
+		renamed.setArgs(new ArrayList<>(List.of("X")));
+		assertSame(renamed, Builder.search(new DataNode("ship", null, List.of("X"), List.of()), scope));
+		assertNull(Builder.search(new DataNode("ship", null, List.of("S5"), List.of()), scope));
+
+		renamed.setName("outfit");
+		assertSame(renamed, scope.findChild("outfit"));
+		assertNull(Builder.search(new DataNode("ship", null, List.of("X"), List.of()), scope));
+
+		// Once every child knows its parent the index is used and kept up to date.
+		for (DataNode child : scope.getChildren()) {
+			child.setParent(scope);
+		}
+		assertSame(scope.getChild(7), Builder.search(new DataNode("ship", null, List.of("S7"), List.of()), scope));
+		scope.getChild(7).setArgs(new ArrayList<>(List.of("Y")));
+		assertSame(scope.getChild(7), Builder.search(new DataNode("ship", null, List.of("Y"), List.of()), scope));
+		assertNull(Builder.search(new DataNode("ship", null, List.of("S7"), List.of()), scope));
+
+		// A child that moves to another parent no longer keeps this scope's index up to date.
+		DataNode moved = scope.getChild(9);
+		moved.setParent(new DataNode());
+		moved.setArgs(new ArrayList<>(List.of("Z")));
+		assertSame(moved, Builder.search(new DataNode("ship", null, List.of("Z"), List.of()), scope));
+	}
 }
@@ -0,0 +1,80 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for ColumnExtractor and ColumnTable */
+public class TestColumnExtractor {
+	@Test
+	public void testExtractColumns() {
+		final DataNode root = new DataNode();
+		final int ships = 1000;
+		for (int i = 0; i < ships; i++) {
+			final DataNode ship = TestIntegration.node(root, "ship", "S" + i);
+			if (i % 3 != 0) TestIntegration.node(ship, "mass", Integer.toString(i));
+			if (i % 7 == 0) TestIntegration.node(ship, "mass", "heavy");
+			TestIntegration.node(ship, "cost", Long.toString(i * 1000000000L));
+			TestIntegration.node(TestIntegration.node(ship, "attributes"), "shields", i + ".5");
+			TestIntegration.node(ship, "position", "1", Integer.toString(-i));
+			TestIntegration.node(root, "outfit", "O" + i);
+		}
+
+		final ColumnExtractor extractor = new ColumnExtractor("ship");
+		final int mass = extractor.addDouble("mass");
+		final int cost = extractor.addLong("cost");
+		final int shields = extractor.addDouble("attributes/shields");
+		final int y = extractor.addLong("position", 1);
+		assertEquals(4, extractor.getSize());
+
+		final ColumnTable table = extractor.extract(root);
+		assertEquals(ships, table.getRows());
+		assertEquals(4, table.getColumns());
+
+		int masses = 0;
+		for (int i = 0; i < ships; i++) {
+			assertEquals("S" + i, table.getIds()[i]);
+			assertSame(root.getChild(2 * i), table.getEntity(i));
+
+			final boolean hasMass = i % 3 != 0;
+			if (hasMass) masses++;
+			assertEquals(hasMass, table.has(mass, i));
+			assertEquals(hasMass ? i : 0., table.getDoubles(mass)[i]);
+			assertEquals(i * 1000000000L, table.getLongs(cost)[i]);
+			assertEquals(i + .5, table.getDoubles(shields)[i]);
+			assertEquals((long) -i, table.getLongs(y)[i]);
+		}
+		assertEquals(masses, table.count(mass));
+		assertEquals(masses, table.getPresent(mass).cardinality());
+		assertEquals(ships, table.count(shields));
+	}
+
+	@Test
+	public void testWrongColumnType() {
+		final DataNode root = new DataNode();
+		TestIntegration.node(TestIntegration.node(root, "ship", "Kestrel"), "mass", "2.5");
+		final ColumnExtractor extractor = new ColumnExtractor(NodeQuery.of("ship"));
+		final int asLong = extractor.addLong("mass");
+		final int asDouble = extractor.addDouble("mass");
+
+		final ColumnTable table = extractor.extract(root);
+		assertFalse(table.has(asLong, 0));
+		assertTrue(table.has(asDouble, 0));
+		assertThrows(IllegalArgumentException.class, () -> table.getDoubles(asLong));
+		assertThrows(IllegalArgumentException.class, () -> table.getLongs(asDouble));
+		assertThrows(IllegalArgumentException.class, () -> extractor.addDouble("mass", -1));
+	}
+}
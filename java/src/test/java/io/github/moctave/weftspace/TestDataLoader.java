@@ -0,0 +1,93 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for DataLoader */
+public class TestDataLoader {
+	/**
+	 * Tests that loading a directory attaches nodes in path order and collects warnings.
+	 */
+	@Test
+	public void testLoadDirectory() throws IOException, ReaderException {
+		Path directory = Files.createTempDirectory("weftspace");
+		Path nested = Files.createDirectory(directory.resolve("b"));
+		Files.writeString(directory.resolve("c.txt"), "third\n");
+		Files.writeString(nested.resolve("z.txt"), "second\n\tchild\n");
+		Files.copy(new File("../testdata/terriblyindented.txt").toPath(), directory.resolve("a.txt"));
+		Files.writeString(directory.resolve("ignored.md"), "ignored\n");
+
+		DataNode root = new DataNode();
+		ForkJoinPool pool = new ForkJoinPool(2);
+		List<ReaderException> exceptions = new DataLoader(root, pool).loadDirectory(directory.toFile());
+		pool.shutdown();
+
+		assertEquals(3, root.countChildren());
+		assertEquals(TestIntegration.getTestNode(), root.getChild(0));
+		assertEquals("second", root.getChild(1).getName());
+		assertEquals("child", root.getChild(1).getChild(0).getName());
+		assertEquals("third", root.getChild(2).getName());
+		for (DataNode child : root.getChildren()) {
+			assertEquals(root, child.getParent());
+		}
+
+		assertEquals(1, exceptions.size());
+		assertTrue(exceptions.get(0).getMessage().startsWith("Warning - mixed whitespace"));
+
+		for (String name : new String[] {"a.txt", "c.txt", "ignored.md", "b/z.txt", "b"}) {
+			Files.delete(directory.resolve(name));
+		}
+		Files.delete(directory);
+	}
+
+
+
+	/**
+	 * Tests that loading a list of files matches parsing them one after another.
+	 */
+	@Test
+	public void testLoadList() {
+		List<File> files = List.of(
+			new File("../testdata/humanreadable.txt"),
+			new File("../testdata/nonexistent.txt"),
+			new File("../testdata/spaceindented.txt")
+		);
+
+		DataNode sequential = new DataNode();
+		for (File file : files) {
+			try {
+				new DataReader(file, sequential).parse();
+			} catch (ReaderException e) {
+				// Expected for the missing file
+			}
+		}
+
+		DataNode parallel = new DataNode();
+		List<ReaderException> exceptions = new DataLoader(parallel).load(files);
+
+		assertEquals(sequential, parallel);
+		assertEquals(1, exceptions.size());
+		assertTrue(exceptions.get(0).getMessage().startsWith("No such file as"));
+	}
+}
@@ -2,6 +2,7 @@ package io.github.moctave.weftspace;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import org.junit.jupiter.api.Test;
@@ -78,4 +79,115 @@ public class TestDataNode {
 		assertEquals(0, node.countArgs());
 		assertEquals(1, node.countChildren());
 	}
+
+
+
+	@Test
+	public void testFindChildSmall() {
+		DataNode first = new DataNode("ship", null, List.of("A"), List.of());
+		DataNode bare = new DataNode("ship", null, List.of(), List.of());
+		DataNode second = new DataNode("ship", null, List.of("B"), List.of());
+		DataNode node = new DataNode("root", null, List.of(), new ArrayList<>(List.of(bare, first, second)));
+
+		assertEquals(List.of(bare, first, second), node.getChildrenNamed("ship"));
+		assertEquals(List.of(), node.getChildrenNamed("outfit"));
+		assertSame(bare, node.findChild("ship"));
+		assertSame(second, node.findChild("ship", "B"));
+		assertNull(node.findChild("ship", "C"));
+		assertNull(node.findChild("outfit"));
+	}
+
+	@Test
+	public void testFindChildIndexed() {
+		DataNode node = new DataNode();
+		for (int i = 0; i < 100; i++) {
+			node.addChild(new DataNode(i % 2 == 0 ? "ship" : "outfit", node, List.of(Integer.toString(i)), List.of()));
+		}
+
+		assertEquals(50, node.getChildrenNamed("ship").size());
+		assertSame(node.getChild(42), node.findChild("ship", "42"));
+		assertSame(node.getChild(1), node.findChild("outfit"));
+		assertNull(node.findChild("ship", "43"));
+
+		// Children added after the index is built are found too.
+		DataNode late = new DataNode("ship", node, List.of("42"), List.of());
+		node.addChild(late);
+		DataNode later = new DataNode("planet", node, List.of("Earth"), List.of());
+		node.getChildren().add(later);
+		assertSame(node.getChild(42), node.findChild("ship", "42"));
+		assertEquals(51, node.getChildrenNamed("ship").size());
+		assertSame(later, node.findChild("planet", "Earth"));
+
+		node.setChildren(new ArrayList<>(node.getChildren().subList(0, 20)));
+		assertNull(node.findChild("planet"));
+		assertEquals(10, node.getChildrenNamed("outfit").size());
+		assertThrows(UnsupportedOperationException.class, () -> node.getChildrenNamed("ship").clear());
+	}
+
+	@Test
+	public void testHashCodeInvalidation() {
+		DataNode root = new DataNode();
+		DataNode ship = new DataNode("ship", root, new ArrayList<>(List.of("Kestrel")), new ArrayList<>());
+		root.addChild(ship);
+		DataNode hull = new DataNode("hull", ship, new ArrayList<>(List.of("100")), new ArrayList<>());
+		ship.addChild(hull);
+
+		final int before = root.hashCode();
+		assertEquals(before, root.hashCode());
+
+		// Changing a descendant changes the hash code of every ancestor.
+		hull.setArgs(new ArrayList<>(List.of("200")));
+		assertNotEquals(before, root.hashCode());
+		hull.setArgs(new ArrayList<>(List.of("100")));
+		assertEquals(before, root.hashCode());
+
+		hull.addArg("extra");
+		assertNotEquals(before, root.hashCode());
+
+		// Direct changes to the lists have to be reported by hand.
+		final int stale = root.hashCode();
+		hull.getArgs().remove("extra");
+		assertEquals(stale, root.hashCode());
+		hull.invalidateHash();
+		assertEquals(before, root.hashCode());
+	}
+
+	@Test
+	public void testHashCodeWithoutParents() {
+		DataNode a = new DataNode("a", null, new ArrayList<>(), new ArrayList<>());
+		DataNode r1 = new DataNode();
+		r1.addChild(a);
+		DataNode r2 = new DataNode();
+		r2.addChild(new DataNode("b", null, new ArrayList<>(), new ArrayList<>()));
+
+		// The child doesn't know its parent, so the root can't remember its hash code.
+		final int before = r1.hashCode();
+		a.setName("b");
+		r2.hashCode();
+		assertEquals(r1, r2);
+		assertNotEquals(before, r1.hashCode());
+		assertEquals(r2.hashCode(), r1.hashCode());
+
+		// Once the parent is set, changes are passed up again.
+		a.setParent(r1);
+		final int tracked = r1.hashCode();
+		a.setName("c");
+		assertNotEquals(tracked, r1.hashCode());
+		assertNotEquals(r1, r2);
+	}
+
+	@Test
+	public void testEqualsUsesCachedHashCode() {
+		DataNode a = new DataNode("X", null, new ArrayList<>(List.of("A")), new ArrayList<>());
+		DataNode b = new DataNode("X", null, new ArrayList<>(List.of("B")), new ArrayList<>());
+		a.hashCode();
+		b.hashCode();
+		assertNotEquals(a, b);
+
+		b.setArgs(new ArrayList<>(List.of("A")));
+		b.hashCode();
+		assertEquals(a, b);
+		assertEquals(a, a.freeze());
+		assertEquals(a.freeze(), b);
+	}
 }
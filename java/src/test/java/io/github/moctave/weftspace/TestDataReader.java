@@ -15,6 +15,15 @@ package io.github.moctave.weftspace;
 
 import static org.junit.jupiter.api.Assertions.*;
 
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+
 import org.junit.jupiter.api.Test;
 
 /** Unit tests for DataReader */
@@ -77,4 +86,164 @@ public class TestDataReader {
 		assertEquals(false, DataReader.containsOnlyWhitespace("a \t"));
 		assertEquals(false, DataReader.containsOnlyWhitespace("   b"));
 	}
+
+
+
+	/**
+	 * A handler which records every event it receives as a line of text.
+	 */
+	private static class RecordingHandler implements NodeHandler {
+		/** The events received so far. */
+		private final List<String> events = new ArrayList<>();
+
+		@Override
+		public void startNode(String name, List<String> args, int line) {
+			events.add(line + ": start " + name + " " + args);
+		}
+
+		@Override
+		public void endNode() {
+			events.add("end");
+		}
+
+		@Override
+		public void warning(String message) {
+			events.add("warning");
+		}
+	}
+
+
+
+	/**
+	 * Tests for {@link DataReader#stream(NodeHandler)}.
+	 */
+	@Test
+	public void testStream() throws ReaderException {
+		RecordingHandler handler = new RecordingHandler();
+		new DataReader(new File("../testdata/humanreadable.txt"), new DataNode()).stream(handler);
+
+		assertEquals(List.of(
+			"16: start ship [Much Confused Wardragon]",
+			"17: start mass [35]", "end",
+			"18: start drag [0.3]", "end",
+			"20: start weapon []",
+			"21: start hit force [308]", "end",
+			"22: start hull damage [6100]", "end",
+			"24: start shield damage [42]", "end",
+			"end",
+			"26: start description [" + TestIntegration.getTestNode().getChild(3).getArg(0) + "]", "end",
+			"end"
+		), handler.events);
+	}
+
+
+
+	/**
+	 * Tests that {@link DataReader#stream(NodeHandler)} reports mixed whitespace as a warning.
+	 */
+	@Test
+	public void testStreamWarning() throws ReaderException {
+		RecordingHandler handler = new RecordingHandler();
+		new DataReader(new File("../testdata/terriblyindented.txt"), new DataNode()).stream(handler);
+
+		assertEquals("warning", handler.events.get(handler.events.size() - 1));
+		assertEquals("end", handler.events.get(handler.events.size() - 2));
+	}
+
+
+
+	/**
+	 * Tests for {@link DataReader#nodeIterator()}.
+	 */
+	@Test
+	public void testNodeIterator() throws IOException, ReaderException {
+		Path path = Files.createTempFile("weftspace", ".txt");
+		Files.writeString(path, "ship A\n\tmass 1\n\tweapon\n\t\tdamage 2\n\noutfit B\n# comment\noutfit C\n\tcost 3");
+
+		DataNode root = new DataNode();
+		new DataReader(path.toFile(), root).parseChannel();
+
+		NodeIterator iterator = new DataReader(path.toFile(), new DataNode()).nodeIterator();
+		for (DataNode expected : root.getChildren()) {
+			assertTrue(iterator.hasNext());
+			DataNode node = iterator.next();
+			assertEquals(expected, node);
+			assertNull(node.getParent());
+			assertEquals(((LoadedNode) expected).getLine(), ((LoadedNode) node).getLine());
+		}
+		assertFalse(iterator.hasNext());
+		assertNull(iterator.getWarning());
+		try {
+			iterator.next();
+			fail();
+		} catch (NoSuchElementException e) {
+			// Expected result
+		}
+		iterator.close();
+
+		Files.delete(path);
+	}
+
+
+
+	/**
+	 * Tests that {@link DataReader#nodeIterator()} reports mixed whitespace once every node has been read.
+	 */
+	@Test
+	public void testNodeIteratorWarning() throws ReaderException {
+		NodeIterator iterator = new DataReader(new File("../testdata/terriblyindented.txt"), new DataNode())
+			.nodeIterator();
+		assertEquals(TestIntegration.getTestNode(), iterator.next());
+		assertFalse(iterator.hasNext());
+		assertTrue(iterator.getWarning().startsWith("Warning - mixed whitespace"));
+	}
+
+
+
+	/**
+	 * Tests that {@link DataReader#parseParallel(java.util.concurrent.Executor)} splits a large file
+	 * into chunks without changing the tree, line numbers, or warnings.
+	 */
+	@Test
+	public void testParseParallel() throws IOException {
+		StringBuilder text = new StringBuilder("# Generated test data\n\n");
+		for (int i = 0; i < 40000; i++) {
+			text.append("ship \"Ship ").append(i).append("\"\n");
+			text.append("\tattributes\n\t\tmass ").append(i).append("\n\t\t# comment\n\n");
+			text.append("\tdescription `A generated ship.`\n");
+		}
+		// Spaces used deep into the file, in a different chunk from the first indentation
+		text.append("outfit Late\n    cost 1\n");
+		Path path = Files.createTempFile("weftspace", ".txt");
+		Files.writeString(path, text);
+
+		DataNode expected = new DataNode();
+		String expectedMessage = null;
+		try {
+			new DataReader(path.toFile(), expected).parseChannel();
+		} catch (ReaderException e) {
+			expectedMessage = e.getMessage();
+		}
+
+		DataNode actual = new DataNode();
+		String actualMessage = null;
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			new DataReader(path.toFile(), actual).parseParallel(pool);
+		} catch (ReaderException e) {
+			actualMessage = e.getMessage();
+		}
+		pool.shutdown();
+		Files.delete(path);
+
+		assertNotNull(expectedMessage);
+		assertEquals(expectedMessage, actualMessage);
+		assertEquals(expected, actual);
+		assertEquals(40001, actual.countChildren());
+		for (int i = 0; i < actual.countChildren(); i++) {
+			LoadedNode node = (LoadedNode) actual.getChild(i);
+			assertEquals(((LoadedNode) expected.getChild(i)).getLine(), node.getLine());
+			assertEquals(actual, node.getParent());
+		}
+	}
 }
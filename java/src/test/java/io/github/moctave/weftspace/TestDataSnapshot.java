@@ -0,0 +1,171 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for DataSnapshot */
+public class TestDataSnapshot {
+	/**
+	 * Tests that a saved tree loads back with the same nodes, lines, files and parents.
+	 */
+	@Test
+	public void testRoundTrip() throws IOException, ReaderException {
+		File source = new File("../testdata/humanreadable.txt");
+		DataNode parsed = new DataNode();
+		new DataReader(source, parsed).parse();
+		parsed.addChild(new DataNode("plain", parsed, new ArrayList<>(List.of("ünïcode", "")), new ArrayList<>()));
+
+		Path path = Files.createTempFile("weftspace", ".snapshot");
+		DataSnapshot snapshot = new DataSnapshot(path.toFile());
+		snapshot.save(parsed, List.of(source));
+
+		DataNode loaded = new DataNode();
+		snapshot.load(loaded);
+		assertEquals(parsed, loaded);
+		assertTrue(snapshot.isCurrent());
+
+		LoadedNode first = (LoadedNode) parsed.getChild(0).getChild(0);
+		LoadedNode copy = (LoadedNode) loaded.getChild(0).getChild(0);
+		assertEquals(first.getLine(), copy.getLine());
+		assertEquals(first.getFile(), copy.getFile());
+		assertSame(loaded, copy.getParent().getParent());
+		assertFalse(loaded.getChild(loaded.countChildren() - 1) instanceof LoadedNode);
+
+		Files.delete(path);
+	}
+
+
+
+	/**
+	 * Tests that files and lines are kept for every kind of node which remembers them.
+	 */
+	@Test
+	public void testKeepsLocationOfCopies() throws IOException, ReaderException {
+		File source = new File("../testdata/humanreadable.txt");
+		DataNode parsed = new DataNode();
+		new DataReader(source, parsed).parse();
+		FlatTree flat = new FlatTree();
+		flat.read(new DataReader(source, new DataNode()));
+
+		Path path = Files.createTempFile("weftspace", ".snapshot");
+		DataSnapshot snapshot = new DataSnapshot(path.toFile());
+		LoadedNode expected = (LoadedNode) parsed.getChild(0).getChild(1);
+		for (DataNode copy : List.of(parsed.freeze(), flat.getRoot(), PersistentNode.of(parsed))) {
+			snapshot.save(copy, List.of(source));
+			DataNode loaded = new DataNode();
+			snapshot.load(loaded);
+
+			LoadedNode actual = (LoadedNode) loaded.getChild(0).getChild(1);
+			assertEquals(expected.getLine(), actual.getLine());
+			assertEquals(source, actual.getFile());
+		}
+
+		Files.delete(path);
+	}
+
+
+
+	/**
+	 * Tests that very deeply nested trees can be saved and loaded.
+	 */
+	@Test
+	public void testDeepTree() throws IOException, ReaderException {
+		DataNode root = new DataNode();
+		DataNode deepest = root;
+		for (int i = 0; i < 100000; i++) {
+			DataNode child = new DataNode("level", deepest, new ArrayList<>(List.of(Integer.toString(i))), new ArrayList<>());
+			deepest.addChild(child);
+			deepest = child;
+		}
+
+		Path path = Files.createTempFile("weftspace", ".snapshot");
+		DataSnapshot snapshot = new DataSnapshot(path.toFile());
+		snapshot.save(root, List.of());
+		DataNode loaded = new DataNode();
+		snapshot.load(loaded);
+
+		DataNode node = loaded;
+		for (int i = 0; i < 100000; i++) {
+			assertEquals(1, node.countChildren());
+			node = node.getChild(0);
+			assertEquals(Integer.toString(i), node.getArg(0));
+		}
+		assertEquals(0, node.countChildren());
+
+		Files.delete(path);
+	}
+
+
+
+	/**
+	 * Tests that a snapshot stops being current when its source changes or it is missing.
+	 */
+	@Test
+	public void testIsCurrent() throws IOException {
+		Path source = Files.createTempFile("weftspace", ".txt");
+		Files.writeString(source, "ship Test\n\tmass 10\n");
+		Path path = Files.createTempFile("weftspace", ".snapshot");
+		DataSnapshot snapshot = new DataSnapshot(path.toFile());
+
+		snapshot.save(new DataNode(), List.of(source.toFile()));
+		assertTrue(snapshot.isCurrent());
+
+		Files.writeString(source, "ship Test\n\tmass 100\n");
+		assertFalse(snapshot.isCurrent());
+
+		Files.delete(path);
+		Files.delete(source);
+		assertFalse(snapshot.isCurrent());
+	}
+
+
+
+	/**
+	 * Tests that damaged and missing snapshots throw exceptions when loaded.
+	 */
+	@Test
+	public void testCorrupt() throws IOException, ReaderException {
+		Path path = Files.createTempFile("weftspace", ".snapshot");
+		DataSnapshot snapshot = new DataSnapshot(path.toFile());
+		DataNode parsed = new DataNode();
+		new DataReader(new File("../testdata/spaceindented.txt"), parsed).parse();
+		snapshot.save(parsed, List.of());
+
+		byte[] data = Files.readAllBytes(path);
+		Files.write(path, Arrays.copyOf(data, data.length - 1));
+		ReaderException e = assertThrows(ReaderException.class, () -> snapshot.load(new DataNode()));
+		assertTrue(e.getMessage().endsWith("is corrupt"));
+
+		data[4] = 2;
+		Files.write(path, data);
+		e = assertThrows(ReaderException.class, () -> snapshot.load(new DataNode()));
+		assertTrue(e.getMessage().contains("has version 2"));
+		assertFalse(snapshot.isCurrent());
+
+		Files.delete(path);
+		e = assertThrows(ReaderException.class, () -> snapshot.load(new DataNode()));
+		assertTrue(e.getMessage().startsWith("No such file as"));
+	}
+}
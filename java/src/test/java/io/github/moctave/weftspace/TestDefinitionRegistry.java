@@ -0,0 +1,121 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for DefinitionRegistry */
+public class TestDefinitionRegistry {
+	/**
+	 * Creates a node with a name and a single argument.
+	 * 
+	 * @param name The name of the node.
+	 * @param id The argument of the node.
+	 * @return The node.
+	 */
+	private static DataNode node(String name, String id) {
+		return new DataNode(name, null, List.of(id), List.of());
+	}
+
+
+
+	/**
+	 * Tests lookups by type and identifier, by type, and by prefix.
+	 */
+	@Test
+	public void testLookups() {
+		DefinitionRegistry registry = new DefinitionRegistry();
+		DataNode root = new DataNode();
+		for (String id : new String[] {"Kestrel", "Bactrian", "Shuttle", "Kestrel (More Shields)"}) {
+			root.addChild(node("ship", id));
+		}
+		root.addChild(node("outfit", "Kestrel"));
+		root.addChild(new DataNode("ship", null, List.of(), List.of()));
+		registry.registerAll(root);
+
+		assertEquals(5, registry.getSize());
+		assertEquals(Set.of("ship", "outfit"), registry.getTypes());
+		assertSame(root.getChild(0), registry.get("ship", "Kestrel"));
+		assertSame(root.getChild(4), registry.get("outfit", "Kestrel"));
+		assertNull(registry.get("ship", "Nonexistent"));
+		assertNull(registry.get("planet", "Earth"));
+
+		assertEquals(
+			List.of(root.getChild(1), root.getChild(0), root.getChild(3), root.getChild(2)),
+			registry.getAll("ship")
+		);
+		assertEquals(List.of(root.getChild(0), root.getChild(3)), registry.getAllWithPrefix("ship", "Kes"));
+		assertEquals(List.of(), registry.getAllWithPrefix("ship", "Z"));
+		assertEquals(List.of(), registry.getAll("planet"));
+	}
+
+
+
+	/**
+	 * Tests that later definitions shadow earlier ones, and that the history is kept.
+	 */
+	@Test
+	public void testShadowing() {
+		DefinitionRegistry registry = new DefinitionRegistry();
+		DataNode first = node("ship", "Kestrel");
+		DataNode second = new DataNode("ship", null, List.of("Kestrel", "variant"), List.of());
+		assertTrue(registry.register(first));
+		assertTrue(registry.register(second));
+		assertFalse(registry.register(new DataNode()));
+
+		assertSame(second, registry.get("ship", "Kestrel"));
+		List<DefinitionRegistry.Definition> history = registry.getHistory("ship", "Kestrel");
+		assertEquals(2, history.size());
+		assertSame(first, history.get(0).node());
+		assertSame(second, history.get(1).node());
+		assertEquals(List.of(second), registry.getAll("ship"));
+		assertEquals(List.of(), registry.getHistory("ship", "Shuttle"));
+	}
+
+
+
+	/**
+	 * Tests that a loader registers definitions in file order, with their source locations.
+	 */
+	@Test
+	public void testLoader() throws IOException {
+		Path directory = Files.createTempDirectory("weftspace");
+		Path base = Files.writeString(directory.resolve("a.txt"), "ship Kestrel\n\tmass 100\n");
+		Path plugin = Files.writeString(directory.resolve("b.txt"), "\n\nship Kestrel\n\tmass 200\n");
+
+		DefinitionRegistry registry = new DefinitionRegistry();
+		DataLoader loader = new DataLoader(new DataNode());
+		loader.setRegistry(registry);
+		loader.load(List.of(base.toFile(), plugin.toFile()));
+
+		DefinitionRegistry.Definition definition = registry.getDefinition("ship", "Kestrel");
+		assertEquals("200", definition.node().getChild(0).getArg(0));
+		assertEquals(plugin.toFile(), definition.file());
+		assertEquals(3, definition.line());
+		assertEquals(new File(base.toString()), registry.getHistory("ship", "Kestrel").get(0).file());
+
+		Files.delete(base);
+		Files.delete(plugin);
+		Files.delete(directory);
+	}
+}
@@ -0,0 +1,217 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for FlatTree and FlatNode */
+public class TestFlatTree {
+	/**
+	 * Tests that reading a file builds a tree equal to the one the parser builds.
+	 */
+	@Test
+	public void testRead() throws ReaderException {
+		File file = new File("../testdata/humanreadable.txt");
+		DataNode parsed = new DataNode();
+		new DataReader(file, parsed).parse();
+
+		FlatTree tree = new FlatTree();
+		tree.read(new DataReader(file, new DataNode()));
+		FlatNode root = tree.getRoot();
+
+		assertEquals(parsed, root);
+		assertEquals(parsed.hashCode(), root.hashCode());
+		assertEquals(parsed.toString(), root.toString());
+		assertFalse(root.hasParent());
+
+		LoadedNode expected = (LoadedNode) parsed.getChild(0).getChild(1);
+		FlatNode actual = (FlatNode) root.getChild(0).getChild(1);
+		assertEquals(expected.getLine(), actual.getLine());
+		assertEquals(file, actual.getFile());
+		assertEquals(root.getChild(0), actual.getParent());
+		assertEquals(DataWriter.nodeToLine(expected), DataWriter.nodeToLine(actual));
+	}
+
+
+
+	/**
+	 * Tests that a read with mixed whitespace still adds every node before throwing.
+	 */
+	@Test
+	public void testReadWarning() throws ReaderException {
+		File file = new File("../testdata/terriblyindented.txt");
+		FlatTree tree = new FlatTree();
+		ReaderException e = assertThrows(ReaderException.class, () -> tree.read(new DataReader(file, new DataNode())));
+		assertTrue(e.getMessage().startsWith("Warning - mixed whitespace"));
+		assertEquals(TestIntegration.getTestNode(), tree.getRoot().getChild(0));
+	}
+
+
+
+	/**
+	 * Tests that copied nodes match the originals, and that views can be used by the builder.
+	 */
+	@Test
+	public void testAdd() throws BuilderException {
+		FlatTree tree = new FlatTree();
+		int ship = tree.add(TestIntegration.getTestNode());
+		tree.add(new DataNode("empty", null, new ArrayList<>(), new ArrayList<>()));
+		int extra = tree.add(ship, new DataNode("extra", null, new ArrayList<>(List.of("1", "2")), new ArrayList<>()));
+
+		FlatNode node = tree.node(ship);
+		assertEquals(2, tree.getRoot().countChildren());
+		assertEquals("Much Confused Wardragon", node.getArg(0));
+		assertEquals(0, tree.getRoot().getChild(1).countArgs());
+		assertEquals(List.of("1", "2"), tree.node(extra).getArgs());
+		assertEquals(tree.node(extra), node.getChild(node.countChildren() - 1));
+		assertEquals(0, node.getLine());
+		assertNull(node.getFile());
+
+		assertEquals(35, Builder.buildInt(node.getChild(0), 0));
+		assertThrows(BuilderException.class, () -> Builder.buildString(tree.getRoot().getChild(1), 0));
+		assertEquals(node, Builder.search(TestIntegration.getTestNode(), tree.getRoot()));
+		assertThrows(IndexOutOfBoundsException.class, () -> tree.node(tree.getSize()));
+	}
+
+
+
+	/**
+	 * Tests that frozen and persistent copies keep their line and file when they are added.
+	 */
+	@Test
+	public void testAddKeepsLocationOfCopies() {
+		File file = new File("ships.txt");
+		DataNode root = new DataNode();
+		root.addChild(new LoadedNode("ship", root, new ArrayList<>(List.of("Kestrel")), new ArrayList<>(), 12, file));
+
+		for (DataNode copy : List.of(root.freeze(), PersistentNode.of(root))) {
+			FlatTree tree = new FlatTree();
+			FlatNode ship = (FlatNode) tree.node(tree.add(copy)).getChild(0);
+			assertEquals(12, ship.getLine());
+			assertEquals(file, ship.getFile());
+
+			// Flat nodes keep their location when copied into another tree too.
+			FlatTree again = new FlatTree();
+			assertEquals(12, again.node(again.add(ship)).getLine());
+		}
+	}
+
+
+
+	/**
+	 * Tests that very deeply nested nodes can be added.
+	 */
+	@Test
+	public void testAddDeepNode() {
+		DataNode top = new DataNode("level", null, new ArrayList<>(List.of("0")), new ArrayList<>());
+		DataNode deepest = top;
+		for (int i = 1; i < 100000; i++) {
+			DataNode child = new DataNode("level", deepest, new ArrayList<>(List.of(Integer.toString(i))), new ArrayList<>());
+			deepest.addChild(child);
+			deepest = child;
+		}
+
+		FlatTree tree = new FlatTree();
+		DataNode node = tree.node(tree.add(top));
+		for (int i = 0; i < 99999; i++) {
+			assertEquals(Integer.toString(i), node.getArg(0));
+			assertEquals(1, node.countChildren());
+			node = node.getChild(0);
+		}
+		assertEquals(0, node.countChildren());
+		assertEquals(100001, tree.getSize());
+	}
+
+
+
+	/**
+	 * Tests that views cannot be changed.
+	 */
+	@Test
+	public void testReadOnly() {
+		FlatTree tree = new FlatTree();
+		FlatNode node = tree.node(tree.add(TestIntegration.getTestNode()));
+
+		assertThrows(UnsupportedOperationException.class, () -> node.setName("x"));
+		assertThrows(UnsupportedOperationException.class, () -> node.addArg("x"));
+		assertThrows(UnsupportedOperationException.class, () -> node.addChild(new DataNode()));
+		assertThrows(UnsupportedOperationException.class, () -> node.setParent(null));
+		assertThrows(UnsupportedOperationException.class, () -> node.getChildren().clear());
+	}
+
+
+
+	/**
+	 * Tests that children are found by position when there are many of them, including children
+	 * added after a child was last found that way.
+	 */
+	@Test
+	public void testManyChildren() {
+		FlatTree tree = new FlatTree();
+		int fleet = tree.add(new DataNode("fleet", null, new ArrayList<>(), new ArrayList<>()));
+		for (int i = 0; i < 40; i++) {
+			// Give every ship a child, so that the fleet's children are not next to each other.
+			List<String> args = new ArrayList<>(List.of(Integer.toString(i)));
+			int ship = tree.add(fleet, new DataNode("ship", null, args, new ArrayList<>()));
+			tree.add(ship, TestIntegration.getTestNode());
+		}
+
+		FlatNode node = tree.node(fleet);
+		assertEquals("39", node.getChild(39).getArg(0));
+		tree.add(fleet, new DataNode("ship", null, new ArrayList<>(List.of("40")), new ArrayList<>()));
+
+		assertEquals(41, node.countChildren());
+		int i = 0;
+		for (DataNode child : node.getChildren()) {
+			assertEquals(child, node.getChild(i));
+			assertEquals(Integer.toString(i), node.getChild(i).getArg(0));
+			i++;
+		}
+		assertThrows(IndexOutOfBoundsException.class, () -> node.getChild(41));
+
+		// Views are searched without building an index, and share their parsed numbers.
+		assertNull(node.index());
+		assertEquals(node.getChild(17), Builder.search(new DataNode("ship", null, List.of("17"), List.of()), node));
+		assertEquals(node.getChild(40), node.findChild("ship", "40"));
+		assertEquals(17, Builder.buildInt(node.getChild(17), 0, -1));
+		assertSame(node.getChild(17).numbers(), tree.node(fleet).getChild(17).numbers());
+	}
+
+
+
+	/**
+	 * Tests that nodes read from the same file share it, and nodes read from different files do not.
+	 */
+	@Test
+	public void testFiles() throws ReaderException {
+		File first = new File("../testdata/humanreadable.txt");
+		File second = new File("../testdata/spaceindented.txt");
+		FlatTree tree = new FlatTree();
+		tree.read(new DataReader(first, new DataNode()));
+		int split = tree.getRoot().countChildren();
+		tree.read(new DataReader(second, new DataNode()));
+		tree.read(new DataReader(new File("../testdata/humanreadable.txt"), new DataNode()));
+
+		FlatNode root = tree.getRoot();
+		assertEquals(first, ((FlatNode) root.getChild(0)).getFile());
+		assertEquals(second, ((FlatNode) root.getChild(split)).getFile());
+		assertEquals(first, ((FlatNode) root.getChild(root.countChildren() - 1)).getFile());
+	}
+}
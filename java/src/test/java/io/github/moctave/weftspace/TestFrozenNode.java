@@ -0,0 +1,102 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for FrozenNode */
+public class TestFrozenNode {
+	/**
+	 * Tests that a frozen copy is equal to the original and keeps its structure.
+	 */
+	@Test
+	public void testFreeze() throws ReaderException {
+		File file = new File("../testdata/humanreadable.txt");
+		DataNode root = new DataNode();
+		new DataReader(file, root).parse();
+		FrozenNode frozen = root.freeze();
+
+		assertEquals(root, frozen);
+		assertEquals(frozen, root);
+		assertNull(frozen.getParent());
+		assertSame(frozen, frozen.freeze());
+
+		DataNode child = frozen.getChild(0).getChild(1);
+		assertSame(frozen.getChild(0), child.getParent());
+		assertEquals(((LoadedNode) root.getChild(0).getChild(1)).getLine(), ((FrozenNode) child).getLine());
+		assertEquals(file, ((FrozenNode) child).getFile());
+
+		FrozenNode subtree = child.freeze();
+		assertNotSame(child, subtree);
+		assertNull(subtree.getParent());
+		assertEquals(child, subtree);
+	}
+
+
+
+	/**
+	 * Tests that frozen nodes cannot be changed, and do not change with the original.
+	 */
+	@Test
+	public void testImmutable() {
+		DataNode original = TestIntegration.getTestNode();
+		FrozenNode frozen = original.freeze();
+		original.getChild(0).addArg("extra");
+		original.setName("changed");
+
+		assertEquals(TestIntegration.getTestNode(), frozen);
+		assertNotEquals(original, frozen);
+		assertEquals(0, frozen.getLine());
+		assertNull(frozen.getFile());
+
+		assertThrows(UnsupportedOperationException.class, () -> frozen.setName("x"));
+		assertThrows(UnsupportedOperationException.class, () -> frozen.addArg("x"));
+		assertThrows(UnsupportedOperationException.class, () -> frozen.addChild(new DataNode()));
+		assertThrows(UnsupportedOperationException.class, () -> frozen.getChildren().remove(0));
+		assertThrows(UnsupportedOperationException.class, () -> frozen.getChild(0).setParent(null));
+	}
+
+
+
+	/**
+	 * Tests that very deeply nested trees can be frozen.
+	 */
+	@Test
+	public void testDeepTree() {
+		DataNode root = new DataNode();
+		DataNode deepest = root;
+		for (int i = 0; i < 100000; i++) {
+			DataNode child = new DataNode("level", deepest, new ArrayList<>(List.of(Integer.toString(i))), new ArrayList<>());
+			deepest.addChild(child);
+			deepest = child;
+		}
+
+		FrozenNode frozen = root.freeze();
+		DataNode node = frozen;
+		for (int i = 0; i < 100000; i++) {
+			assertEquals(1, node.countChildren());
+			DataNode child = node.getChild(0);
+			assertSame(node, child.getParent());
+			assertEquals(Integer.toString(i), child.getArg(0));
+			node = child;
+		}
+		assertEquals(0, node.countChildren());
+	}
+}
@@ -20,6 +20,7 @@ import org.junit.jupiter.api.Test;
 import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.List;
 
 /**
  * The integrations tests for this library.
@@ -65,6 +66,21 @@ public class TestIntegration {
 
 
 
+	/**
+	 * A method which constructs a data node with arguments, for tests which build their own trees.
+	 * @param parent The node to add the new node to as a child, or {@code null} for none.
+	 * @param name The name of the new node.
+	 * @param args The arguments of the new node.
+	 * @return The new node.
+	 */
+	public static DataNode node(DataNode parent, String name, String... args) {
+		DataNode node = new DataNode(name, parent, new ArrayList<>(List.of(args)), new ArrayList<>());
+		if (parent != null) parent.addChild(node);
+		return node;
+	}
+
+
+
 	/**
 	 * This test checks to make sure that identical data nodes
 	 * are being treated as equal.
@@ -219,4 +235,53 @@ public class TestIntegration {
 
 		assertTrue(getTestNode().equals(loadedNode));
 	}
+
+
+
+	/**
+	 * This test checks that {@link DataReader#parseChannel()} builds exactly the same
+	 * tree, with the same line numbers and warnings, as {@link DataReader#parse()}.
+	 */
+	@Test
+	public void testChannelEngine() {
+		for (String name : new String[] {"humanreadable", "spaceindented", "terriblyindented"}) {
+			File testData = new File("../testdata/" + name + ".txt");
+			DataNode scannerRoot = new DataNode();
+			DataNode channelRoot = new DataNode();
+
+			String scannerMessage = null;
+			String channelMessage = null;
+			try {
+				new DataReader(testData, scannerRoot).parse();
+			} catch (ReaderException e) {
+				scannerMessage = e.getMessage();
+			}
+			try {
+				new DataReader(testData, channelRoot).parseChannel();
+			} catch (ReaderException e) {
+				channelMessage = e.getMessage();
+			}
+
+			assertEquals(scannerMessage, channelMessage);
+			assertEquals(scannerRoot, channelRoot);
+			assertTrue(getTestNode().equals(channelRoot.getChild(0)));
+			assertEquals(16, ((LoadedNode) channelRoot.getChild(0)).getLine());
+			assertEquals(channelRoot, channelRoot.getChild(0).getParent());
+		}
+	}
+
+
+
+	/**
+	 * This test checks that {@link DataReader#parseChannel()} reports missing files.
+	 */
+	@Test
+	public void testChannelEngineMissingFile() {
+		try {
+			new DataReader(new File("../testdata/nonexistent.txt"), new DataNode()).parseChannel();
+			fail();
+		} catch (ReaderException e) {
+			assertTrue(e.getMessage().startsWith("No such file as"));
+		}
+	}
 }
@@ -0,0 +1,144 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for LineScanner */
+public class TestLineScanner {
+	/**
+	 * Creates a scanner over a string held in memory.
+	 * 
+	 * @param text The text to scan.
+	 * @return The scanner.
+	 */
+	private static LineScanner scan(String text) {
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		return new LineScanner(bytes, 0, bytes.length, 1);
+	}
+
+	/**
+	 * Tokenizes the current line of a scanner.
+	 * 
+	 * @param scanner The scanner to use.
+	 * @return The tokens on the current line.
+	 */
+	private static List<String> tokens(LineScanner scanner) {
+		List<String> tokens = new ArrayList<>();
+		scanner.tokenize(tokens);
+		return tokens;
+	}
+
+
+
+	/**
+	 * Tests that every line terminator recognized by {@link java.util.Scanner} ends a line.
+	 */
+	@Test
+	public void testLineTerminators() throws IOException {
+		LineScanner scanner = scan("a\nb\r\nc\rd e\u0085f");
+		for (int i = 0; i < 6; i++) {
+			assertTrue(scanner.next());
+			assertEquals(i + 1, scanner.getLineNumber());
+			assertEquals(List.of(String.valueOf((char) ('a' + i))), tokens(scanner));
+		}
+		assertFalse(scanner.next());
+	}
+
+
+
+	/**
+	 * Tests that blank lines and comment-only lines are skipped but still counted.
+	 */
+	@Test
+	public void testSkippedLines() throws IOException {
+		LineScanner scanner = scan("#\n\t\n  # comment\n \nnode\n");
+		assertTrue(scanner.next());
+		assertEquals(5, scanner.getLineNumber());
+		assertEquals(List.of("node"), tokens(scanner));
+		assertFalse(scanner.next());
+	}
+
+
+
+	/**
+	 * Tests that tokens are split the same way as {@link DataReader#makeNode(String, int)} splits them.
+	 */
+	@Test
+	public void testTokenize() throws IOException {
+		String[] lines = {
+			"\t\"hull damage\" 6100 # comment",
+			"description `Some \"quoted\" text` \"\"",
+			"a#b c",
+			"\"unterminated # quote ",
+			"tab\tinside word",
+			"café \"crème brûlée\"",
+		};
+		for (String line : lines) {
+			LineScanner scanner = scan(line);
+			assertTrue(scanner.next());
+			List<String> expected = new ArrayList<>();
+			DataReader.tokenize(line, expected, null);
+			assertEquals(expected, tokens(scanner));
+		}
+	}
+
+
+
+	/**
+	 * Tests indentation handling on a byte level.
+	 */
+	@Test
+	public void testIndent() throws IOException {
+		LineScanner scanner = scan("\t \tnode");
+		assertTrue(scanner.next());
+		assertEquals(3, scanner.indent());
+		assertEquals(" \t", scanner.indentSubstring(1));
+		assertTrue(scanner.indentMatches(1, " \t"));
+		assertFalse(scanner.indentMatches(1, "\t"));
+		assertFalse(scanner.indentMatches(0, " \t"));
+	}
+
+
+
+	/**
+	 * Tests reading from a channel, including a line too long to fit in the default buffer.
+	 */
+	@Test
+	public void testChannel() throws IOException {
+		String longWord = "x".repeat(LineScanner.DEFAULT_CAPACITY * 2 + 7);
+		String text = "first\r\n" + "second " + longWord + "\r\nthird";
+		LineScanner scanner = new LineScanner(Channels.newChannel(
+			new ByteArrayInputStream(text.getBytes(StandardCharsets.UTF_8))));
+
+		assertTrue(scanner.next());
+		assertEquals(List.of("first"), tokens(scanner));
+		assertTrue(scanner.next());
+		assertEquals(List.of("second", longWord), tokens(scanner));
+		assertTrue(scanner.next());
+		assertEquals(3, scanner.getLineNumber());
+		assertEquals(List.of("third"), tokens(scanner));
+		assertFalse(scanner.next());
+		scanner.close();
+	}
+}
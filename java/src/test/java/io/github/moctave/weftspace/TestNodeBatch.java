@@ -0,0 +1,87 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for NodeBatch */
+public class TestNodeBatch {
+	@Test
+	public void testBatchMatchesSingleChanges() {
+		final DataNode expected = new DataNode();
+		final DataNode batched = new DataNode();
+
+		for (int i = 0; i < 100; i++) {
+			final DataNode ship = new DataNode("ship", expected, new ArrayList<>(List.of("S" + i)), new ArrayList<>());
+			expected.addChild(ship);
+			ship.addChild(new DataNode("mass", ship, new ArrayList<>(List.of(Integer.toString(i))), new ArrayList<>()));
+			ship.addArg("extra");
+		}
+
+		try (NodeBatch batch = batched.beginBatch()) {
+			for (int i = 0; i < 100; i++) {
+				final DataNode ship = batch.add(batched, "ship", "S" + i);
+				batch.add(ship, "mass", Integer.toString(i));
+				batch.addArg(ship, "extra");
+			}
+			assertEquals(300, batch.getSize());
+			assertEquals(0, batched.countChildren());
+		}
+
+		assertEquals(expected, batched);
+		assertSame(batched, batched.getChild(5).getParent());
+		assertSame(batched.getChild(5), batched.getChild(5).getChild(0).getParent());
+	}
+
+	@Test
+	public void testHashAndIndexUpdated() {
+		final DataNode root = new DataNode();
+		final DataNode ship = new DataNode("ship", root, new ArrayList<>(List.of("Kestrel")), new ArrayList<>());
+		root.addChild(ship);
+		for (int i = 0; i < 20; i++) {
+			ship.addChild(new DataNode("weapon", ship, new ArrayList<>(List.of("W" + i)), new ArrayList<>()));
+		}
+		final int before = root.hashCode();
+		assertNull(ship.findChild("engine"));
+
+		final DataNode engine = new DataNode("engine", null, new ArrayList<>(List.of("Ion")), new ArrayList<>());
+		try (NodeBatch batch = root.beginBatch()) {
+			batch.add(ship, engine);
+		}
+
+		assertNotEquals(before, root.hashCode());
+		assertSame(engine, ship.findChild("engine", "Ion"));
+		assertSame(ship, engine.getParent());
+	}
+
+	@Test
+	public void testDiscardAndClose() {
+		final DataNode root = new DataNode();
+		final NodeBatch batch = root.beginBatch();
+		batch.add(root, "ship", "Kestrel");
+		batch.discard();
+		assertTrue(batch.isClosed());
+		assertEquals(0, root.countChildren());
+		assertThrows(IllegalStateException.class, () -> batch.add(root, "ship"));
+
+		batch.close();
+		assertEquals(0, root.countChildren());
+		assertSame(root, batch.getRoot());
+	}
+}
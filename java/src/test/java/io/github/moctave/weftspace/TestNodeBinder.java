@@ -0,0 +1,155 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for NodeBinder */
+public class TestNodeBinder {
+	/** A ship, bound from a record. */
+	public static record Ship(
+		@NodeArg(0) String name,
+		@NodeChild("mass") int mass,
+		@NodeChild("drag") double drag,
+		@NodeChild("cost") long cost,
+		@NodeChild("crew") Integer crew,
+		@NodeChild("unique") boolean unique,
+		@NodeChild("weapon") List<Weapon> weapons,
+		@NodeChild("description") DataNode description,
+		String unbound
+	) { }
+
+	/** A weapon, bound from a record. */
+	public static record Weapon(@NodeArg(0) String name, @NodeChild("damage") double damage) {
+		/** Rejects negative damage. */
+		public Weapon {
+			if (damage < 0) throw new IllegalArgumentException("negative damage");
+		}
+	}
+
+	/** An outfit, bound from a class with fields. */
+	public static class Outfit {
+		/** The name of the outfit. */
+		@NodeArg(0)
+		private String name;
+
+		/** The space the outfit takes up. */
+		@NodeChild(value = "space", arg = 1)
+		private int space = 5;
+
+		/** The categories of the outfit. */
+		@NodeChild("category")
+		private List<String> categories;
+	}
+
+	/** A class with a final field, which cannot be bound. */
+	public static class Fixed {
+		/** The name. */
+		@NodeArg(0)
+		private final String name = "";
+	}
+
+	/** A record holding a class which is neither a record nor has annotated fields. */
+	public static record Unsupported(@NodeChild("x") Float x) { }
+
+	/** A part which may be made of other parts, bound from a record which holds itself. */
+	public static record Part(@NodeArg(0) String name, @NodeChild("part") List<Part> parts) { }
+
+
+
+	@Test
+	public void testBindRecord() throws BuilderException {
+		final DataNode root = new DataNode();
+		final DataNode kestrel = TestIntegration.node(root, "ship", "Kestrel");
+		TestIntegration.node(kestrel, "mass", "300");
+		TestIntegration.node(kestrel, "drag", "5.5");
+		TestIntegration.node(kestrel, "cost", "8000000000");
+		TestIntegration.node(kestrel, "unique");
+		final DataNode blaster = TestIntegration.node(kestrel, "weapon", "Blaster");
+		TestIntegration.node(blaster, "damage", "12");
+		TestIntegration.node(kestrel, "weapon", "Laser");
+		TestIntegration.node(kestrel, "mass", "999");
+		final DataNode description = TestIntegration.node(kestrel, "description", "A ship.");
+		TestIntegration.node(root, "ship", "Falcon");
+
+		final List<Ship> ships = NodeBinder.of(Ship.class).bindAll(root, "ship");
+		assertEquals(2, ships.size());
+
+		final Ship ship = ships.get(0);
+		assertEquals("Kestrel", ship.name());
+		assertEquals(300, ship.mass());
+		assertEquals(5.5, ship.drag());
+		assertEquals(8000000000L, ship.cost());
+		assertNull(ship.crew());
+		assertTrue(ship.unique());
+		assertEquals(List.of(new Weapon("Blaster", 12), new Weapon("Laser", 0)), ship.weapons());
+		assertSame(description, ship.description());
+		assertNull(ship.unbound());
+
+		final Ship empty = ships.get(1);
+		assertEquals(0, empty.mass());
+		assertFalse(empty.unique());
+		assertTrue(empty.weapons().isEmpty());
+	}
+
+	@Test
+	public void testBindFields() throws BuilderException {
+		final DataNode outfit = TestIntegration.node(null, "outfit", "Shield");
+		TestIntegration.node(outfit, "category", "Systems");
+		TestIntegration.node(outfit, "category", "Special");
+
+		final Outfit bound = NodeBinder.of(Outfit.class).bind(outfit);
+		assertEquals("Shield", bound.name);
+		assertEquals(5, bound.space);
+		assertEquals(List.of("Systems", "Special"), bound.categories);
+
+		TestIntegration.node(outfit, "space", "outfit", "12");
+		assertEquals(12, NodeBinder.of(Outfit.class).bind(outfit).space);
+		assertSame(NodeBinder.of(Outfit.class), NodeBinder.of(Outfit.class));
+	}
+
+	@Test
+	public void testErrors() {
+		final DataNode ship = TestIntegration.node(null, "ship", "Kestrel");
+		final DataNode mass = TestIntegration.node(ship, "mass", "heavy");
+		BuilderException e = assertThrows(BuilderException.class, () -> NodeBinder.of(Ship.class).bind(ship));
+		assertTrue(e.represent().endsWith("mass heavy"));
+		ship.getChildren().remove(mass);
+
+		final DataNode weapon = TestIntegration.node(ship, "weapon", "Broken");
+		TestIntegration.node(weapon, "damage", "-1");
+		e = assertThrows(BuilderException.class, () -> NodeBinder.of(Ship.class).bind(ship));
+		assertTrue(e.getCause() instanceof IllegalArgumentException);
+
+		assertThrows(BuilderException.class, () -> NodeBinder.of(Weapon.class).bind(new DataNode()));
+		assertThrows(IllegalArgumentException.class, () -> NodeBinder.of(Fixed.class));
+		assertThrows(IllegalArgumentException.class, () -> NodeBinder.of(Runnable.class));
+	}
+
+	@Test
+	public void testNestedTypes() throws BuilderException {
+		IllegalArgumentException e = assertThrows(IllegalArgumentException.class,
+			() -> NodeBinder.of(Unsupported.class));
+		assertTrue(e.getMessage().startsWith("x has a type which cannot be bound"));
+
+		final DataNode engine = TestIntegration.node(null, "part", "Engine");
+		TestIntegration.node(TestIntegration.node(engine, "part", "Turbine"), "part", "Blade");
+		final Part part = NodeBinder.of(Part.class).bind(engine);
+		assertEquals("Blade", part.parts().get(0).parts().get(0).name());
+	}
+}
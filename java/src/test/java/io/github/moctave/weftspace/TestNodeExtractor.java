@@ -0,0 +1,96 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for NodeExtractor */
+public class TestNodeExtractor {
+	@Test
+	public void testExtract() throws BuilderException {
+		final NodeExtractor extractor = new NodeExtractor();
+		final int mass = extractor.add("mass", NodeExtractor.Type.INT);
+		final int drag = extractor.add("drag", NodeExtractor.Type.DOUBLE);
+		final int x = extractor.add("position", 0, NodeExtractor.Type.LONG);
+		final int y = extractor.add("position", 1, NodeExtractor.Type.LONG);
+		final int name = extractor.add("display name", NodeExtractor.Type.STRING);
+		final int unique = extractor.add("unique", NodeExtractor.Type.CHILD);
+		assertEquals(6, extractor.getSize());
+
+		final DataNode ship = TestIntegration.node(null, "ship", "Kestrel");
+		TestIntegration.node(ship, "category", "Heavy Warship");
+		final DataNode massNode = TestIntegration.node(ship, "mass", "300");
+		TestIntegration.node(ship, "position", "10", "-20");
+		TestIntegration.node(ship, "display name", "The Kestrel");
+		TestIntegration.node(ship, "mass", "999");
+		TestIntegration.node(ship, "unique");
+
+		final NodeExtractor.Result result = extractor.extract(ship);
+		assertEquals(300, result.getInt(mass));
+		assertSame(massNode, result.getChild(mass));
+		assertFalse(result.has(drag));
+		assertEquals(0., result.getDouble(drag));
+		assertEquals(1.5, result.getDouble(drag, 1.5));
+		assertEquals(10L, result.getLong(x));
+		assertEquals(-20L, result.getLong(y));
+		assertEquals("The Kestrel", result.getString(name));
+		assertTrue(result.has(unique));
+
+		// Reusing the result forgets everything from the last node.
+		final DataNode other = TestIntegration.node(null, "ship", "Falcon");
+		TestIntegration.node(other, "drag", "4.5");
+		extractor.extract(other, result);
+		assertFalse(result.has(mass));
+		assertEquals(7, result.getInt(mass, 7));
+		assertNull(result.getString(name));
+		assertEquals("none", result.getString(name, "none"));
+		assertNull(result.getChild(unique));
+		assertEquals(4.5, result.getDouble(drag));
+	}
+
+	@Test
+	public void testResultGrowsWithExtractor() throws BuilderException {
+		final NodeExtractor extractor = new NodeExtractor();
+		final NodeExtractor.Result result = extractor.newResult();
+		final int mass = extractor.add("mass", NodeExtractor.Type.INT);
+		final int name = extractor.add("name", NodeExtractor.Type.STRING);
+
+		// Nothing has been extracted into a new result yet.
+		final NodeExtractor.Result fresh = extractor.newResult();
+		assertFalse(fresh.has(mass));
+		assertEquals("unknown", fresh.getString(name, "unknown"));
+
+		final DataNode ship = TestIntegration.node(null, "ship");
+		TestIntegration.node(ship, "mass", "5");
+		extractor.extract(ship, result);
+		assertEquals(5, result.getInt(mass));
+	}
+
+	@Test
+	public void testErrors() {
+		final NodeExtractor extractor = new NodeExtractor();
+		extractor.add("mass", NodeExtractor.Type.INT);
+		extractor.add("position", 1, NodeExtractor.Type.DOUBLE);
+
+		final DataNode ship = TestIntegration.node(null, "ship");
+		final DataNode mass = TestIntegration.node(ship, "mass", "heavy");
+		assertThrows(BuilderException.class, () -> extractor.extract(ship));
+
+		ship.getChildren().remove(mass);
+		TestIntegration.node(ship, "position", "10");
+		assertThrows(BuilderException.class, () -> extractor.extract(ship));
+	}
+}
@@ -0,0 +1,141 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for NodeQuery */
+public class TestNodeQuery {
+	/** A root holding the test ship and a second ship. */
+	private DataNode root;
+
+	/** The test ship. */
+	private DataNode ship;
+
+
+
+	/**
+	 * Builds the tree used by every test.
+	 */
+	@BeforeEach
+	public void init() {
+		root = new DataNode();
+		ship = TestIntegration.getTestNode();
+		root.addChild(ship);
+		DataNode other = new DataNode("ship", root, new ArrayList<>(List.of("Kestrel", "variant")), new ArrayList<>());
+		other.addChild(new DataNode("mass", other, new ArrayList<>(List.of("100")), new ArrayList<>()));
+		root.addChild(other);
+		root.addChild(new DataNode("outfit", root, new ArrayList<>(List.of("Kestrel")), new ArrayList<>()));
+	}
+
+
+
+	/**
+	 * Tests name steps, argument matching and wildcards.
+	 */
+	@Test
+	public void testSteps() {
+		assertEquals(
+			List.of(ship.getChild(2).getChild(1)),
+			NodeQuery.compile("ship \"Much Confused Wardragon\"/weapon/`hull damage`").all(root)
+		);
+		assertEquals(2, NodeQuery.compile("ship").count(root));
+		assertEquals(3, NodeQuery.compile("*").count(root));
+		assertEquals(2, NodeQuery.compile("* Kestrel").count(root));
+		assertEquals(1, NodeQuery.compile("ship Kestrel variant").count(root));
+		assertEquals(0, NodeQuery.compile("ship Kestrel other").count(root));
+		assertEquals(1, NodeQuery.compile("ship * variant").count(root));
+		assertEquals(List.of("35", "100"), argsOf(NodeQuery.compile("/ship/mass").all(root)));
+		assertEquals(3, NodeQuery.compile("ship/weapon/*").count(root));
+		assertEquals(0, NodeQuery.compile("planet/*").count(root));
+	}
+
+
+
+	/**
+	 * Tests descendant steps and positions.
+	 */
+	@Test
+	public void testDescendantsAndPositions() {
+		assertEquals(List.of("308", "6100", "42"), argsOf(NodeQuery.compile("//weapon/*").all(root)));
+		assertEquals(List.of("6100"), argsOf(NodeQuery.compile("ship//\"hull damage\"").all(root)));
+		assertEquals(List.of("100"), argsOf(NodeQuery.compile("ship[1]/mass").all(root)));
+		assertEquals(List.of("6100"), argsOf(NodeQuery.compile("//weapon/*[1]").all(root)));
+		assertEquals(List.of("35"), argsOf(NodeQuery.compile("//mass[0]").all(root)));
+		assertEquals(List.of("6100"), argsOf(NodeQuery.compile("ship//*[4]").all(root)));
+		assertEquals(ship.getChild(0), NodeQuery.compile("//mass").first(root));
+		assertNull(NodeQuery.compile("ship[5]").first(root));
+	}
+
+
+
+	/**
+	 * Tests that queries give the same results when the child index is used.
+	 */
+	@Test
+	public void testIndexed() {
+		for (int i = 0; i < 100; i++) {
+			root.addChild(new DataNode("ship", root, new ArrayList<>(List.of("Ship " + i)), new ArrayList<>()));
+		}
+		root.addChild(new DataNode("ship", root, new ArrayList<>(List.of("Kestrel", "second")), new ArrayList<>()));
+
+		assertEquals(103, NodeQuery.compile("ship").count(root));
+		assertEquals(2, NodeQuery.compile("ship Kestrel").count(root));
+		assertEquals("variant", NodeQuery.compile("ship Kestrel[0]").first(root).getArg(1));
+		assertEquals("second", NodeQuery.compile("ship Kestrel[1]").first(root).getArg(1));
+		assertEquals("Ship 7", NodeQuery.compile("ship \"Ship 7\"").first(root).getArg(0));
+	}
+
+
+
+	/**
+	 * Tests caching, early stopping and invalid expressions.
+	 */
+	@Test
+	public void testCompile() {
+		NodeQuery query = NodeQuery.of("ship/mass");
+		assertSame(query, NodeQuery.of("ship/mass"));
+		assertEquals("ship/mass", query.toString());
+
+		int[] visited = new int[1];
+		assertFalse(query.visit(root, node -> ++visited[0] < 1));
+		assertEquals(1, visited[0]);
+
+		for (String invalid : new String[] {"", "ship/", "ship//", "a/\"b", "ship[0] x", "/"}) {
+			assertThrows(IllegalArgumentException.class, () -> NodeQuery.compile(invalid));
+		}
+	}
+
+
+
+	/**
+	 * Gets the first argument of each node in a list.
+	 * 
+	 * @param nodes The nodes.
+	 * @return Their first arguments.
+	 */
+	private static List<String> argsOf(List<DataNode> nodes) {
+		List<String> args = new ArrayList<>();
+		for (DataNode node : nodes) {
+			args.add(node.getArg(0));
+		}
+		return args;
+	}
+}
@@ -0,0 +1,124 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for NodeSpliterator */
+public class TestNodeSpliterator {
+	/**
+	 * Builds a tree of outfits, each with a cost.
+	 * 
+	 * @param outfits The number of outfits.
+	 * @return The root of the tree.
+	 */
+	private static DataNode outfits(int outfits) {
+		final DataNode root = new DataNode();
+		for (int i = 0; i < outfits; i++) {
+			final DataNode outfit = TestIntegration.node(root, "outfit", "O" + i);
+			TestIntegration.node(outfit, "cost", Integer.toString(i));
+			TestIntegration.node(TestIntegration.node(outfit, "weapon"), "damage", "5");
+		}
+		return root;
+	}
+
+	/**
+	 * Lists a node and its descendants with a recursive walk.
+	 * 
+	 * @param node The node to start from.
+	 * @param nodes The list to add nodes to.
+	 */
+	private static void walk(DataNode node, List<DataNode> nodes) {
+		nodes.add(node);
+		for (DataNode child : node.getChildren()) {
+			walk(child, nodes);
+		}
+	}
+
+	/**
+	 * Splits a spliterator as far as it will go, and collects the nodes from each piece in order.
+	 * 
+	 * @param spliterator The spliterator to split.
+	 * @param nodes The list to add nodes to.
+	 */
+	private static void splitAll(Spliterator<DataNode> spliterator, List<DataNode> nodes) {
+		final Spliterator<DataNode> prefix = spliterator.trySplit();
+		if (prefix == null) {
+			spliterator.forEachRemaining(nodes::add);
+		} else {
+			splitAll(prefix, nodes);
+			splitAll(spliterator, nodes);
+		}
+	}
+
+
+
+	@Test
+	public void testOrder() {
+		final DataNode ship = TestIntegration.getTestNode();
+		final List<DataNode> expected = new ArrayList<>();
+		walk(ship, expected);
+
+		assertEquals(expected, ship.stream().collect(Collectors.toList()));
+		assertEquals(expected.subList(1, expected.size()), ship.descendants().collect(Collectors.toList()));
+		assertEquals(1, new DataNode().stream().count());
+		assertEquals(0, new DataNode().descendants().count());
+	}
+
+	@Test
+	public void testSplitting() {
+		final DataNode root = outfits(1000);
+		final List<DataNode> expected = new ArrayList<>();
+		walk(root, expected);
+
+		final Spliterator<DataNode> spliterator = new NodeSpliterator(root, true);
+		assertEquals(expected.size(), spliterator.estimateSize());
+
+		final List<DataNode> split = new ArrayList<>();
+		splitAll(spliterator, split);
+		assertEquals(expected, split);
+	}
+
+	@Test
+	public void testParallel() {
+		final DataNode root = outfits(20000);
+		final long cost = root.descendants().parallel()
+			.filter(node -> node.getName().equals("cost"))
+			.mapToLong(node -> Long.parseLong(node.getArg(0)))
+			.sum();
+		assertEquals(19999L * 20000 / 2, cost);
+		assertEquals(80001, root.stream().parallel().count());
+	}
+
+	@Test
+	public void testDeepNesting() {
+		final DataNode root = new DataNode();
+		DataNode node = root;
+		for (int i = 0; i < 100000; i++) {
+			final DataNode child = new DataNode("nested", node, new ArrayList<>(), new ArrayList<>());
+			node.getChildren().add(child);
+			node = child;
+		}
+
+		assertEquals(100001, root.stream().count());
+		assertEquals(100000, root.descendants().parallel().filter(n -> n.getName().equals("nested")).count());
+	}
+}
@@ -0,0 +1,99 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for NumberCache */
+public class TestNumberCache {
+	@Test
+	public void testValuesMatchStandardLibrary() {
+		final List<String> samples = List.of(
+			"0", "-0", "-00", "+0", "12", "-12", "1.5", "-0.0", " 3 ", "1e3", "9007199254740993",
+			"9223372036854775807", "9223372036854775808", "2147483648", "NaN", "-Infinity", "١٢", "abc", ""
+		);
+		final NumberCache numbers = new NumberCache(samples.size());
+		for (int pass = 0; pass < 2; pass++) {
+			for (int i = 0; i < samples.size(); i++) {
+				final String text = samples.get(i);
+				Long expectedLong = null;
+				try {
+					expectedLong = Long.parseLong(text);
+				} catch (NumberFormatException e) {
+					// Not a long.
+				}
+				Double expectedDouble = null;
+				try {
+					expectedDouble = Double.parseDouble(text);
+				} catch (NumberFormatException e) {
+					// Not a double.
+				}
+
+				assertEquals(expectedLong != null, numbers.isLong(i, text, Long.MIN_VALUE, Long.MAX_VALUE));
+				if (expectedLong != null) assertEquals((long) expectedLong, numbers.getLong(i));
+				assertEquals(expectedDouble != null, numbers.isDouble(i, text));
+				if (expectedDouble != null) assertEquals((double) expectedDouble, numbers.getDouble(i));
+			}
+		}
+		assertFalse(numbers.isLong(13, "2147483648", Integer.MIN_VALUE, Integer.MAX_VALUE));
+	}
+
+	@Test
+	public void testChangedArgumentsAreParsedAgain() throws BuilderException {
+		final DataNode node = new DataNode("mass", null, new ArrayList<>(List.of("300")), new ArrayList<>());
+		assertEquals(300, Builder.buildInt(node, 0));
+
+		node.setArgs(new ArrayList<>(List.of("350")));
+		assertEquals(350, Builder.buildInt(node, 0));
+
+		node.addArg("2.5");
+		assertEquals(2.5, Builder.buildDouble(node, 1));
+
+		node.getArgs().set(0, "400");
+		node.invalidateHash();
+		assertEquals(400, Builder.buildInt(node, 0));
+
+		// Growing the list directly is noticed without invalidating anything.
+		node.getArgs().add("7");
+		assertEquals(7L, Builder.buildLong(node, 2));
+	}
+
+	@Test
+	public void testReaderCachesNumbers() throws ReaderException, BuilderException {
+		final DataNode lazy = new DataNode();
+		new DataReader(new File("../testdata/humanreadable.txt"), lazy).parseChannel();
+
+		final DataNode eager = new DataNode();
+		final DataReader reader = new DataReader(new File("../testdata/humanreadable.txt"), eager);
+		reader.setCacheNumbers(true);
+		assertTrue(reader.getCacheNumbers());
+		reader.parseChannel();
+
+		assertEquals(lazy, eager);
+		final List<DataNode> lazyNodes = lazy.descendants().toList();
+		final List<DataNode> eagerNodes = eager.descendants().toList();
+		for (int i = 0; i < lazyNodes.size(); i++) {
+			for (int arg = 0; arg < lazyNodes.get(i).countArgs(); arg++) {
+				assertEquals(Builder.tryBuildDouble(lazyNodes.get(i), arg), Builder.tryBuildDouble(eagerNodes.get(i), arg));
+				assertEquals(Builder.tryBuildLong(lazyNodes.get(i), arg), Builder.tryBuildLong(eagerNodes.get(i), arg));
+			}
+		}
+	}
+}
@@ -0,0 +1,68 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for NumberParser */
+public class TestNumberParser {
+	/** Text which may or may not be a number, to compare against the standard library. */
+	private static final List<String> SAMPLES = List.of(
+		"", "0", "-0", "+0", "-", "+", "1", "-1", "+1", "007", "12a", "a12", " 12", "12 ", "1.0", "1.", ".5", ".",
+		"-.5", "1e3", "1E-3", "1e", "e3", "1.e3", ".e3", "1e+3", "2.5f", "2.5D", "2.5x", "NaN", "-NaN", "NaNd",
+		"Infinity", "-Infinity", "+Infinity", "infinity", "0x1p3", "-0x1.8p1", "0x", "0xg", "1_000", "--1",
+		"2147483647", "2147483648", "-2147483648", "-2147483649", "9223372036854775807", "9223372036854775808",
+		"-9223372036854775808", "-9223372036854775809", "99999999999999999999", "١٢", "  3.5  ", "- 1"
+	);
+
+
+
+	@Test
+	public void testIntegersMatchStandardLibrary() {
+		for (String sample : SAMPLES) {
+			boolean isInt = true;
+			try {
+				Integer.parseInt(sample);
+			} catch (NumberFormatException e) {
+				isInt = false;
+			}
+			assertEquals(isInt, NumberParser.isInteger(sample, Integer.MIN_VALUE, Integer.MAX_VALUE));
+
+			boolean isLong = true;
+			try {
+				Long.parseLong(sample);
+			} catch (NumberFormatException e) {
+				isLong = false;
+			}
+			assertEquals(isLong, NumberParser.isInteger(sample, Long.MIN_VALUE, Long.MAX_VALUE));
+		}
+	}
+
+	@Test
+	public void testDoublesMatchStandardLibrary() {
+		for (String sample : SAMPLES) {
+			boolean isDouble = true;
+			try {
+				Double.parseDouble(sample);
+			} catch (NumberFormatException e) {
+				isDouble = false;
+			}
+			assertEquals(isDouble, NumberParser.isDouble(sample));
+		}
+	}
+}
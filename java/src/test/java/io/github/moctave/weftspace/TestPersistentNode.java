@@ -0,0 +1,175 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for PersistentNode */
+public class TestPersistentNode {
+	@Test
+	public void testRoundTrip() {
+		final DataNode ship = TestIntegration.getTestNode();
+		final PersistentNode persistent = PersistentNode.of(ship);
+
+		assertEquals(ship, persistent);
+		assertEquals(ship.hashCode(), persistent.hashCode());
+		assertSame(persistent, PersistentNode.of(persistent));
+
+		final DataNode copy = persistent.toDataNode();
+		assertEquals(ship, copy);
+		assertSame(copy, copy.getChild(0).getParent());
+		copy.addArg("mutable");
+		assertNotEquals(persistent, copy);
+	}
+
+	@Test
+	public void testUpdateSharesUnchangedNodes() {
+		final PersistentNode root = PersistentNode.of("root")
+			.withChildAdded(PersistentNode.of("ship", "Kestrel").withChildAdded(PersistentNode.of("mass", "300")))
+			.withChildAdded(PersistentNode.of("ship", "Falcon").withChildAdded(PersistentNode.of("mass", "200")));
+
+		final PersistentNode edited = root.update(new int[] {0, 0}, mass -> mass.withArg(0, "350"));
+
+		// The old version is untouched.
+		assertEquals("300", root.getChild(0).getChild(0).getArg(0));
+		assertEquals("350", edited.getChild(0).getChild(0).getArg(0));
+
+		// Only the path to the change was copied.
+		assertNotSame(root.getChild(0), edited.getChild(0));
+		assertSame(root.getChild(1), edited.getChild(1));
+		assertSame(root.getArgs(), edited.getArgs());
+
+		// Edits which change nothing copy nothing.
+		assertSame(root, root.update(new int[] {1}, ship -> ship));
+	}
+
+	@Test
+	public void testEdits() {
+		final PersistentNode node = PersistentNode.of("ship", "Kestrel", "Light");
+
+		assertEquals("Osprey", node.withArg(0, "Osprey").getArg(0));
+		assertEquals("outfit", node.withName("outfit").getName());
+		assertEquals(List.of("A"), node.withArgs(List.of("A")).getArgs());
+
+		final PersistentNode parent = node.withChildren(List.of(new DataNode(), PersistentNode.of("mass")));
+		assertEquals(2, parent.countChildren());
+		assertTrue(parent.getChild(0) instanceof PersistentNode);
+		assertEquals(1, parent.withChildRemoved(0).countChildren());
+		assertEquals("hull", parent.withChild(1, PersistentNode.of("hull")).getChild(1).getName());
+	}
+
+	@Test
+	public void testWideNode() {
+		final Random random = new Random(16);
+		final List<DataNode> expected = new ArrayList<>();
+		PersistentNode root = PersistentNode.of("root");
+		for (int i = 0; i < 3000; i++) {
+			final PersistentNode child = PersistentNode.of("ship", Integer.toString(i));
+			expected.add(child);
+			root = root.withChildAdded(child);
+		}
+		final PersistentNode full = root;
+
+		for (int i = 0; i < 2000; i++) {
+			final int index = random.nextInt(expected.size());
+			if (random.nextBoolean()) {
+				final PersistentNode child = PersistentNode.of("outfit", Integer.toString(i));
+				expected.set(index, child);
+				root = root.withChild(index, child);
+			} else {
+				expected.remove(index);
+				root = root.withChildRemoved(index);
+			}
+		}
+
+		assertEquals(expected, root.getChildren());
+		assertEquals(expected.size(), root.countChildren());
+		assertEquals(expected.get(1234), root.getChild(1234));
+		assertEquals(new DataNode("root", null, List.of(), expected).hashCode(), root.hashCode());
+		assertEquals(root, root.toDataNode());
+
+		// Earlier versions are untouched.
+		assertEquals(3000, full.countChildren());
+		assertEquals("2999", full.getChild(2999).getArg(0));
+
+		while (root.countChildren() > 0) {
+			root = root.withChildRemoved(root.countChildren() - 1);
+		}
+		assertEquals(PersistentNode.of("root"), root);
+		assertEquals(PersistentNode.of("root").hashCode(), root.hashCode());
+		assertThrows(IndexOutOfBoundsException.class, () -> full.withChildRemoved(3000));
+	}
+
+	@Test
+	public void testImmutable() {
+		final PersistentNode node = PersistentNode.of("ship", "Kestrel").withChildAdded(PersistentNode.of("mass"));
+
+		assertNull(node.getChild(0).getParent());
+		assertThrows(UnsupportedOperationException.class, () -> node.setName("outfit"));
+		assertThrows(UnsupportedOperationException.class, () -> node.addArg("Light"));
+		assertThrows(UnsupportedOperationException.class, () -> node.addChild(new DataNode()));
+		assertThrows(UnsupportedOperationException.class, () -> node.getChildren().clear());
+	}
+
+	@Test
+	public void testKeepsLocation() {
+		final File file = new File("ships.txt");
+		final DataNode root = new DataNode();
+		root.addChild(new LoadedNode("ship", root, List.of("Kestrel"), List.of(), 7, file));
+
+		final PersistentNode persistent = PersistentNode.of(root);
+		final PersistentNode ship = (PersistentNode) persistent.getChild(0);
+		assertEquals(7, ship.getLine());
+		assertEquals(file, ship.getFile());
+		assertEquals(7, ship.withArg(0, "Osprey").getLine());
+		assertTrue(persistent.toDataNode().getChild(0) instanceof LoadedNode);
+	}
+
+	@Test
+	public void testDeepTree() {
+		final DataNode root = new DataNode();
+		DataNode deepest = root;
+		for (int i = 0; i < 100000; i++) {
+			final DataNode child = new DataNode("level", deepest, new ArrayList<>(List.of(Integer.toString(i))), new ArrayList<>());
+			deepest.addChild(child);
+			deepest = child;
+		}
+
+		final PersistentNode persistent = PersistentNode.of(root);
+		DataNode node = persistent;
+		for (int i = 0; i < 100000; i++) {
+			assertEquals(1, node.countChildren());
+			node = node.getChild(0);
+			assertEquals(Integer.toString(i), node.getArg(0));
+		}
+		assertEquals(0, node.countChildren());
+
+		node = persistent.toDataNode();
+		for (int i = 0; i < 100000; i++) {
+			assertEquals(1, node.countChildren());
+			final DataNode child = node.getChild(0);
+			assertSame(node, child.getParent());
+			assertEquals(Integer.toString(i), child.getArg(0));
+			node = child;
+		}
+		assertEquals(0, node.countChildren());
+	}
+}
@@ -0,0 +1,96 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for SharedTree */
+public class TestSharedTree {
+	@Test
+	public void testPutAndRemove() {
+		final SharedTree tree = new SharedTree(new DataNode());
+		final PersistentNode empty = tree.getRoot();
+
+		tree.put(PersistentNode.of("ship", "Kestrel").withChildAdded(PersistentNode.of("mass", "300")));
+		tree.put(PersistentNode.of("ship", "Falcon"));
+		tree.put(PersistentNode.of("ship", "Kestrel").withChildAdded(PersistentNode.of("mass", "350")));
+		assertEquals(2, tree.getRoot().countChildren());
+		assertEquals("350", tree.getRoot().findChild("ship", "Kestrel").getChild(0).getArg(0));
+		assertEquals(3, tree.getVersion());
+
+		tree.remove("ship", "Kestrel");
+		assertEquals(1, tree.getRoot().countChildren());
+		tree.remove("ship", "Kestrel");
+		assertEquals(4, tree.getVersion());
+
+		// Old roots never change.
+		assertEquals(0, empty.countChildren());
+	}
+
+	@Test
+	public void testUpdateAndReplace() {
+		final SharedTree tree = new SharedTree(TestIntegration.getTestNode());
+		final PersistentNode original = tree.getRoot();
+
+		tree.update(new int[] {0}, child -> child.withName("renamed"));
+		assertEquals("renamed", tree.getRoot().getChild(0).getName());
+		assertSame(original.getChild(1), tree.getRoot().getChild(1));
+
+		final DataNode replacement = new DataNode();
+		tree.replace(replacement);
+		assertEquals(replacement, tree.getRoot());
+	}
+
+	@Test
+	public void testReadersSeeConsistentTrees() throws InterruptedException {
+		final DataNode start = new DataNode();
+		start.addChild(new DataNode("a", start, new ArrayList<>(List.of("0")), new ArrayList<>()));
+		start.addChild(new DataNode("b", start, new ArrayList<>(List.of("0")), new ArrayList<>()));
+		final SharedTree tree = new SharedTree(start);
+
+		final AtomicBoolean done = new AtomicBoolean();
+		final AtomicReference<String> problem = new AtomicReference<>();
+		final List<Thread> readers = new ArrayList<>();
+		for (int i = 0; i < 4; i++) {
+			final Thread reader = new Thread(() -> {
+				while (!done.get()) {
+					final PersistentNode root = tree.getRoot();
+					if (!root.getChild(0).getArg(0).equals(root.getChild(1).getArg(0))) problem.set(root.toString());
+				}
+			});
+			reader.start();
+			readers.add(reader);
+		}
+
+		for (int i = 1; i <= 20000; i++) {
+			final String value = Integer.toString(i);
+			tree.update(root -> root.withChild(0, ((PersistentNode) root.getChild(0)).withArg(0, value))
+				.withChild(1, ((PersistentNode) root.getChild(1)).withArg(0, value)));
+		}
+		done.set(true);
+		for (Thread reader : readers) {
+			reader.join();
+		}
+
+		assertNull(problem.get());
+		assertEquals(20000, tree.getVersion());
+	}
+}
@@ -0,0 +1,106 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for SymbolTable */
+public class TestSymbolTable {
+	/**
+	 * Tests that equal strings are interned to the same instance.
+	 */
+	@Test
+	public void testIntern() {
+		SymbolTable symbols = new SymbolTable();
+		String first = symbols.intern(new String("hull damage"));
+		String second = symbols.intern(new String("hull damage"));
+
+		assertEquals("hull damage", first);
+		assertSame(first, second);
+		assertEquals(1, symbols.getSize());
+	}
+
+
+
+	/**
+	 * Tests that byte ranges are interned to the same instance as equal strings.
+	 */
+	@Test
+	public void testInternBytes() {
+		SymbolTable symbols = new SymbolTable();
+		byte[] data = "ship mass ship".getBytes(StandardCharsets.US_ASCII);
+
+		String first = symbols.intern(data, 0, 4);
+		assertEquals("ship", first);
+		assertSame(first, symbols.intern(data, 10, 14));
+		assertSame(first, symbols.intern(new String("ship")));
+		assertEquals("mass", symbols.intern(data, 5, 9));
+		assertEquals("", symbols.intern(data, 4, 4));
+	}
+
+
+
+	/**
+	 * Tests that long strings are not stored, and that nothing is stored once the table is full.
+	 */
+	@Test
+	public void testLimits() {
+		SymbolTable symbols = new SymbolTable(300, 4);
+		String description = new String("a long description");
+		assertSame(description, symbols.intern(description));
+		assertEquals(0, symbols.getSize());
+
+		for (int i = 0; i < 1000; i++) {
+			assertEquals(Integer.toString(i), symbols.intern(Integer.toString(i)));
+		}
+		assertEquals(300, symbols.getSize());
+		assertSame(symbols.intern("1"), symbols.intern(new String("1")));
+		String extra = new String("999");
+		assertSame(extra, symbols.intern(extra));
+	}
+
+
+
+	/**
+	 * Tests that a reader with a symbol table shares names between nodes without
+	 * changing the tree it builds.
+	 */
+	@Test
+	public void testParse() throws ReaderException {
+		File file = new File("../testdata/humanreadable.txt");
+		DataNode plain = new DataNode();
+		new DataReader(file, plain).parse();
+
+		SymbolTable symbols = new SymbolTable();
+		DataNode scanned = new DataNode();
+		DataReader scanner = new DataReader(file, scanned);
+		scanner.setSymbols(symbols);
+		scanner.parseChannel();
+
+		DataNode parsed = new DataNode();
+		DataReader reader = new DataReader(file, parsed);
+		reader.setSymbols(symbols);
+		reader.parse();
+
+		assertEquals(plain, scanned);
+		assertEquals(plain, parsed);
+		assertTrue(symbols.getSize() > 0);
+		assertSame(scanned.getChild(0).getName(), parsed.getChild(0).getName());
+	}
+}
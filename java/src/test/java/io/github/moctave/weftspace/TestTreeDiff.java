@@ -0,0 +1,130 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for TreeDiff */
+public class TestTreeDiff {
+	/**
+	 * Builds a small tree of ships.
+	 * 
+	 * @return The root of the tree.
+	 */
+	private static DataNode ships() {
+		final DataNode root = new DataNode();
+		final DataNode kestrel = TestIntegration.node(root, "ship", "Kestrel");
+		TestIntegration.node(kestrel, "mass", "300");
+		TestIntegration.node(kestrel, "weapon", "Laser");
+		TestIntegration.node(kestrel, "weapon", "Laser");
+		TestIntegration.node(TestIntegration.node(root, "ship", "Falcon"), "mass", "200");
+		TestIntegration.node(root, "outfit", "Heavy Laser");
+		return root;
+	}
+
+
+
+	@Test
+	public void testIdentical() {
+		assertTrue(TreeDiff.compare(ships(), ships()).isEmpty());
+	}
+
+	@Test
+	public void testChanged() {
+		final DataNode after = ships();
+		after.getChild(0).getChild(0).setArgs(new ArrayList<>(List.of("350")));
+
+		final List<TreeDiff.Change> changes = TreeDiff.compare(ships(), after);
+		assertEquals(1, changes.size());
+		assertEquals(TreeDiff.Kind.CHANGED, changes.get(0).kind());
+		assertEquals("ship Kestrel/mass 350", changes.get(0).path());
+		assertEquals(List.of("300"), changes.get(0).before().getArgs());
+		assertEquals(List.of("350"), changes.get(0).after().getArgs());
+	}
+
+	@Test
+	public void testAddedAndRemoved() {
+		final DataNode after = ships();
+		after.getChildren().remove(1);
+		final DataNode osprey = new DataNode("ship", after, List.of("Osprey"), new ArrayList<>());
+		TestIntegration.node(osprey, "mass", "100");
+		after.getChildren().add(0, osprey);
+		TestIntegration.node(after.getChild(1), "weapon", "Laser");
+		after.invalidateHash();
+
+		final List<TreeDiff.Change> changes = TreeDiff.compare(ships(), after);
+		assertEquals(3, changes.size());
+		assertEquals(TreeDiff.Kind.REMOVED, changes.get(0).kind());
+		assertEquals("ship Falcon", changes.get(0).path());
+		assertNull(changes.get(0).after());
+		assertEquals(TreeDiff.Kind.ADDED, changes.get(1).kind());
+		assertEquals("ship Osprey", changes.get(1).path());
+		assertNull(changes.get(1).before());
+		assertEquals(TreeDiff.Kind.ADDED, changes.get(2).kind());
+		assertEquals("ship Kestrel/weapon Laser [2]", changes.get(2).path());
+
+		// Paths can be used to find the node again.
+		assertSame(changes.get(2).after(), NodeQuery.of(changes.get(2).path()).first(after));
+	}
+
+	@Test
+	public void testMoved() {
+		final DataNode after = ships();
+		final DataNode outfit = after.getChildren().remove(2);
+		after.getChildren().add(0, outfit);
+		after.invalidateHash();
+
+		final List<TreeDiff.Change> changes = TreeDiff.compare(ships(), after);
+		assertEquals(1, changes.size());
+		assertEquals(TreeDiff.Kind.MOVED, changes.get(0).kind());
+		assertEquals("outfit \"Heavy Laser\"", changes.get(0).path());
+	}
+
+	@Test
+	public void testLocations() {
+		final File file = new File("ships.txt");
+		final DataNode before = new DataNode();
+		final DataNode after = new DataNode();
+		after.addChild(new LoadedNode("ship", after, List.of("Osprey"), List.of(), 12, file));
+
+		final TreeDiff.Change change = TreeDiff.compare(before, after).get(0);
+		assertEquals(file, change.getFile());
+		assertEquals(12, change.getLine());
+		assertEquals("added ship Osprey (ships.txt:12)", change.toString());
+	}
+
+	@Test
+	public void testLargeTrees() {
+		final DataNode before = new DataNode();
+		final DataNode after = new DataNode();
+		for (int i = 0; i < 20000; i++) {
+			for (DataNode root : List.of(before, after)) {
+				final DataNode ship = TestIntegration.node(root, "ship", "Ship " + i);
+				TestIntegration.node(ship, "mass", Integer.toString(i));
+				TestIntegration.node(TestIntegration.node(ship, "attributes"), "shields", Integer.toString(i * 2));
+			}
+		}
+		after.getChild(12345).getChild(1).getChild(0).setArgs(new ArrayList<>(List.of("0")));
+
+		final List<TreeDiff.Change> changes = TreeDiff.compare(before, after);
+		assertEquals(1, changes.size());
+		assertEquals("ship \"Ship 12345\"/attributes/shields 0", changes.get(0).path());
+	}
+}
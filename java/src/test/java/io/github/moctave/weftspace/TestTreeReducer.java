@@ -0,0 +1,104 @@
+// Copyright (c) 2026 by mOctave
+//
+// This program is free software: you can redistribute it and/or modify it under the
+// terms of the GNU Affero General Public License as published by the Free Software
+// Foundation, either version 3 of the License, or (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful, but WITHOUT ANY
+// WARRANTY; without even the implied warranty of MERCHANTABILITY or FITNESS FOR A
+// PARTICULAR PURPOSE. See the GNU Affero General Public License for more details.
+//
+// You should have received a copy of the GNU Affero General Public License along with
+// this program. If not, see <https://www.gnu.org/licenses/>.
+
+package io.github.moctave.weftspace;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.ArrayList;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for TreeReducer */
+public class TestTreeReducer {
+	/**
+	 * Builds a tree of outfits, each with a cost, and a few with many children.
+	 * 
+	 * @param outfits The number of outfits.
+	 * @return The root of the tree.
+	 */
+	private static DataNode outfits(int outfits) {
+		final DataNode root = new DataNode();
+		for (int i = 0; i < outfits; i++) {
+			final DataNode outfit = TestIntegration.node(root, "outfit", "O" + i);
+			TestIntegration.node(outfit, "cost", Integer.toString(i));
+			for (int j = 0; j < (i % 100 == 0 ? 500 : 2); j++) {
+				TestIntegration.node(outfit, "sprite", "s" + j);
+			}
+		}
+		return root;
+	}
+
+	/**
+	 * Gets the cost of a node.
+	 * 
+	 * @param node The node.
+	 * @return The cost, or 0 if the node is not a cost.
+	 */
+	private static long cost(DataNode node) {
+		return node.getName().equals("cost") ? Long.parseLong(node.getArg(0)) : 0;
+	}
+
+
+
+	@Test
+	public void testMapReduce() {
+		final DataNode root = outfits(5000);
+		final TreeReducer<Long> total = TreeReducer.mapReduce(TestTreeReducer::cost, Long::sum);
+		total.setThreshold(64);
+
+		assertEquals(4999L * 5000 / 2, (long) total.reduce(root));
+		assertEquals(total.reduceSequentially(root), total.reduce(root));
+	}
+
+	@Test
+	public void testChildResultsInOrder() {
+		final DataNode root = outfits(3000);
+		final TreeReducer<DataNode> copier = new TreeReducer<>(
+			(node, children) -> new DataNode(node.getName(), null, new ArrayList<>(node.getArgs()), children)
+		);
+		copier.setThreshold(16);
+		copier.setPool(new ForkJoinPool(4));
+
+		final DataNode copy = copier.reduce(root);
+		assertNotSame(root, copy);
+		assertEquals(root, copy);
+	}
+
+	@Test
+	public void testDeepNesting() {
+		final DataNode root = new DataNode();
+		DataNode node = root;
+		for (int i = 0; i < 100000; i++) {
+			final DataNode child = new DataNode("nested", node, new ArrayList<>(), new ArrayList<>());
+			node.getChildren().add(child);
+			node.getChildren().add(new DataNode("leaf", node, new ArrayList<>(), new ArrayList<>()));
+			node = child;
+		}
+
+		final TreeReducer<Integer> depth = new TreeReducer<>(
+			(n, children) -> children.stream().mapToInt(Integer::intValue).max().orElse(-1) + 1
+		);
+		depth.setThreshold(100);
+		assertEquals(100000, (int) depth.reduce(root));
+		assertEquals(100000, (int) depth.reduceSequentially(root));
+	}
+
+	@Test
+	public void testThreshold() {
+		final TreeReducer<Long> total = TreeReducer.mapReduce(TestTreeReducer::cost, Long::sum);
+		assertEquals(TreeReducer.DEFAULT_THRESHOLD, total.getThreshold());
+		assertThrows(IllegalArgumentException.class, () -> total.setThreshold(0));
+	}
+}